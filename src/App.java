@@ -1,11 +1,31 @@
+import batch.BatchRunner;
 import dto.BookDTO;
 import dto.LoanDTO;
+import export.ExportFormat;
+import export.LoanExporter;
+import metrics.MetricsExporter;
+import metrics.MetricsExporterFactory;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
 import model.User;
-import service.BookService;
-import service.LoanService;
-import service.NotificationService;
-import service.UserService;
-
+import server.LibraryHttpServer;
+import service.CirculationAnalyticsService;
+import service.LoanHistoryService;
+import service.ServiceContext;
+import util.DataStore;
+import util.SnapshotFile;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,24 +36,72 @@ import java.util.Scanner;
 public class App {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static BookService bookService;
-    private static UserService userService;
-    private static LoanService loanService;
-    private static NotificationService notificationService;
+
+    // Services créés à leur première utilisation (voir ServiceContext)
+    private static ServiceContext services;
+
+    // Exporteurs de métriques actifs (choisis via -Dbiblio.metrics=log,jmx,prometheus)
+    private static final List<MetricsExporter> metricsExporters = new ArrayList<>();
 
     // Utilisateur actuellement connecté (null si personne n'est connecté)
     private static User currentUser = null;
 
-    public static void main(String[] args) {
-        // Initialisation des services
+    // Chargement des données en arrière-plan (voir initializeServices)
+    private static Thread preload;
+
+    // Mesure de démarrage (-Dbiblio.startupTiming=true) : menu affiché, puis première commande acceptée
+    private static final boolean startupTiming = Boolean.getBoolean("biblio.startupTiming");
+    private static long menuShownMillis = -1;
+    private static boolean startupReported = false;
+
+    public static void main(String[] args) throws IOException {
+        // Mode batch : java App --batch [fichier|-]
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : "-");
+            return;
+        }
+
+        // Écriture d'un instantané : java App --write-snapshot fichier
+        if (args.length > 1 && args[0].equals("--write-snapshot")) {
+            SnapshotFile.write(DataStore.getInstance(), Path.of(args[1]));
+            System.out.println("✅ Instantané écrit : " + args[1]);
+            return;
+        }
+
+        // Initialisation des services (paresseuse)
         initializeServices();
+        startMetricsExporters();
+
+        // Export de l'historique des emprunts : java App --export-loans fichier [csv|bin]
+        if (args.length > 1 && args[0].equals("--export-loans")) {
+            ExportFormat format = args.length > 2 ? ExportFormat.fromName(args[2]) : ExportFormat.CSV;
+            LoanExporter.Result result = services.getLoanService().exportHistory(Path.of(args[1]), format);
+            System.out.println("✅ Historique exporté : " + args[1] + " (" + result + ")");
+            return;
+        }
+
+        // Rapport de circulation : java App --circulation-report [jours]
+        if (args.length > 0 && args[0].equals("--circulation-report")) {
+            printCirculationReport(args.length > 1 ? Integer.parseInt(args[1]) : 365);
+            return;
+        }
+
+        // Mode serveur : java App --server [port]
+        if (args.length > 0 && args[0].equals("--server")) {
+            startServer(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            return;
+        }
 
         // Boucle principale du menu
         boolean running = true;
         while (running) {
             displayMenu();
+            if (startupTiming && menuShownMillis < 0) {
+                menuShownMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            }
             int choice = readIntInput();
             scanner.nextLine(); // Consomme le retour à la ligne
+            reportStartupTime();
 
             try {
                 running = handleMenuChoice(choice);
@@ -44,19 +112,122 @@ public class App {
 
         System.out.println("\n👋 Merci d'avoir utilisé Ma Petite Bibliothèque !");
         scanner.close();
+        metricsExporters.forEach(MetricsExporter::stop);
+        if (Boolean.getBoolean("biblio.queryReport")) {
+            System.err.print(QueryProfiler.getInstance().report());
+        }
     }
 
     /**
-     * Initialise tous les services et configure le pattern Observer
+     * Initialise le contexte des services et configure le pattern Observer.
+     * Les données sont chargées en arrière-plan pendant que le menu s'affiche :
+     * le premier accès au DataStore attend simplement la fin du chargement.
      */
     private static void initializeServices() {
-        bookService = new BookService();
-        userService = new UserService();
-        notificationService = new NotificationService(userService);
-        loanService = new LoanService(bookService, userService);
+        services = new ServiceContext(true);
+        preload = new Thread(DataStore::getInstance, "datastore-preload");
+        preload.setDaemon(true);
+        preload.start();
+    }
 
-        // Pattern Observer : Le NotificationService s'enregistre comme observateur
-        loanService.addObserver(notificationService);
+    /**
+     * Mesure de démarrage (activée par -Dbiblio.startupTiming=true) : temps entre le
+     * lancement de la JVM et la première commande acceptée, données chargées comprises.
+     * Avec une entrée redirigée (util.StartupBenchmark), c'est le délai avant la
+     * première commande ; en interactif, il comprend aussi le temps de saisie.
+     */
+    private static void reportStartupTime() {
+        if (startupReported || !startupTiming) {
+            return;
+        }
+        startupReported = true;
+        try {
+            preload.join(); // La commande ne peut s'exécuter qu'une fois les données chargées
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.err.println("⏱ Menu affiché en " + menuShownMillis + " ms, première commande acceptée en "
+                + uptime + " ms après le lancement de la JVM");
+    }
+
+    /**
+     * Exécute un fichier de commandes (ou l'entrée standard avec "-") sans menu.
+     * Pas de notification console : la sortie standard ne contient que les résultats.
+     */
+    private static void runBatch(String source) throws IOException {
+        services = new ServiceContext(false);
+        BatchRunner runner = new BatchRunner(services.getBookService(), services.getUserService(),
+                services.getLoanService());
+
+        long start = System.nanoTime();
+        try (Reader input = source.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : new FileReader(source, StandardCharsets.UTF_8);
+             Writer output = new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            runner.run(input, output);
+        }
+        System.err.printf("Batch terminé : %d commande(s) réussie(s), %d en erreur, %.1f ms%n",
+                runner.getSucceeded(), runner.getFailed(), (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Démarre l'API HTTP/JSON (plusieurs clients simultanés, une session par client)
+     */
+    private static void startServer(int port) throws IOException {
+        LibraryHttpServer server = new LibraryHttpServer(port, services.getBookService(),
+                services.getUserService(), services.getLoanService(), services.getAutocompleteService(),
+                services.getCatalogBrowseService());
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            metricsExporters.forEach(MetricsExporter::stop);
+        }));
+        System.out.println("🌐 Serveur HTTP démarré sur le port " + server.getPort());
+    }
+
+    /**
+     * Affiche les statistiques de circulation des derniers jours
+     */
+    private static void printCirculationReport(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Nombre de jours invalide : " + days);
+        }
+        CirculationAnalyticsService analytics = services.getCirculationAnalyticsService();
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1);
+
+        System.out.println("=== Circulation du " + from + " au " + to + " ===");
+        System.out.println("Livres les plus empruntés :");
+        analytics.getMostBorrowedBooks(from, to, 10)
+                .forEach((isbn, count) -> System.out.println("  " + isbn + " : " + count));
+        System.out.printf("Durée moyenne d'un emprunt : %.1f jour(s)%n", analytics.getAverageLoanDuration(from, to));
+        System.out.println("Taux de retard par cohorte :");
+        analytics.getOverdueRatePerCohort(from, to, to)
+                .forEach((cohort, rate) -> System.out.printf("  %s : %.1f %%%n", cohort, rate * 100));
+
+        LoanHistoryService history = services.getLoanHistoryService();
+        System.out.println("Emprunts en retard (7 derniers jours) :");
+        history.getOverdueCountsPerDay(to.minusDays(6), to)
+                .forEach((day, count) -> System.out.println("  " + day + " : " + count));
+        System.out.println("Retours attendus (7 prochains jours) :");
+        for (LocalDate day = to; day.isBefore(to.plusDays(7)); day = day.plusDays(1)) {
+            System.out.println("  " + day + " : " + history.getDueCount(day));
+        }
+    }
+
+    /**
+     * Démarre les exporteurs de métriques demandés (Pattern Factory + Strategy)
+     */
+    private static void startMetricsExporters() {
+        String types = System.getProperty("biblio.metrics", "");
+        for (String type : types.split(",")) {
+            if (!type.isBlank()) {
+                MetricsExporter exporter = MetricsExporterFactory.create(type);
+                exporter.start(MetricsRegistry.getInstance());
+                metricsExporters.add(exporter);
+            }
+        }
     }
 
     /**
@@ -117,7 +288,7 @@ public class App {
         System.out.print("Mot de passe : ");
         String password = scanner.nextLine();
 
-        userService.register(userId, firstName, lastName, email, password);
+        services.getUserService().register(userId, firstName, lastName, email, password);
         System.out.println("✅ Inscription réussie ! Vous pouvez maintenant vous connecter.");
     }
 
@@ -132,7 +303,7 @@ public class App {
         System.out.print("Mot de passe : ");
         String password = scanner.nextLine();
 
-        User user = userService.login(userId, password);
+        User user = services.getUserService().login(userId, password);
         if (user != null) {
             currentUser = user;
             System.out.println("✅ Connexion réussie ! Bienvenue " + user.getFullName());
@@ -176,14 +347,14 @@ public class App {
         int year = readIntInput();
         scanner.nextLine(); // Consomme le retour à la ligne
 
-        bookService.addBook(isbn, title, author, publisher, year);
+        services.getBookService().addBook(isbn, title, author, publisher, year);
         System.out.println("✅ Livre ajouté avec succès !");
     }
 
     // ==================== 4. VOIR TOUS LES LIVRES ====================
 
     private static void displayAllBooks() {
-        List<BookDTO> books = bookService.getAllBooks();
+        List<BookDTO> books = services.getBookService().getAllBooks();
         if (books.isEmpty()) {
             System.out.println("📚 Aucun livre dans la bibliothèque.");
             return;
@@ -201,9 +372,16 @@ public class App {
         System.out.print("Entrez le titre (ou une partie) : ");
         String keyword = scanner.nextLine();
 
-        List<BookDTO> books = bookService.searchBooksByTitle(keyword);
+        List<BookDTO> books = services.getBookService().searchBooksByTitle(keyword);
         if (books.isEmpty()) {
             System.out.println("❌ Aucun livre trouvé avec le titre : " + keyword);
+            List<BookDTO> suggestions = services.getBookService().searchBooksFuzzy(keyword, 5);
+            if (!suggestions.isEmpty()) {
+                System.out.println("💡 Vouliez-vous dire :");
+                for (BookDTO book : suggestions) {
+                    System.out.println(book);
+                }
+            }
             return;
         }
 
@@ -227,8 +405,19 @@ public class App {
         System.out.print("ISBN du livre : ");
         String isbn = scanner.nextLine();
 
-        loanService.createLoan(currentUser.getUserId(), isbn);
+        services.getLoanService().createLoan(currentUser.getUserId(), isbn);
         System.out.println("✅ Emprunt enregistré !");
+
+        List<String> similar = services.getRecommendationService().getSimilarBooks(isbn, 3);
+        if (!similar.isEmpty()) {
+            System.out.println("💡 Les lecteurs de ce livre ont aussi emprunté :");
+            for (String similarIsbn : similar) {
+                BookDTO book = services.getBookService().getBookByIsbn(similarIsbn);
+                if (book != null) {
+                    System.out.println("  - " + book.getTitle() + " (" + book.getAuthor() + ")");
+                }
+            }
+        }
     }
 
     // ==================== 7. RETOURNER UN LIVRE ====================
@@ -243,7 +432,7 @@ public class App {
         System.out.println("=== RETOURNER UN LIVRE ===");
 
         // Affiche les emprunts actifs de l'utilisateur
-        List<LoanDTO> myLoans = loanService.getActiveLoansByUserId(currentUser.getUserId());
+        List<LoanDTO> myLoans = services.getLoanService().getActiveLoansByUserId(currentUser.getUserId());
         if (myLoans.isEmpty()) {
             System.out.println("❌ Vous n'avez aucun emprunt en cours.");
             return;
@@ -257,7 +446,7 @@ public class App {
         System.out.print("\nID de l'emprunt à retourner : ");
         String loanId = scanner.nextLine();
 
-        loanService.returnBook(loanId);
+        services.getLoanService().returnBook(loanId);
         System.out.println("✅ Livre retourné !");
     }
 
@@ -270,7 +459,7 @@ public class App {
             return;
         }
 
-        List<LoanDTO> myLoans = loanService.getActiveLoansByUserId(currentUser.getUserId());
+        List<LoanDTO> myLoans = services.getLoanService().getActiveLoansByUserId(currentUser.getUserId());
         if (myLoans.isEmpty()) {
             System.out.println("📋 Vous n'avez aucun emprunt en cours.");
             return;
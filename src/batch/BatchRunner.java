@@ -0,0 +1,261 @@
+package batch;
+
+import dto.BookDTO;
+import service.BookService;
+import service.LoanService;
+import service.UserService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mode batch : exécute un flux de commandes sans menu ni saisie interactive.
+ *
+ * Une commande par ligne, champs séparés par des tabulations :
+ *   REGISTER    userId  prénom  nom  email  motDePasse
+ *   ADD_BOOK    isbn  titre  auteur  éditeur  année
+ *   BORROW      userId  isbn
+ *   RETURN      loanId
+ *   RETURN_ISBN isbn          (retours de la boîte de dépôt)
+ *   RENEW       loanId
+ *   LOGIN       userId  motDePasse
+ *   SEARCH      motClé
+ * Les lignes vides et celles commençant par # sont ignorées.
+ *
+ * Chaque commande produit une ligne : "OK", "OK<TAB>résultat" ou
+ * "ERR<TAB>numéroDeLigne<TAB>message" (sauts de ligne et tabulations du
+ * message remplacés par des espaces).
+ *
+ * La lecture, l'exécution et l'écriture tournent en parallèle (pipeline) :
+ * un thread lit et découpe l'entrée en lots, le thread appelant exécute
+ * les commandes dans l'ordre, un troisième thread écrit les résultats.
+ */
+public class BatchRunner {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final List<String> END = new ArrayList<>(); // Marqueur de fin de flux
+
+    private final BookService bookService;
+    private final UserService userService;
+    private final LoanService loanService;
+
+    private long succeeded;
+    private long failed;
+
+    public BatchRunner(BookService bookService, UserService userService, LoanService loanService) {
+        this.bookService = bookService;
+        this.userService = userService;
+        this.loanService = loanService;
+    }
+
+    /**
+     * Exécute toutes les commandes de l'entrée et écrit un résultat par commande
+     */
+    public void run(Reader input, Writer output) throws IOException {
+        BlockingQueue<List<String>> commands = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<List<String>> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        IOException[] failure = new IOException[2];
+        // Levé par l'écrivain en cas d'erreur d'écriture : l'exécution s'arrête au lot suivant
+        AtomicBoolean writeFailed = new AtomicBoolean();
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(input, 1 << 16)) {
+                List<String> batch = new ArrayList<>(BATCH_SIZE);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    batch.add(line);
+                    if (batch.size() == BATCH_SIZE) {
+                        commands.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    commands.put(batch);
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                putQuietly(commands, END);
+            }
+        }, "batch-reader");
+
+        Thread writer = new Thread(() -> {
+            BufferedWriter out = new BufferedWriter(output, 1 << 16);
+            try {
+                List<String> batch = results.take();
+                try {
+                    for (; batch != END; batch = results.take()) {
+                        for (String result : batch) {
+                            out.write(result);
+                            out.write('\n');
+                        }
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    failure[1] = e;
+                    writeFailed.set(true);
+                    // Continue à vider la file jusqu'à END : l'exécution ne reste jamais bloquée sur put
+                    while (batch != END) {
+                        batch = results.take();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "batch-writer");
+
+        // Démons : un lecteur bloqué sur l'entrée standard n'empêche pas la JVM de s'arrêter
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+        boolean completed = false;
+        try {
+            long lineNumber = 0;
+            for (List<String> batch = commands.take(); batch != END && !writeFailed.get(); batch = commands.take()) {
+                List<String> batchResults = new ArrayList<>(batch.size());
+                for (String line : batch) {
+                    lineNumber++;
+                    String result = execute(line, lineNumber);
+                    if (result != null) {
+                        batchResults.add(result);
+                    }
+                }
+                results.put(batchResults);
+            }
+            results.put(END);
+            writer.join();
+            if (writeFailed.get()) {
+                reader.interrupt(); // Plus personne ne consomme les commandes
+            } else {
+                reader.join();
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrompu", e);
+        } finally {
+            if (!completed) {
+                reader.interrupt();
+                writer.interrupt();
+            }
+        }
+
+        for (IOException e : failure) {
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+
+    public long getSucceeded() { return succeeded; }
+    public long getFailed() { return failed; }
+
+    /**
+     * Exécute une ligne de commande ; renvoie null pour une ligne ignorée
+     */
+    private String execute(String line, long lineNumber) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return null;
+        }
+        String[] f = line.split("\t", -1);
+        try {
+            String result = switch (f[0]) {
+                case "REGISTER" -> {
+                    requireFields(f, 6);
+                    userService.register(f[1], f[2], f[3], f[4], f[5]);
+                    yield "OK";
+                }
+                case "ADD_BOOK" -> {
+                    requireFields(f, 6);
+                    bookService.addBook(f[1], f[2], f[3], f[4], parseYear(f[5]));
+                    yield "OK";
+                }
+                case "BORROW" -> {
+                    requireFields(f, 3);
+                    loanService.createLoan(f[1], f[2]);
+                    yield "OK";
+                }
+                case "RETURN" -> {
+                    requireFields(f, 2);
+                    loanService.returnBook(f[1]);
+                    yield "OK";
+                }
+                case "RETURN_ISBN" -> {
+                    requireFields(f, 2);
+                    loanService.returnBookByIsbn(f[1]);
+                    yield "OK";
+                }
+                case "RENEW" -> {
+                    requireFields(f, 2);
+                    loanService.renewLoan(f[1]);
+                    yield "OK";
+                }
+                case "LOGIN" -> {
+                    requireFields(f, 3);
+                    if (userService.login(f[1], f[2]) == null) {
+                        throw new IllegalArgumentException("Identifiant ou mot de passe incorrect");
+                    }
+                    yield "OK";
+                }
+                case "SEARCH" -> {
+                    requireFields(f, 2);
+                    List<BookDTO> books = bookService.searchBooksByTitle(f[1]);
+                    StringBuilder isbns = new StringBuilder("OK\t").append(books.size());
+                    for (BookDTO book : books) {
+                        isbns.append('\t').append(book.getIsbn());
+                    }
+                    yield isbns.toString();
+                }
+                default -> throw new IllegalArgumentException("Commande inconnue : " + f[0]);
+            };
+            succeeded++;
+            return result;
+        } catch (RuntimeException e) {
+            failed++;
+            return "ERR\t" + lineNumber + "\t" + singleLine(e);
+        }
+    }
+
+    /**
+     * Message d'erreur sur une seule ligne et un seul champ (un résultat par ligne)
+     */
+    private static String singleLine(RuntimeException e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        return message.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ').replace('\t', ' ');
+    }
+
+    private static void requireFields(String[] fields, int expected) {
+        if (fields.length != expected) {
+            throw new IllegalArgumentException(fields[0] + " attend " + (expected - 1)
+                    + " champ(s), reçu " + (fields.length - 1));
+        }
+    }
+
+    private static int parseYear(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Année invalide : " + value);
+        }
+    }
+
+    private static void putQuietly(BlockingQueue<List<String>> queue, List<String> item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture du format produit par BinaryOutput
+ *
+ * La table des chaînes est reconstruite au fil de la lecture, dans le même
+ * ordre et avec la même borne que côté écriture.
+ */
+public class BinaryInput implements AutoCloseable {
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private final List<String> table = new ArrayList<>();
+
+    public BinaryInput(InputStream in) throws IOException {
+        this(in, 1 << 16);
+    }
+
+    public BinaryInput(InputStream in, int bufferSize) throws IOException {
+        this.in = in;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+        int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        if (magic != BinaryOutput.MAGIC) {
+            throw new IOException("Flux binaire inconnu");
+        }
+        long version = readVarint();
+        if (version != BinaryOutput.VERSION) {
+            throw new IOException("Version de flux binaire non supportée : " + version);
+        }
+    }
+
+    /**
+     * Vrai tant qu'il reste des octets à lire (fin d'une suite d'enregistrements)
+     */
+    public boolean hasMore() throws IOException {
+        return position < limit || fill();
+    }
+
+    public long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint trop long");
+    }
+
+    public long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() throws IOException {
+        return (int) readSignedVarint();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public String readString() throws IOException {
+        long header = readVarint();
+        if (header == 0) {
+            return null;
+        }
+        if ((header & 1) != 0) {
+            long index = header >>> 1;
+            if (index >= table.size()) {
+                throw new IOException("Référence de chaîne invalide : " + index);
+            }
+            return table.get((int) index);
+        }
+        int length = (int) ((header >>> 1) - 1);
+        String value;
+        if (length <= buffer.length) {
+            if (limit - position < length) {
+                compact(length);
+                if (limit - position < length) {
+                    throw new EOFException();
+                }
+            }
+            value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+        } else {
+            byte[] bytes = new byte[length];
+            int copied = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, copied);
+            position = limit;
+            if (in.readNBytes(bytes, copied, length - copied) != length - copied) {
+                throw new EOFException();
+            }
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (table.size() < BinaryOutput.MAX_TABLE_SIZE) {
+            table.add(value);
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ==================== TAMPON ====================
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            throw new EOFException();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+        return limit > 0;
+    }
+
+    /**
+     * Ramène les octets restants en début de tampon et lit jusqu'à ce que
+     * needed octets soient disponibles (ou jusqu'à la fin du flux)
+     */
+    private void compact(int needed) throws IOException {
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        while (limit < needed) {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                return;
+            }
+            limit += n;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Format binaire compact : entiers en varint, chaînes dédupliquées par une table
+ *
+ * Pourquoi : Les exports répètent massivement les mêmes chaînes (auteurs, éditeurs,
+ * statuts, dates). Une chaîne déjà écrite n'est plus envoyée qu'une fois : les
+ * occurrences suivantes deviennent une référence de un ou deux octets.
+ *
+ * Encodage d'une chaîne (varint d'en-tête) :
+ *   0             → null
+ *   impair (2i+1) → référence à l'entrée i de la table
+ *   pair (2(n+1)) → littéral de n octets UTF-8, ajouté à la table si elle n'est pas pleine
+ *
+ * La table est bornée (MAX_TABLE_SIZE) pour que la mémoire reste constante même
+ * sur un flux de dizaines de millions de titres tous différents.
+ */
+public class BinaryOutput implements AutoCloseable {
+
+    static final int MAGIC = 0x42494244; // "BIBD"
+    static final int VERSION = 1;
+    static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private final Map<String, Integer> table = new HashMap<>();
+
+    public BinaryOutput(OutputStream out) throws IOException {
+        this(out, 1 << 16);
+    }
+
+    public BinaryOutput(OutputStream out, int bufferSize) throws IOException {
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+        writeFixedInt(MAGIC);
+        writeVarint(VERSION);
+    }
+
+    /**
+     * Entier positif ou nul, 7 bits par octet
+     */
+    public void writeVarint(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Entier signé (zigzag : les petites valeurs négatives restent courtes)
+     */
+    public void writeSignedVarint(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) (value ? 1 : 0);
+    }
+
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer index = table.get(value);
+        if (index != null) {
+            writeVarint(((long) index << 1) | 1);
+            return;
+        }
+        int length = utf8Length(value);
+        writeVarint((long) (length + 1) << 1);
+        writeUtf8(value, length);
+        if (table.size() < MAX_TABLE_SIZE) {
+            table.put(value, table.size());
+        }
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    // ==================== ENCODAGE ====================
+
+    private void writeFixedInt(int value) throws IOException {
+        ensure(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeUtf8(String value, int byteLength) throws IOException {
+        if (byteLength > buffer.length) {
+            // Chaîne plus grande que le tampon : cas rare, on accepte l'allocation
+            out.write(buffer, 0, position);
+            position = 0;
+            out.write(value.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            return;
+        }
+        ensure(byteLength);
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // Surrogate isolé : même remplacement que String.getBytes
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
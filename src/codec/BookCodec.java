@@ -0,0 +1,44 @@
+package codec;
+
+import dto.BookDTO;
+
+import java.io.IOException;
+
+/**
+ * Codec de BookDTO
+ */
+public final class BookCodec implements DtoCodec<BookDTO> {
+
+    public static final BookCodec INSTANCE = new BookCodec();
+
+    private BookCodec() {
+    }
+
+    @Override
+    public void writeJson(BookDTO book, JsonOutput out) throws IOException {
+        out.beginObject()
+                .name("isbn").value(book.getIsbn())
+                .name("title").value(book.getTitle())
+                .name("author").value(book.getAuthor())
+                .name("publisher").value(book.getPublisher())
+                .name("year").value(book.getYear())
+                .name("status").value(book.getStatus())
+                .endObject();
+    }
+
+    @Override
+    public void writeBinary(BookDTO book, BinaryOutput out) throws IOException {
+        out.writeString(book.getIsbn());
+        out.writeString(book.getTitle());
+        out.writeString(book.getAuthor());
+        out.writeString(book.getPublisher());
+        out.writeSignedVarint(book.getYear());
+        out.writeString(book.getStatus());
+    }
+
+    @Override
+    public BookDTO readBinary(BinaryInput in) throws IOException {
+        return new BookDTO(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readInt(), in.readString());
+    }
+}
@@ -0,0 +1,30 @@
+package codec;
+
+import java.io.IOException;
+
+/**
+ * Pattern : Strategy
+ * Pourquoi : Un codec écrit à la main par type de DTO. Chaque champ est lu par
+ * son getter et écrit directement dans le flux : pas de réflexion, pas de
+ * String.format, pas de document intermédiaire.
+ * Lien : https://refactoring.guru/fr/design-patterns/strategy
+ */
+public interface DtoCodec<T> {
+
+    void writeJson(T value, JsonOutput out) throws IOException;
+
+    void writeBinary(T value, BinaryOutput out) throws IOException;
+
+    T readBinary(BinaryInput in) throws IOException;
+
+    /**
+     * Écrit une liste sous forme de tableau JSON
+     */
+    default void writeJsonArray(Iterable<? extends T> values, JsonOutput out) throws IOException {
+        out.beginArray();
+        for (T value : values) {
+            writeJson(value, out);
+        }
+        out.endArray();
+    }
+}
@@ -0,0 +1,218 @@
+package codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Écriture JSON en flux directement dans un OutputStream (UTF-8)
+ *
+ * Pourquoi : Les exports de dizaines de millions d'enregistrements ne doivent
+ * ni passer par la réflexion ni créer une chaîne par champ. Les caractères et
+ * les nombres sont encodés directement dans un tampon d'octets réutilisé,
+ * vidé vers le flux quand il est plein.
+ */
+public class JsonOutput implements AutoCloseable {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final byte[] digits = new byte[20];
+    private int position;
+    private boolean needComma;
+
+    public JsonOutput(OutputStream out) {
+        this(out, 1 << 16);
+    }
+
+    public JsonOutput(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public JsonOutput beginObject() throws IOException {
+        separator();
+        writeByte('{');
+        needComma = false;
+        return this;
+    }
+
+    public JsonOutput endObject() throws IOException {
+        writeByte('}');
+        needComma = true;
+        return this;
+    }
+
+    public JsonOutput beginArray() throws IOException {
+        separator();
+        writeByte('[');
+        needComma = false;
+        return this;
+    }
+
+    public JsonOutput endArray() throws IOException {
+        writeByte(']');
+        needComma = true;
+        return this;
+    }
+
+    public JsonOutput name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        needComma = false;
+        return this;
+    }
+
+    public JsonOutput value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+        needComma = true;
+        return this;
+    }
+
+    public JsonOutput value(long value) throws IOException {
+        separator();
+        writeLong(value);
+        needComma = true;
+        return this;
+    }
+
+    public JsonOutput value(boolean value) throws IOException {
+        separator();
+        writeBytes(value ? TRUE : FALSE);
+        needComma = true;
+        return this;
+    }
+
+    /**
+     * Saut de ligne entre deux documents (format JSON Lines)
+     */
+    public JsonOutput newLine() throws IOException {
+        writeByte('\n');
+        needComma = false;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    // ==================== ENCODAGE ====================
+
+    private void separator() throws IOException {
+        if (needComma) {
+            writeByte(',');
+            needComma = false;
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensure(count);
+        while (count > 0) {
+            buffer[position++] = digits[--count];
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                writeByte(c);
+            } else if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c < 0x20) {
+                writeEscapedControl(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?'); // Surrogate isolé : même remplacement que BinaryOutput et String.getBytes
+            } else {
+                ensure(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscapedControl(char c) throws IOException {
+        switch (c) {
+            case '\n' -> writeAscii("\\n");
+            case '\r' -> writeAscii("\\r");
+            case '\t' -> writeAscii("\\t");
+            default -> {
+                writeAscii("\\u00");
+                writeByte(HEX[c >> 4]);
+                writeByte(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    private void writeAscii(String ascii) throws IOException {
+        ensure(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer[position++] = (byte) ascii.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package codec;
+
+import dto.LoanDTO;
+
+import java.io.IOException;
+
+/**
+ * Codec de LoanDTO
+ *
+ * Les dates sont déjà des chaînes dans le DTO : la table des chaînes du format
+ * binaire les ramène à une référence courte dès leur deuxième occurrence.
+ */
+public final class LoanCodec implements DtoCodec<LoanDTO> {
+
+    public static final LoanCodec INSTANCE = new LoanCodec();
+
+    private LoanCodec() {
+    }
+
+    @Override
+    public void writeJson(LoanDTO loan, JsonOutput out) throws IOException {
+        out.beginObject()
+                .name("loanId").value(loan.getLoanId())
+                .name("userName").value(loan.getUserName())
+                .name("bookTitle").value(loan.getBookTitle())
+                .name("loanDate").value(loan.getLoanDate())
+                .name("dueDate").value(loan.getDueDate())
+                .name("returnDate").value(loan.getReturnDate())
+                .name("status").value(loan.getStatus())
+                .endObject();
+    }
+
+    @Override
+    public void writeBinary(LoanDTO loan, BinaryOutput out) throws IOException {
+        out.writeString(loan.getLoanId());
+        out.writeString(loan.getUserName());
+        out.writeString(loan.getBookTitle());
+        out.writeString(loan.getLoanDate());
+        out.writeString(loan.getDueDate());
+        out.writeString(loan.getReturnDate());
+        out.writeString(loan.getStatus());
+    }
+
+    @Override
+    public LoanDTO readBinary(BinaryInput in) throws IOException {
+        return new LoanDTO(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString(), in.readString(), in.readString());
+    }
+}
@@ -0,0 +1,37 @@
+package codec;
+
+import dto.UserDTO;
+
+import java.io.IOException;
+
+/**
+ * Codec de UserDTO
+ */
+public final class UserCodec implements DtoCodec<UserDTO> {
+
+    public static final UserCodec INSTANCE = new UserCodec();
+
+    private UserCodec() {
+    }
+
+    @Override
+    public void writeJson(UserDTO user, JsonOutput out) throws IOException {
+        out.beginObject()
+                .name("userId").value(user.getUserId())
+                .name("fullName").value(user.getFullName())
+                .name("email").value(user.getEmail())
+                .endObject();
+    }
+
+    @Override
+    public void writeBinary(UserDTO user, BinaryOutput out) throws IOException {
+        out.writeString(user.getUserId());
+        out.writeString(user.getFullName());
+        out.writeString(user.getEmail());
+    }
+
+    @Override
+    public UserDTO readBinary(BinaryInput in) throws IOException {
+        return new UserDTO(in.readString(), in.readString(), in.readString());
+    }
+}
@@ -0,0 +1,31 @@
+package dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Pattern : DTO (Data Transfer Object)
+ * Résultat d'une navigation filtrée : une page de livres, le nombre total de
+ * livres correspondants et les compteurs par année et par éditeur.
+ */
+public class BrowseResultDTO {
+    private final List<BookDTO> books;
+    private final int total;
+    private final SortedMap<Integer, Integer> yearCounts;
+    private final Map<String, Integer> publisherCounts;
+
+    public BrowseResultDTO(List<BookDTO> books, int total, SortedMap<Integer, Integer> yearCounts,
+                           Map<String, Integer> publisherCounts) {
+        this.books = books;
+        this.total = total;
+        this.yearCounts = yearCounts;
+        this.publisherCounts = publisherCounts;
+    }
+
+    // Getters uniquement (un DTO est immuable)
+    public List<BookDTO> getBooks() { return books; }
+    public int getTotal() { return total; }
+    public SortedMap<Integer, Integer> getYearCounts() { return yearCounts; }
+    public Map<String, Integer> getPublisherCounts() { return publisherCounts; }
+}
@@ -0,0 +1,31 @@
+package export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Tampon d'un bloc d'export, réutilisable et lisible sans copie (écriture NIO)
+ */
+final class ChunkBuffer extends ByteArrayOutputStream {
+
+    ChunkBuffer(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Vue sur le contenu, sans copie (valide jusqu'à la prochaine écriture)
+     */
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * Vide le tampon ; rend la mémoire si un bloc exceptionnel l'a fait grossir
+     */
+    void recycle(int maxRetained) {
+        reset();
+        if (buf.length > maxRetained) {
+            buf = new byte[maxRetained];
+        }
+    }
+}
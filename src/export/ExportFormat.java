@@ -0,0 +1,214 @@
+package export;
+
+import codec.BinaryInput;
+import codec.BinaryOutput;
+import model.Loan;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Formats d'export de l'historique des emprunts
+ *
+ * Un export est une suite de blocs encodés indépendamment (en parallèle) puis
+ * mis bout à bout : le format doit donc pouvoir se concaténer.
+ *   - CSV : lignes "loan_id,user_id,isbn,loan_date,due_date,return_date", en-tête
+ *     dans le premier bloc seulement ; dates ISO, retour vide si en cours.
+ *   - BINARY : par bloc, sa longueur (4 octets) puis un flux codec.BinaryOutput
+ *     (identifiants dédupliqués par bloc, dates en jours depuis 1970).
+ */
+public enum ExportFormat {
+
+    CSV("csv") {
+        @Override
+        void encode(List<Loan> loans, int from, int to, boolean first, OutputStream out) throws IOException {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            if (first) {
+                writer.write(HEADER);
+                writer.write('\n');
+            }
+            StringBuilder line = new StringBuilder(96);
+            for (int i = from; i < to; i++) {
+                Loan loan = loans.get(i);
+                line.setLength(0);
+                field(line, loan.getLoanId()).append(',');
+                field(line, loan.getUserId()).append(',');
+                field(line, loan.getIsbn()).append(',');
+                line.append(loan.getLoanDate()).append(',').append(loan.getDueDate()).append(',');
+                if (loan.getReturnDate() != null) {
+                    line.append(loan.getReturnDate());
+                }
+                line.append('\n');
+                writer.append(line);
+            }
+            writer.flush();
+        }
+
+        @Override
+        long read(InputStream in, Consumer<Loan> sink) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            String line = reader.readLine();
+            if (line == null) {
+                return 0;
+            }
+            if (!line.equals(HEADER)) {
+                throw new IOException("En-tête CSV inattendu : " + line);
+            }
+            long count = 0;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = parseLine(line);
+                if (fields.size() != 6) {
+                    throw new IOException("Ligne CSV invalide : " + line);
+                }
+                Loan loan = new Loan(fields.get(0), fields.get(1), fields.get(2), LocalDate.parse(fields.get(3)),
+                        LocalDate.parse(fields.get(4)));
+                if (!fields.get(5).isEmpty()) {
+                    loan.setReturnDate(LocalDate.parse(fields.get(5)));
+                }
+                sink.accept(loan);
+                count++;
+            }
+            return count;
+        }
+    },
+
+    BINARY("bin") {
+        @Override
+        void encode(List<Loan> loans, int from, int to, boolean first, OutputStream out) throws IOException {
+            // Longueur inconnue avant l'encodage : encodé à part, puis préfixé
+            ChunkBuffer block = new ChunkBuffer(Math.max(64, (to - from) * 24));
+            try (BinaryOutput binary = new BinaryOutput(block)) {
+                for (int i = from; i < to; i++) {
+                    Loan loan = loans.get(i);
+                    binary.writeString(loan.getLoanId());
+                    binary.writeString(loan.getUserId());
+                    binary.writeString(loan.getIsbn());
+                    binary.writeSignedVarint(loan.getLoanDate().toEpochDay());
+                    binary.writeSignedVarint(loan.getDueDate().toEpochDay());
+                    binary.writeBoolean(loan.getReturnDate() != null);
+                    if (loan.getReturnDate() != null) {
+                        binary.writeSignedVarint(loan.getReturnDate().toEpochDay());
+                    }
+                }
+            }
+            new DataOutputStream(out).writeInt(block.size());
+            block.writeTo(out);
+        }
+
+        @Override
+        long read(InputStream in, Consumer<Loan> sink) throws IOException {
+            DataInputStream data = new DataInputStream(in);
+            long count = 0;
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                byte[] block = data.readNBytes(length);
+                if (block.length != length) {
+                    throw new EOFException("Bloc tronqué : " + block.length + " octets sur " + length);
+                }
+                try (BinaryInput binary = new BinaryInput(new ByteArrayInputStream(block))) {
+                    while (binary.hasMore()) {
+                        Loan loan = new Loan(binary.readString(), binary.readString(), binary.readString(),
+                                LocalDate.ofEpochDay(binary.readSignedVarint()),
+                                LocalDate.ofEpochDay(binary.readSignedVarint()));
+                        if (binary.readBoolean()) {
+                            loan.setReturnDate(LocalDate.ofEpochDay(binary.readSignedVarint()));
+                        }
+                        sink.accept(loan);
+                        count++;
+                    }
+                }
+            }
+        }
+    };
+
+    static final String HEADER = "loan_id,user_id,isbn,loan_date,due_date,return_date";
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Extension du fichier compressé (loans.csv.gz, loans.bin.gz)
+     */
+    public String getExtension() {
+        return extension + ".gz";
+    }
+
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name) || format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Format d'export inconnu : " + name + " (csv ou bin)");
+    }
+
+    /**
+     * Encode les emprunts [from, to) ; first : premier bloc de l'export
+     */
+    abstract void encode(List<Loan> loans, int from, int to, boolean first, OutputStream out) throws IOException;
+
+    /**
+     * Relit un export décompressé ; renvoie le nombre d'emprunts lus
+     */
+    abstract long read(InputStream in, Consumer<Loan> sink) throws IOException;
+
+    /**
+     * Découpe une ligne CSV (champs entre guillemets, "" pour un guillemet)
+     */
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static StringBuilder field(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
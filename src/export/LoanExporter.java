@@ -0,0 +1,306 @@
+package export;
+
+import metrics.Counter;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import model.Loan;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export de l'historique complet des emprunts dans un fichier compressé
+ *
+ * Pattern : Builder (réglages : format, threads, taille des blocs, mémoire en vol)
+ * Pourquoi : getAllLoans() construit un LoanDTO par emprunt (deux recherches et un
+ * DateTimeFormatter chacun) et garde toute la liste en mémoire. Ici la photographie
+ * des emprunts est découpée en blocs ; chaque bloc est encodé (CSV ou binaire) et
+ * compressé en gzip par un thread de travail, puis écrit dans l'ordre via un
+ * FileChannel. Les blocs compressés sont des membres gzip mis bout à bout : le
+ * fichier se lit avec gunzip ou GZIPInputStream comme un seul flux. Au plus
+ * maxInFlight blocs compressés attendent leur écriture : la mémoire utilisée ne
+ * dépend pas du nombre d'emprunts. Le fichier est écrit à côté (.part) puis
+ * renommé : un export interrompu ne laisse pas de fichier tronqué.
+ * Lien : https://refactoring.guru/fr/design-patterns/builder
+ */
+public final class LoanExporter {
+
+    private static final LatencyTimer EXPORT_TIMER = MetricsRegistry.getInstance().timer("loan.export");
+    private static final Counter EXPORTED = MetricsRegistry.getInstance().counter("loan.exported");
+
+    private final ExportFormat format;
+    private final int threads;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final int compressionLevel;
+
+    private LoanExporter(Builder builder) {
+        this.format = builder.format;
+        this.threads = builder.threads;
+        this.chunkSize = builder.chunkSize;
+        this.maxInFlight = builder.maxInFlight > 0 ? builder.maxInFlight : builder.threads * 2;
+        this.compressionLevel = builder.compressionLevel;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Exporte loans (une photographie : elle ne doit pas changer pendant l'export)
+     */
+    public Result export(List<Loan> loans, Path target) throws IOException {
+        long start = System.nanoTime();
+        int chunkCount = Math.max(1, (loans.size() + chunkSize - 1) / chunkSize);  // Au moins l'en-tête CSV
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        AtomicInteger workerNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "loan-export-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Tampon d'encodage (non compressé) propre à chaque thread, réutilisé d'un bloc à l'autre
+        int retained = Math.max(1 << 16, chunkSize * 64);
+        ThreadLocal<ChunkBuffer> encodeBuffers = ThreadLocal.withInitial(() -> new ChunkBuffer(retained));
+
+        long rawBytes = 0;
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                if (inFlight.size() == maxInFlight) {
+                    Chunk done = await(inFlight.removeFirst());
+                    rawBytes += done.rawBytes;
+                    written += write(channel, done.compressed);
+                }
+                int from = chunk * chunkSize;
+                int to = Math.min(loans.size(), from + chunkSize);
+                boolean first = chunk == 0;
+                inFlight.addLast(workers.submit(() -> compress(loans, from, to, first, encodeBuffers.get())));
+            }
+            while (!inFlight.isEmpty()) {
+                Chunk done = await(inFlight.removeFirst());
+                rawBytes += done.rawBytes;
+                written += write(channel, done.compressed);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        EXPORT_TIMER.recordSince(start);
+        EXPORTED.add(loans.size());
+        return new Result(loans.size(), chunkCount, rawBytes, written, System.nanoTime() - start);
+    }
+
+    /**
+     * Encode puis compresse un bloc (un membre gzip complet)
+     */
+    private Chunk compress(List<Loan> loans, int from, int to, boolean first, ChunkBuffer encoded) throws IOException {
+        encoded.recycle(Math.max(1 << 16, chunkSize * 64));
+        format.encode(loans, from, to, first, encoded);
+        ChunkBuffer compressed = new ChunkBuffer(Math.max(64, encoded.size() / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 1 << 16) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        }) {
+            encoded.writeTo(gzip);
+        }
+        return new Chunk(encoded.size(), compressed);
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Échec de l'encodage d'un bloc", e.getCause());
+        }
+    }
+
+    private static long write(FileChannel channel, ChunkBuffer chunk) throws IOException {
+        ByteBuffer buffer = chunk.asByteBuffer();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written;
+    }
+
+    /**
+     * Relit un export (tous ses blocs) ; renvoie le nombre d'emprunts lus
+     */
+    public static long read(Path source, ExportFormat format, Consumer<Loan> sink) throws IOException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(source), 1 << 16),
+                1 << 16)) {
+            return format.read(in, sink);
+        }
+    }
+
+    private record Chunk(long rawBytes, ChunkBuffer compressed) {
+    }
+
+    /**
+     * Bilan d'un export
+     */
+    public record Result(long loans, int chunks, long rawBytes, long compressedBytes, long nanos) {
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%,d emprunts, %d blocs, %,.1f Mo → %,.1f Mo compressés (%.1f %%), "
+                            + "%.2f s (%,.0f emprunts/s)", loans, chunks, rawBytes / 1e6, compressedBytes / 1e6,
+                    rawBytes == 0 ? 0.0 : compressedBytes * 100.0 / rawBytes, seconds,
+                    seconds == 0 ? 0.0 : loans / seconds);
+        }
+    }
+
+    public static class Builder {
+        private ExportFormat format = ExportFormat.CSV;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int chunkSize = 65_536;
+        private int maxInFlight;  // 0 : deux blocs par thread
+        private int compressionLevel = Deflater.BEST_SPEED;
+
+        public Builder format(ExportFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Il faut au moins un thread d'export");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Emprunts par bloc (un membre gzip par bloc)
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Taille de bloc invalide : " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Nombre maximal de blocs compressés en attente d'écriture
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Il faut au moins un bloc en vol");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Niveau gzip, de 1 (rapide, par défaut) à 9 (plus compact)
+         */
+        public Builder compressionLevel(int level) {
+            if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("Niveau de compression invalide : " + level);
+            }
+            this.compressionLevel = level;
+            return this;
+        }
+
+        public LoanExporter build() {
+            return new LoanExporter(this);
+        }
+    }
+
+    /**
+     * Mesure sur un historique synthétique : débit, taille, pic de mémoire, relecture
+     *
+     * Usage : java -Xmx… -cp out export.LoanExporter <fichier> [emprunts] [csv|bin] [threads]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage : java export.LoanExporter <fichier> [emprunts] [csv|bin] [threads]");
+            return;
+        }
+        Path target = Path.of(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        ExportFormat format = args.length > 2 ? ExportFormat.fromName(args[2]) : ExportFormat.CSV;
+        Builder builder = new Builder().format(format);
+        if (args.length > 3) {
+            builder.threads(Integer.parseInt(args[3]));
+        }
+
+        List<Loan> loans = new ArrayList<>(count);
+        LocalDate origin = LocalDate.of(2015, 1, 1);
+        for (int i = 0; i < count; i++) {
+            LocalDate loanDate = origin.plusDays(i % 3650);
+            Loan loan = new Loan("L" + i, "U" + (i % 50_000), String.format("978-%09d", i % 200_000),
+                    loanDate, loanDate.plusDays(14));
+            if (i % 10 != 0) {
+                loan.setReturnDate(loanDate.plusDays(1 + i % 20));
+            }
+            loans.add(loan);
+        }
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        long before = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        Result result = builder.build().export(loans, target);
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.println("Export " + format + " : " + result);
+        System.out.printf("Tas : %,.0f Mo avant l'export, pic %,.0f Mo pendant%n", before / 1e6, peak / 1e6);
+
+        long start = System.nanoTime();
+        long[] returned = new long[1];
+        long read = read(target, format, loan -> {
+            if (loan.isReturned()) {
+                returned[0]++;
+            }
+        });
+        if (read != count) {
+            throw new UncheckedIOException(new IOException("Relecture : " + read + " emprunts au lieu de " + count));
+        }
+        System.out.printf("Relecture : %,d emprunts (%,d rendus) en %.2f s%n", read, returned[0],
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,134 @@
+package metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pattern : Strategy (implémentation concrète)
+ * Expose les métriques comme attributs d'un MBean (visible dans JConsole / VisualVM).
+ * Les attributs sont lus à la demande : rien n'est calculé tant que personne ne regarde.
+ */
+public class JmxMetricsExporter implements MetricsExporter {
+
+    private static final String OBJECT_NAME = "biblio:type=Metrics";
+
+    private ObjectName objectName;
+
+    @Override
+    public void start(MetricsRegistry registry) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new MetricsMBean(registry), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Impossible d'enregistrer le MBean des métriques", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (objectName != null && server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // Rien à libérer si le MBean a déjà disparu
+        }
+    }
+
+    /**
+     * MBean dynamique : un attribut par compteur, et count/p50/p99/max par chronomètre
+     */
+    private static class MetricsMBean implements DynamicMBean {
+
+        private final MetricsRegistry registry;
+
+        MetricsMBean(MetricsRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (Counter counter : registry.getCounters()) {
+                if (counter.getName().equals(attribute)) {
+                    return counter.get();
+                }
+            }
+            int dot = attribute.lastIndexOf('.');
+            if (dot > 0) {
+                String timerName = attribute.substring(0, dot);
+                String stat = attribute.substring(dot + 1);
+                for (LatencyTimer timer : registry.getTimers()) {
+                    if (timer.getName().equals(timerName)) {
+                        switch (stat) {
+                            case "count": return timer.getCount();
+                            case "p50Nanos": return timer.getPercentileNanos(50);
+                            case "p99Nanos": return timer.getPercentileNanos(99);
+                            case "maxNanos": return timer.getMaxNanos();
+                            default: break;
+                        }
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Attribut ignoré (métrique supprimée entre-temps)
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Counter counter : registry.getCounters()) {
+                attributes.add(new MBeanAttributeInfo(counter.getName(), "long", "Compteur", true, false, false));
+            }
+            for (LatencyTimer timer : registry.getTimers()) {
+                for (String stat : new String[]{"count", "p50Nanos", "p99Nanos", "maxNanos"}) {
+                    attributes.add(new MBeanAttributeInfo(timer.getName() + "." + stat, "long",
+                            "Chronomètre", true, false, false));
+                }
+            }
+            return new MBeanInfo(getClass().getName(), "Métriques de la bibliothèque",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Métriques en lecture seule");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Aucune opération disponible");
+        }
+    }
+}
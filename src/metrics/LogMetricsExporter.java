@@ -0,0 +1,54 @@
+package metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pattern : Strategy (implémentation concrète)
+ * Écrit périodiquement une ligne par métrique sur la sortie d'erreur
+ */
+public class LogMetricsExporter implements MetricsExporter {
+
+    private final long periodSeconds;
+    private ScheduledExecutorService scheduler;
+    private MetricsRegistry registry;
+
+    public LogMetricsExporter(long periodSeconds) {
+        this.periodSeconds = periodSeconds;
+    }
+
+    @Override
+    public void start(MetricsRegistry registry) {
+        this.registry = registry;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::log, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            log(); // Dernier relevé à l'arrêt
+        }
+    }
+
+    private void log() {
+        StringBuilder line = new StringBuilder("[metrics]");
+        for (LatencyTimer timer : registry.getTimers()) {
+            line.append(String.format(" %s{n=%d p50=%.1fµs p99=%.1fµs max=%.1fµs}",
+                    timer.getName(), timer.getCount(),
+                    timer.getPercentile(50, TimeUnit.MICROSECONDS),
+                    timer.getPercentile(99, TimeUnit.MICROSECONDS),
+                    timer.getMaxNanos() / 1000.0));
+        }
+        for (Counter counter : registry.getCounters()) {
+            line.append(' ').append(counter.getName()).append('=').append(counter.get());
+        }
+        System.err.println(line);
+    }
+}
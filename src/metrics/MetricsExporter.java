@@ -0,0 +1,19 @@
+package metrics;
+
+/**
+ * Pattern : Strategy
+ * Pourquoi : Les métriques peuvent être publiées de plusieurs façons (journal,
+ * JMX, endpoint Prometheus) sans que le code instrumenté ne change.
+ */
+public interface MetricsExporter {
+
+    /**
+     * Démarre la publication des métriques du registre
+     */
+    void start(MetricsRegistry registry);
+
+    /**
+     * Arrête la publication (libère thread, port ou MBean)
+     */
+    void stop();
+}
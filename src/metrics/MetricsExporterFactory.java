@@ -0,0 +1,29 @@
+package metrics;
+
+/**
+ * Pattern : Factory Method
+ * Crée l'exporteur de métriques demandé ("log", "jmx" ou "prometheus")
+ */
+public class MetricsExporterFactory {
+
+    private static final int DEFAULT_PROMETHEUS_PORT = 9404;
+    private static final long DEFAULT_LOG_PERIOD_SECONDS = 60;
+
+    public static MetricsExporter create(String type) {
+        if (type == null || type.trim().isEmpty()) {
+            throw new IllegalArgumentException("Le type d'exporteur ne peut pas être vide");
+        }
+
+        return switch (type.trim().toLowerCase()) {
+            case "log" -> new LogMetricsExporter(
+                    Long.getLong("biblio.metrics.logPeriod", DEFAULT_LOG_PERIOD_SECONDS));
+            case "jmx" -> new JmxMetricsExporter();
+            case "prometheus" -> new PrometheusMetricsExporter(
+                    Integer.getInteger("biblio.metrics.port", DEFAULT_PROMETHEUS_PORT));
+            default -> throw new IllegalArgumentException(
+                    "Type d'exporteur inconnu : " + type +
+                            ". Types disponibles : 'log', 'jmx', 'prometheus'"
+            );
+        };
+    }
+}
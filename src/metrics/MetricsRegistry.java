@@ -0,0 +1,49 @@
+package metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pattern : Singleton
+ * Pourquoi : Registre unique de tous les chronomètres et compteurs de l'application.
+ * Les classes instrumentées récupèrent leurs métriques une seule fois (champs
+ * static final) : le chemin critique ne fait jamais de recherche par nom.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, LatencyTimer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Récupère (ou crée) le chronomètre portant ce nom
+     */
+    public LatencyTimer timer(String name) {
+        return timers.computeIfAbsent(name, LatencyTimer::new);
+    }
+
+    /**
+     * Récupère (ou crée) le compteur portant ce nom
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public Collection<LatencyTimer> getTimers() {
+        return Collections.unmodifiableCollection(timers.values());
+    }
+
+    public Collection<Counter> getCounters() {
+        return Collections.unmodifiableCollection(counters.values());
+    }
+}
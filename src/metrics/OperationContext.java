@@ -0,0 +1,41 @@
+package metrics;
+
+/**
+ * Opération de service en cours sur le thread courant (ex : "loan.create")
+ *
+ * Pourquoi : Permet au journal des requêtes lentes d'indiquer quelle opération
+ * métier a déclenché une requête. Seule l'opération la plus externe est retenue :
+ * les appels imbriqués (createLoan → NotificationService.onLoanEvent) gardent l'appelant d'origine.
+ */
+public final class OperationContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private OperationContext() {
+    }
+
+    /**
+     * Entre dans une opération ; renvoie l'opération précédente à passer à exit()
+     */
+    public static String enter(String operation) {
+        String previous = CURRENT.get();
+        if (previous == null) {
+            CURRENT.set(operation);
+        }
+        return previous;
+    }
+
+    public static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Opération en cours, ou "(hors service)" si la requête vient d'ailleurs
+     */
+    public static String current() {
+        String operation = CURRENT.get();
+        return operation != null ? operation : "(hors service)";
+    }
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pattern : Strategy (implémentation concrète)
+ * Endpoint HTTP local /metrics au format texte Prometheus
+ * Lien : https://prometheus.io/docs/instrumenting/exposition_formats/
+ */
+public class PrometheusMetricsExporter implements MetricsExporter {
+
+    private final int port;
+    private HttpServer server;
+
+    public PrometheusMetricsExporter(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void start(MetricsRegistry registry) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le port des métriques : " + port, e);
+        }
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render(registry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    static String render(MetricsRegistry registry) {
+        StringBuilder out = new StringBuilder();
+        for (Counter counter : registry.getCounters()) {
+            String name = sanitize(counter.getName()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.get()).append('\n');
+        }
+        for (LatencyTimer timer : registry.getTimers()) {
+            String name = sanitize(timer.getName()) + "_seconds";
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (String quantile : new String[]{"0.5", "0.9", "0.99", "0.999"}) {
+                double percentile = Double.parseDouble(quantile) * 100;
+                out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(timer.getPercentileNanos(percentile) / 1e9).append('\n');
+            }
+            out.append(name).append("_count ").append(timer.getCount()).append('\n');
+            out.append(name).append("_sum ").append(timer.getTotalNanos() / 1e9).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String sanitize(String name) {
+        return "biblio_" + name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+}
@@ -0,0 +1,85 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pattern : Singleton
+ * Profilage des requêtes des repositories et journal des requêtes lentes.
+ *
+ * Pourquoi : Une requête qui parcourt des millions de lignes pour en renvoyer
+ * trois révèle un index manquant. Le rapport trie les méthodes par lignes
+ * examinées ; le journal signale chaque requête au-delà des seuils.
+ *
+ * Configuration : -Dbiblio.queryStats=false pour désactiver (aucune mesure de temps
+ * alors), -Dbiblio.slowQueryLog=true pour activer le journal des requêtes lentes
+ * (sur System.err), -Dbiblio.slowQueryMillis (défaut 100) et -Dbiblio.slowQueryRows
+ * (défaut 100000).
+ */
+public class QueryProfiler {
+
+    private static final QueryProfiler INSTANCE = new QueryProfiler();
+
+    private final ConcurrentMap<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+    private volatile boolean slowQueryLog;
+    private volatile long slowQueryNanos;
+    private volatile long slowQueryRows;
+
+    private QueryProfiler() {
+        this.enabled = Boolean.parseBoolean(System.getProperty("biblio.queryStats", "true"));
+        this.slowQueryLog = Boolean.getBoolean("biblio.slowQueryLog");
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("biblio.slowQueryMillis", 100));
+        this.slowQueryRows = Long.getLong("biblio.slowQueryRows", 100_000);
+    }
+
+    public static QueryProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Statistiques d'une méthode (à conserver dans un champ static final)
+     */
+    public QueryStats stats(String method) {
+        return stats.computeIfAbsent(method, m -> new QueryStats(m, MetricsRegistry.getInstance(), this));
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isSlowQueryLogEnabled() { return slowQueryLog; }
+    public void setSlowQueryLogEnabled(boolean slowQueryLog) { this.slowQueryLog = slowQueryLog; }
+
+    public void setSlowQueryThreshold(long millis, long rows) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        this.slowQueryRows = rows;
+    }
+
+    void checkSlow(QueryStats query, long nanos, long examined, long returned) {
+        if (slowQueryLog && (nanos >= slowQueryNanos || examined >= slowQueryRows)) {
+            System.err.printf("[slow-query] %s depuis %s : %d lignes examinées, %d renvoyées, %.3f ms%n",
+                    query.getMethod(), OperationContext.current(), examined, returned, nanos / 1e6);
+        }
+    }
+
+    /**
+     * Rapport agrégé par méthode, trié par nombre de lignes examinées
+     */
+    public String report() {
+        List<QueryStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort((a, b) -> Long.compare(b.getRowsExamined(), a.getRowsExamined()));
+
+        StringBuilder out = new StringBuilder(String.format("%-40s %10s %14s %12s %10s %10s%n",
+                "Requête", "Appels", "Examinées", "Renvoyées", "p50 (µs)", "p99 (µs)"));
+        for (QueryStats query : sorted) {
+            out.append(String.format("%-40s %10d %14d %12d %10.1f %10.1f%n",
+                    query.getMethod(), query.getCalls(), query.getRowsExamined(), query.getRowsReturned(),
+                    query.getTimer().getPercentile(50, TimeUnit.MICROSECONDS),
+                    query.getTimer().getPercentile(99, TimeUnit.MICROSECONDS)));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+/**
+ * Statistiques cumulées d'une méthode de requête d'un repository
+ * (appels, lignes examinées, lignes renvoyées, temps)
+ */
+public class QueryStats {
+
+    private final String method;
+    private final LatencyTimer timer;
+    private final Counter rowsExamined;
+    private final Counter rowsReturned;
+    private final QueryProfiler profiler;
+
+    QueryStats(String method, MetricsRegistry registry, QueryProfiler profiler) {
+        this.method = method;
+        this.timer = registry.timer("query." + method);
+        this.rowsExamined = registry.counter("query." + method + ".rowsExamined");
+        this.rowsReturned = registry.counter("query." + method + ".rowsReturned");
+        this.profiler = profiler;
+    }
+
+    /**
+     * Début d'une exécution : System.nanoTime(), ou 0 si le profilage est désactivé
+     * (aucune lecture d'horloge sur le chemin des requêtes)
+     */
+    public long start() {
+        return profiler.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Enregistre une exécution de la requête (startNanos = valeur renvoyée par start())
+     */
+    public void record(long startNanos, long examined, long returned) {
+        if (startNanos == 0L || !profiler.isEnabled()) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        timer.record(nanos);
+        rowsExamined.add(examined);
+        rowsReturned.add(returned);
+        profiler.checkSlow(this, nanos, examined, returned);
+    }
+
+    public String getMethod() { return method; }
+    public long getCalls() { return timer.getCount(); }
+    public long getRowsExamined() { return rowsExamined.get(); }
+    public long getRowsReturned() { return rowsReturned.get(); }
+    public LatencyTimer getTimer() { return timer; }
+}
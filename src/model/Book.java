@@ -1,5 +1,7 @@
 package model;
 
+import util.StringDictionary;
+
 /**
  * Entité représentant un livre dans la bibliothèque
  *
@@ -17,11 +19,12 @@ public class Book {
     private boolean available;
 
     // Constructeur privé : on force l'utilisation du Builder
+    // ISBN, auteur et éditeur se répètent (emprunts, catalogue) : instances canoniques partagées
     private Book(Builder builder) {
-        this.isbn = builder.isbn;
+        this.isbn = StringDictionary.intern(builder.isbn);
         this.title = builder.title;
-        this.author = builder.author;
-        this.publisher = builder.publisher;
+        this.author = StringDictionary.intern(builder.author);
+        this.publisher = StringDictionary.intern(builder.publisher);
         this.year = builder.year;
         this.available = builder.available;
     }
@@ -59,6 +62,22 @@ public class Book {
         private int year = 0;
         private boolean available = true; // Par défaut, un livre ajouté est disponible
 
+        public Builder() {
+        }
+
+        /**
+         * Builder pré-rempli avec un livre existant : pour en publier une version
+         * modifiée sans toucher à l'original (que des lecteurs peuvent être en train de lire)
+         */
+        public Builder(Book book) {
+            this.isbn = book.isbn;
+            this.title = book.title;
+            this.author = book.author;
+            this.publisher = book.publisher;
+            this.year = book.year;
+            this.available = book.available;
+        }
+
         public Builder isbn(String isbn) {
             this.isbn = isbn;
             return this;
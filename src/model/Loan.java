@@ -1,5 +1,8 @@
 package model;
 
+import util.LibraryClock;
+import util.StringDictionary;
+
 import java.time.LocalDate;
 
 /**
@@ -15,13 +18,27 @@ public class Loan {
 
     public Loan(String loanId, String userId, String isbn, LocalDate loanDate, LocalDate dueDate) {
         this.loanId = loanId;
-        this.userId = userId;
-        this.isbn = isbn;
+        // Clés étrangères : même instance que dans le User et le Book (StringDictionary)
+        this.userId = StringDictionary.intern(userId);
+        this.isbn = StringDictionary.intern(isbn);
         this.loanDate = loanDate;
         this.dueDate = dueDate;
         this.returnDate = null;
     }
 
+    /**
+     * Copie d'un emprunt : on modifie la copie puis on la publie (update),
+     * l'original reste intact pour les lecteurs d'une version précédente
+     */
+    public Loan(Loan other) {
+        this.loanId = other.loanId;
+        this.userId = other.userId;
+        this.isbn = other.isbn;
+        this.loanDate = other.loanDate;
+        this.dueDate = other.dueDate;
+        this.returnDate = other.returnDate;
+    }
+
     // Getters
     public String getLoanId() { return loanId; }
     public String getUserId() { return userId; }
@@ -32,13 +49,14 @@ public class Loan {
 
     // Setters
     public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
 
     public boolean isReturned() {
         return returnDate != null;
     }
 
     public boolean isOverdue() {
-        return !isReturned() && LocalDate.now().isAfter(dueDate);
+        return !isReturned() && LibraryClock.getInstance().today().isAfter(dueDate);
     }
 
     @Override
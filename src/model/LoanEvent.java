@@ -0,0 +1,66 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Événement immuable du cycle de vie d'un emprunt (création, retour, prolongation, retard)
+ *
+ * Pourquoi : Le flux append-only de ces événements est la source de vérité de
+ * l'historique. Les vues (emprunts actifs, circulation...) sont recalculées
+ * incrémentalement à partir de ce flux au lieu de rescanner tous les emprunts.
+ */
+public class LoanEvent {
+
+    public enum Type { CREATED, RETURNED, RENEWED, OVERDUE }
+
+    private final long sequence;
+    private final Type type;
+    private final String loanId;
+    private final String userId;
+    private final String isbn;
+    private final LocalDate date;      // Date à laquelle l'événement s'est produit (constaté, pour OVERDUE)
+    private final LocalDate dueDate;   // Date de retour prévue après l'événement
+    private final LocalDate previousDueDate; // Pour RENEWED uniquement (sinon null)
+
+    public LoanEvent(long sequence, Type type, String loanId, String userId, String isbn,
+                     LocalDate date, LocalDate dueDate, LocalDate previousDueDate) {
+        this.sequence = sequence;
+        this.type = type;
+        this.loanId = loanId;
+        this.userId = userId;
+        this.isbn = isbn;
+        this.date = date;
+        this.dueDate = dueDate;
+        this.previousDueDate = previousDueDate;
+    }
+
+    // Getters uniquement (un événement ne change jamais)
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+    public String getLoanId() { return loanId; }
+    public String getUserId() { return userId; }
+    public String getIsbn() { return isbn; }
+    public LocalDate getDate() { return date; }
+    public LocalDate getDueDate() { return dueDate; }
+    public LocalDate getPreviousDueDate() { return previousDueDate; }
+
+    /**
+     * Copie numérotée : le numéro d'un événement de transaction est attribué au commit
+     */
+    public LoanEvent withSequence(long sequence) {
+        return new LoanEvent(sequence, type, loanId, userId, isbn, date, dueDate, previousDueDate);
+    }
+
+    @Override
+    public String toString() {
+        return "LoanEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", loanId='" + loanId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", isbn='" + isbn + '\'' +
+                ", date=" + date +
+                ", dueDate=" + dueDate +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package model;
 
+import util.StringDictionary;
+
 /**
  * Entité représentant un utilisateur de la bibliothèque
  */
@@ -12,7 +14,7 @@ public class User {
     private boolean isAdmin;
 
     public User(String userId, String firstName, String lastName, String email, String password, boolean isAdmin) {
-        this.userId = userId;
+        this.userId = StringDictionary.intern(userId); // Partagé avec les emprunts
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
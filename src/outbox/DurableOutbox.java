@@ -0,0 +1,323 @@
+package outbox;
+
+import metrics.Counter;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import model.LoanEvent;
+import transaction.Outbox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Boîte d'envoi durable : journal append-only sur disque + file d'attente en mémoire
+ *
+ * Pourquoi : Un événement accepté par append() est sur disque (fsync) avant que le
+ * commit de sa transaction ne rende la main ; il sera livré même si le canal de
+ * notification est en panne ou si le processus redémarre sur le même store.
+ *
+ * Clé de déduplication : époque du store + numéro de séquence de l'événement,
+ * unique par événement. Les identifiants d'emprunt (L001...) repartent de zéro à
+ * chaque store en mémoire : une clé bâtie sur eux ferait écarter la notification
+ * d'un nouvel emprunt au nom d'un ancien. Les entrées d'une autre époque (store
+ * précédent, dont les emprunts n'existent plus) sont écartées à l'ouverture.
+ *
+ * Format : suite d'enregistrements [longueur][CRC32][type][contenu].
+ *   ENQUEUE   : identifiant, clé de déduplication, événement
+ *   ACK       : identifiant et clé de l'événement livré
+ *   DELIVERED : clé déjà livrée (écrite par le compactage, pour la déduplication)
+ * À l'ouverture, le journal est relu (une fin tronquée par un arrêt brutal est
+ * ignorée), les événements non acquittés sont remis en file, puis le journal
+ * est compacté : il ne garde que les événements en attente et les clés livrées
+ * retenues. Le compactage est refait dès que le journal a doublé depuis le
+ * précédent (et dépasse COMPACT_MIN_BYTES) : sa taille reste bornée sans arrêt.
+ */
+public class DurableOutbox implements Outbox {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    private static final byte DELIVERED = 3;
+    private static final long NO_DATE = 0; // Les jours epoch sont décalés de 1 pour réserver 0
+    private static final int DELIVERED_KEYS = 1 << 16; // Clés livrées retenues pour la déduplication
+    private static final long COMPACT_MIN_BYTES = 4L << 20;
+
+    private static final Counter APPENDED = MetricsRegistry.getInstance().counter("outbox.appended");
+    private static final LatencyTimer APPEND_TIMER = MetricsRegistry.getInstance().timer("outbox.append");
+
+    private final Path path;
+    private final String storeEpoch;
+    private FileChannel channel;
+    private final Map<Long, Entry> pending = new LinkedHashMap<>(); // Enregistrés, pas encore acquittés
+    private final LinkedBlockingQueue<Entry> ready = new LinkedBlockingQueue<>();
+    private final Map<String, Boolean> deliveredKeys = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > DELIVERED_KEYS;
+        }
+    };
+    private long nextId = 1;
+    private long compactedBytes;  // Taille du journal après le dernier compactage
+
+    /**
+     * Ouvre (ou crée) le journal et remet en file les événements non livrés du store
+     *
+     * @param storeEpoch époque du store dont les événements sont enregistrés
+     *                   (voir TransactionManager.getStoreEpoch)
+     */
+    public DurableOutbox(Path path, String storeEpoch) throws IOException {
+        this.path = path;
+        this.storeEpoch = storeEpoch;
+        if (Files.exists(path)) {
+            replay();
+            fenceOtherEpochs();
+        }
+        compact();
+        ready.addAll(pending.values());
+    }
+
+    /**
+     * Clé de déduplication : un même événement n'est livré qu'une fois
+     */
+    public String dedupKey(LoanEvent event) {
+        return storeEpoch + ":" + event.getSequence();
+    }
+
+    @Override
+    public synchronized void append(List<LoanEvent> events) {
+        long start = System.nanoTime();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128 * events.size());
+            List<Entry> entries = new ArrayList<>(events.size());
+            for (LoanEvent event : events) {
+                Entry entry = new Entry(nextId++, dedupKey(event), event);
+                writeRecord(buffer, ENQUEUE, entry);
+                entries.add(entry);
+            }
+            write(buffer.toByteArray());
+            channel.force(false);
+            for (Entry entry : entries) {
+                pending.put(entry.id, entry);
+            }
+            ready.addAll(entries);
+            APPENDED.add(entries.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire dans la boîte d'envoi " + path, e);
+        } finally {
+            APPEND_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Prochain événement à livrer (null si aucun pendant le délai)
+     */
+    Entry poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return ready.poll(timeout, unit);
+    }
+
+    /**
+     * Remet un événement en file (nouvelle tentative)
+     */
+    void retry(Entry entry) {
+        ready.add(entry);
+    }
+
+    /**
+     * Vrai si un événement de même clé a déjà été livré (enregistré deux fois)
+     */
+    synchronized boolean isDelivered(Entry entry) {
+        return deliveredKeys.containsKey(entry.dedupKey);
+    }
+
+    /**
+     * Marque l'événement comme livré. Pas de fsync : après un arrêt brutal, un ACK
+     * perdu fait seulement relivrer l'événement (livraison « au moins une fois »).
+     */
+    synchronized void acknowledge(Entry entry) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+            writeRecord(buffer, ACK, entry);
+            write(buffer.toByteArray());
+            deliveredKeys.put(entry.dedupKey, Boolean.TRUE);
+            pending.remove(entry.id);
+            if (channel.size() > Math.max(COMPACT_MIN_BYTES, compactedBytes * 2)) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire dans la boîte d'envoi " + path, e);
+        }
+    }
+
+    /**
+     * Nombre d'événements enregistrés et pas encore livrés
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // ==================== FORMAT ====================
+
+    private void write(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream buffer, byte type, Entry entry) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(type);
+        out.writeLong(entry.id);
+        out.writeUTF(entry.dedupKey);
+        if (type == ENQUEUE) {
+            LoanEvent event = entry.event;
+            out.writeLong(event.getSequence());
+            out.writeByte(event.getType().ordinal());
+            out.writeUTF(event.getLoanId());
+            out.writeUTF(event.getUserId());
+            out.writeUTF(event.getIsbn());
+            writeDate(out, event.getDate());
+            writeDate(out, event.getDueDate());
+            writeDate(out, event.getPreviousDueDate());
+        }
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        DataOutputStream header = new DataOutputStream(buffer);
+        header.writeInt(bytes.length);
+        header.writeInt((int) crc.getValue());
+        header.write(bytes);
+    }
+
+    private void replay() throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= 8) {
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length <= 0 || length > in.remaining()) {
+                break; // Enregistrement tronqué (arrêt pendant l'écriture)
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            crc.reset();
+            crc.update(bytes);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte type = record.readByte();
+            long id = record.readLong();
+            String key = record.readUTF();
+            nextId = Math.max(nextId, id + 1);
+            if (type == ENQUEUE) {
+                LoanEvent event = new LoanEvent(record.readLong(), LoanEvent.Type.values()[record.readByte()],
+                        record.readUTF(), record.readUTF(), record.readUTF(),
+                        readDate(record), readDate(record), readDate(record));
+                pending.put(id, new Entry(id, key, event));
+            } else if (type == ACK) {
+                pending.remove(id);
+                deliveredKeys.put(key, Boolean.TRUE);
+            } else if (type == DELIVERED) {
+                deliveredKeys.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Écarte les événements et clés livrées d'un store précédent
+     */
+    private void fenceOtherEpochs() {
+        String prefix = storeEpoch + ":";
+        int fenced = 0;
+        for (var iterator = pending.values().iterator(); iterator.hasNext(); ) {
+            if (!iterator.next().dedupKey.startsWith(prefix)) {
+                iterator.remove();
+                fenced++;
+            }
+        }
+        deliveredKeys.keySet().removeIf(key -> !key.startsWith(prefix));
+        if (fenced > 0) {
+            System.err.println("[outbox] " + fenced + " événement(s) d'un store précédent écarté(s) de " + path);
+        }
+    }
+
+    /**
+     * Réécrit le journal avec les clés livrées retenues et les événements en attente
+     * (fichier temporaire + renommage), puis y reprend l'écriture
+     */
+    private void compact() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (String key : deliveredKeys.keySet()) {
+            writeRecord(buffer, DELIVERED, new Entry(0, key, null));
+        }
+        for (Entry entry : pending.values()) {
+            writeRecord(buffer, ENQUEUE, entry);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        compactedBytes = channel.size();
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay() + 1);
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long value = in.readLong();
+        return value == NO_DATE ? null : LocalDate.ofEpochDay(value - 1);
+    }
+
+    /**
+     * Événement en attente de livraison
+     */
+    static final class Entry {
+        private final long id;
+        private final String dedupKey;
+        private final LoanEvent event;
+        private int attempts;
+
+        Entry(long id, String dedupKey, LoanEvent event) {
+            this.id = id;
+            this.dedupKey = dedupKey;
+            this.event = event;
+        }
+
+        LoanEvent getEvent() { return event; }
+        int nextAttempt() { return ++attempts; }
+    }
+}
@@ -0,0 +1,116 @@
+package outbox;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import model.LoanEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Livraison asynchrone des événements de la boîte d'envoi
+ *
+ * Pourquoi : Le canal de notification peut être lent ou en panne sans que les
+ * emprunts n'en soient ralentis : des threads dédiés livrent les événements,
+ * et un échec est retenté plus tard avec un délai exponentiel (avec gigue),
+ * borné à MAX_BACKOFF_MILLIS. Un événement déjà livré (même clé) est écarté.
+ * Toute erreur sur un événement (exception, Error du handler ou écriture de
+ * l'acquittement) est journalisée et retentée : elle n'arrête jamais un thread
+ * de livraison. Livraison « au moins une fois » : un acquittement qui échoue
+ * fait relivrer l'événement.
+ */
+public class OutboxDispatcher {
+
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final Counter DELIVERED = MetricsRegistry.getInstance().counter("outbox.delivered");
+    private static final Counter DUPLICATES = MetricsRegistry.getInstance().counter("outbox.duplicates");
+    private static final Counter RETRIES = MetricsRegistry.getInstance().counter("outbox.retries");
+
+    private final DurableOutbox outbox;
+    private final Consumer<LoanEvent> handler;
+    private final int workerCount;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    /**
+     * @param handler livre un événement ; une exception déclenche une nouvelle tentative
+     */
+    public OutboxDispatcher(DurableOutbox outbox, Consumer<LoanEvent> handler, int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Il faut au moins un thread de livraison");
+        }
+        this.outbox = outbox;
+        this.handler = handler;
+        this.workerCount = workerCount;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::deliverLoop, "outbox-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        retries.shutdownNow();
+    }
+
+    private void deliverLoop() {
+        try {
+            while (running) {
+                DurableOutbox.Entry entry = outbox.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    deliver(entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(DurableOutbox.Entry entry) {
+        try {
+            if (outbox.isDelivered(entry)) {
+                DUPLICATES.increment();
+                outbox.acknowledge(entry);
+                return;
+            }
+            handler.accept(entry.getEvent());
+            outbox.acknowledge(entry);
+            DELIVERED.increment();
+        } catch (RuntimeException | Error e) {
+            scheduleRetry(entry, e);
+        }
+    }
+
+    private void scheduleRetry(DurableOutbox.Entry entry, Throwable cause) {
+        RETRIES.increment();
+        int attempt = entry.nextAttempt();
+        System.err.println("[outbox] Échec de livraison (tentative " + attempt + ") de " + entry.getEvent()
+                + " : " + cause);
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        retries.schedule(() -> outbox.retry(entry), delay, TimeUnit.MILLISECONDS);
+    }
+}
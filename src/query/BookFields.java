@@ -0,0 +1,19 @@
+package query;
+
+import model.Book;
+
+/**
+ * Champs interrogeables d'un livre
+ */
+public final class BookFields {
+
+    public static final Field<Book> ISBN = Field.of("isbn", Book::getIsbn);
+    public static final Field<Book> TITLE = Field.of("title", Book::getTitle);
+    public static final Field<Book> AUTHOR = Field.of("author", Book::getAuthor);
+    public static final Field<Book> PUBLISHER = Field.of("publisher", Book::getPublisher);
+    public static final Field<Book> YEAR = Field.ordered("year", Book::getYear);
+    public static final Field<Book> AVAILABLE = Field.of("available", Book::isAvailable);
+
+    private BookFields() {
+    }
+}
@@ -0,0 +1,233 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Critère de recherche composable (Specification)
+ *
+ * Pattern : Specification
+ * Pourquoi : Chaque nouvelle combinaison de filtres demandait une méthode find*
+ * de plus dans les repositories, chacune avec son propre parcours complet. Un
+ * critère est ici un arbre (égalité, liste de valeurs, plage, "contient", ET,
+ * OU, NON) : il se combine librement, et le planificateur d'IndexedTable sait
+ * reconnaître les branches servies par un index.
+ * Lien : https://martinfowler.com/apsupp/spec.pdf
+ */
+public interface Criteria<T> {
+
+    boolean test(T entity);
+
+    default Criteria<T> and(Criteria<T> other) {
+        return Criteria.allOf(this, other);
+    }
+
+    default Criteria<T> or(Criteria<T> other) {
+        return Criteria.anyOf(this, other);
+    }
+
+    // ==================== FABRIQUES ====================
+
+    /**
+     * Tout accepter (requête sans filtre)
+     */
+    static <T> Criteria<T> all() {
+        return new And<>(List.of());
+    }
+
+    static <T> Criteria<T> eq(Field<T> field, Object value) {
+        return new Eq<>(field, value);
+    }
+
+    /**
+     * Valeur du champ parmi celles données
+     */
+    static <T> Criteria<T> in(Field<T> field, Object... values) {
+        return new In<>(field, new LinkedHashSet<>(Arrays.asList(values)));
+    }
+
+    /**
+     * Valeur du champ (ordonné) entre from et to inclus ; null = borne ouverte
+     */
+    static <T> Criteria<T> between(Field<T> field, Comparable<?> from, Comparable<?> to) {
+        if (!field.isOrdered()) {
+            throw new IllegalArgumentException("Le champ " + field + " n'est pas ordonné");
+        }
+        if (from == null && to == null) {
+            throw new IllegalArgumentException("Plage sans borne sur " + field);
+        }
+        if (from != null && to != null && compare(from, to) > 0) {
+            throw new IllegalArgumentException("Plage vide sur " + field + " : " + from + " > " + to);
+        }
+        return new Range<>(field, from, to);
+    }
+
+    static <T> Criteria<T> atLeast(Field<T> field, Comparable<?> from) {
+        return between(field, from, null);
+    }
+
+    static <T> Criteria<T> atMost(Field<T> field, Comparable<?> to) {
+        return between(field, null, to);
+    }
+
+    /**
+     * Texte du champ contenant text (sans tenir compte de la casse) ; jamais indexé
+     */
+    static <T> Criteria<T> contains(Field<T> field, String text) {
+        return new Contains<>(field, text.toLowerCase());
+    }
+
+    /**
+     * Tous les critères (ET) ; nommé allOf pour ne pas se confondre avec and(other)
+     */
+    @SafeVarargs
+    static <T> Criteria<T> allOf(Criteria<T>... criteria) {
+        List<Criteria<T>> terms = new ArrayList<>();
+        for (Criteria<T> criterion : criteria) {
+            flatten(And.class, criterion, terms);
+        }
+        return new And<>(List.copyOf(terms));
+    }
+
+    /**
+     * Au moins un des critères (OU)
+     */
+    @SafeVarargs
+    static <T> Criteria<T> anyOf(Criteria<T>... criteria) {
+        List<Criteria<T>> terms = new ArrayList<>();
+        for (Criteria<T> criterion : criteria) {
+            flatten(Or.class, criterion, terms);
+        }
+        return new Or<>(List.copyOf(terms));
+    }
+
+    static <T> Criteria<T> not(Criteria<T> criteria) {
+        return new Not<>(criteria);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable from, Comparable to) {
+        return from.compareTo(to);
+    }
+
+    /**
+     * a ET (b ET c) devient ET(a, b, c) : le planificateur voit tous les termes d'un coup
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void flatten(Class<?> kind, Criteria<T> criterion, List<Criteria<T>> terms) {
+        Objects.requireNonNull(criterion, "critère null");
+        if (kind.isInstance(criterion)) {
+            terms.addAll(kind == And.class ? ((And<T>) criterion).terms() : ((Or<T>) criterion).terms());
+        } else {
+            terms.add(criterion);
+        }
+    }
+
+    // ==================== NŒUDS ====================
+
+    record Eq<T>(Field<T> field, Object value) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            return Objects.equals(field.get(entity), value);
+        }
+
+        @Override
+        public String toString() {
+            return field + " = " + value;
+        }
+    }
+
+    record In<T>(Field<T> field, Set<Object> values) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            return values.contains(field.get(entity));
+        }
+
+        @Override
+        public String toString() {
+            return field + " IN " + values;
+        }
+    }
+
+    record Range<T>(Field<T> field, Comparable<?> from, Comparable<?> to) implements Criteria<T> {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public boolean test(T entity) {
+            Comparable value = (Comparable) field.get(entity);
+            if (value == null) {
+                return false;
+            }
+            return (from == null || value.compareTo(from) >= 0) && (to == null || value.compareTo(to) <= 0);
+        }
+
+        @Override
+        public String toString() {
+            return field + " ∈ [" + (from == null ? "…" : from) + ", " + (to == null ? "…" : to) + "]";
+        }
+    }
+
+    record Contains<T>(Field<T> field, String text) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            Object value = field.get(entity);
+            return value != null && value.toString().toLowerCase().contains(text);
+        }
+
+        @Override
+        public String toString() {
+            return field + " contient '" + text + "'";
+        }
+    }
+
+    record And<T>(List<Criteria<T>> terms) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            for (Criteria<T> term : terms) {
+                if (!term.test(entity)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return terms.isEmpty() ? "tout" : terms.stream().map(Object::toString)
+                    .collect(Collectors.joining(" ET ", terms.size() > 1 ? "(" : "", terms.size() > 1 ? ")" : ""));
+        }
+    }
+
+    record Or<T>(List<Criteria<T>> terms) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            for (Criteria<T> term : terms) {
+                if (term.test(entity)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return terms.stream().map(Object::toString).collect(Collectors.joining(" OU ", "(", ")"));
+        }
+    }
+
+    record Not<T>(Criteria<T> term) implements Criteria<T> {
+        @Override
+        public boolean test(T entity) {
+            return !term.test(entity);
+        }
+
+        @Override
+        public String toString() {
+            return "NON " + term;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package query;
+
+import java.util.function.Function;
+
+/**
+ * Champ interrogeable d'une entité (nom + accesseur)
+ *
+ * Un champ "ordonné" (année, date d'échéance...) accepte les critères de plage et
+ * le tri ; son index éventuel est trié. Les valeurs d'un champ ordonné doivent
+ * être Comparable.
+ */
+public final class Field<T> {
+
+    private final String name;
+    private final Function<T, ?> accessor;
+    private final boolean ordered;
+
+    private Field(String name, Function<T, ?> accessor, boolean ordered) {
+        this.name = name;
+        this.accessor = accessor;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Champ comparé par égalité (ISBN, auteur, lecteur...)
+     */
+    public static <T> Field<T> of(String name, Function<T, ?> accessor) {
+        return new Field<>(name, accessor, false);
+    }
+
+    /**
+     * Champ ordonné : égalité, plages et tri
+     */
+    public static <T, V extends Comparable<? super V>> Field<T> ordered(String name, Function<T, V> accessor) {
+        return new Field<>(name, accessor, true);
+    }
+
+    public String getName() { return name; }
+    public boolean isOrdered() { return ordered; }
+
+    public Object get(T entity) {
+        return accessor.apply(entity);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,430 @@
+package query;
+
+import util.VersionedList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Table interrogeable : une VersionedList et ses index secondaires, plus un
+ * petit planificateur de requêtes
+ *
+ * Pourquoi : Chaque find* parcourait toute la liste. Ici chaque champ indexé a
+ * ses listes de correspondances (valeur → entités), tenues à jour à chaque
+ * écriture de la liste (VersionedList.addListener). Pour une requête, le
+ * planificateur :
+ *   1. décompose le critère en termes reliés par ET ;
+ *   2. estime, pour chaque terme servi par un index (égalité, liste de valeurs,
+ *      plage sur un champ ordonné, OU de termes indexés), le nombre d'entités
+ *      correspondantes ;
+ *   3. part du terme le plus sélectif, intersecte avec les autres égalités
+ *      indexées, puis applique les termes restants aux seuls candidats ;
+ *   4. sans terme indexé, parcourt l'index du champ de tri s'il y en a un (arrêt
+ *      dès la limite atteinte), sinon toute la liste.
+ * Le plan suivi est rendu avec le résultat (QueryResult.getPlan : mode explain).
+ * Les valeurs nulles ne sont pas indexées.
+ */
+public class IndexedTable<T> implements VersionedList.ChangeListener<T> {
+
+    private final String name;
+    private final VersionedList<T> source;
+    private final Map<Field<T>, Index> indexes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexe les champs donnés et suit désormais les écritures de source
+     */
+    @SafeVarargs
+    public IndexedTable(String name, VersionedList<T> source, Field<T>... indexedFields) {
+        this.name = name;
+        this.source = source;
+        for (Field<T> field : indexedFields) {
+            indexes.put(field, new Index(field));
+        }
+        source.addListener(this);
+    }
+
+    public boolean isIndexed(Field<T> field) {
+        return indexes.containsKey(field);
+    }
+
+    /**
+     * Écriture de la liste (appelé sous son verrou d'écriture)
+     */
+    @Override
+    public void onChange(T removed, T added) {
+        lock.writeLock().lock();
+        try {
+            for (Index index : indexes.values()) {
+                if (removed != null) {
+                    index.remove(removed);
+                }
+                if (added != null) {
+                    index.add(added);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== EXÉCUTION ====================
+
+    public QueryResult<T> execute(Query<T> query) {
+        QueryPlan plan = new QueryPlan();
+        List<Criteria<T>> residual = new ArrayList<>(conjuncts(query.getWhere()));
+        List<T> candidates;
+
+        lock.readLock().lock();
+        try {
+            List<Access> accesses = new ArrayList<>();
+            for (Criteria<T> term : residual) {
+                Access access = access(term);
+                if (access != null) {
+                    accesses.add(access);
+                }
+            }
+            if (accesses.isEmpty()) {
+                Index sortIndex = query.getOrderBy() == null ? null : indexes.get(query.getOrderBy());
+                if (sortIndex != null && query.getLimit() != Integer.MAX_VALUE) {
+                    return orderedScan(query, sortIndex, plan);
+                }
+                candidates = source.snapshot();
+                plan.step("parcours complet " + name + " → " + candidates.size());
+            } else {
+                accesses.sort(Comparator.comparingLong(access -> access.estimate));
+                Access driver = accesses.get(0);
+                candidates = driver.fetch();
+                plan.indexed();
+                plan.step("index " + driver.term + " → " + candidates.size());
+                residual.remove(driver.term);
+                for (Access other : accesses.subList(1, accesses.size())) {
+                    if (other.member == null) {
+                        continue; // Plage ou OU : vérifiés comme filtre sur les candidats
+                    }
+                    List<T> kept = new ArrayList<>();
+                    plan.examined(candidates.size());
+                    for (T candidate : candidates) {
+                        if (other.member.test(candidate)) {
+                            kept.add(candidate);
+                        }
+                    }
+                    plan.step("intersection " + other.term + " → " + kept.size());
+                    candidates = kept;
+                    residual.remove(other.term);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return finish(query, candidates, residual, plan);
+    }
+
+    /**
+     * Exécution sans index : parcours de toutes les lignes données (repositories
+     * sans IndexedTable), avec le même plan rendu
+     */
+    public static <T> QueryResult<T> scan(String name, Query<T> query, List<T> rows) {
+        QueryPlan plan = new QueryPlan();
+        plan.step("parcours complet " + name + " → " + rows.size());
+        return finish(query, rows, new ArrayList<>(conjuncts(query.getWhere())), plan);
+    }
+
+    /**
+     * Filtre les candidats par les termes restants, puis tri et limite
+     */
+    private static <T> QueryResult<T> finish(Query<T> query, List<T> candidates, List<Criteria<T>> residual,
+                                             QueryPlan plan) {
+        Criteria<T> filter = residual.size() == 1 ? residual.get(0) : new Criteria.And<>(List.copyOf(residual));
+        // Sans tri, inutile d'aller au-delà de la limite
+        int stopAt = query.getOrderBy() == null ? query.getLimit() : Integer.MAX_VALUE;
+        List<T> rows = new ArrayList<>();
+        int examined = 0;
+        for (int i = 0; i < candidates.size() && rows.size() < stopAt; i++) {
+            T candidate = candidates.get(i);
+            examined++;
+            if (filter.test(candidate)) {
+                rows.add(candidate);
+            }
+        }
+        plan.examined(examined);
+        if (!residual.isEmpty()) {
+            plan.step("filtre " + filter + " : " + examined + " examinées → " + rows.size());
+        }
+        if (query.getOrderBy() != null) {
+            rows.sort(comparator(query));
+            plan.step("tri " + query.getOrderBy() + (query.isDescending() ? " décroissant" : ""));
+        }
+        if (rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, query.getLimit()));
+            plan.step("limite " + query.getLimit());
+        } else if (stopAt != Integer.MAX_VALUE && rows.size() == stopAt) {
+            plan.step("limite " + query.getLimit() + " (arrêt anticipé)");
+        }
+        return new QueryResult<>(rows, plan);
+    }
+
+    /**
+     * Parcours de l'index du champ de tri, dans l'ordre, jusqu'à la limite ; les
+     * entités sans valeur (non indexées) viennent ensuite, comme dans comparator
+     */
+    @SuppressWarnings("unchecked")
+    private QueryResult<T> orderedScan(Query<T> query, Index sortIndex, QueryPlan plan) {
+        NavigableMap<Object, Object> ordered = (NavigableMap<Object, Object>) sortIndex.postings;
+        Criteria<T> filter = query.getWhere();
+        List<T> rows = new ArrayList<>();
+        int examined = 0;
+        for (Object posting : (query.isDescending() ? ordered.descendingMap() : ordered).values()) {
+            for (T candidate : entities(posting)) {
+                examined++;
+                if (filter.test(candidate) && rows.size() < query.getLimit()) {
+                    rows.add(candidate);
+                }
+            }
+            if (rows.size() >= query.getLimit()) {
+                break;
+            }
+        }
+        if (rows.size() < query.getLimit() && sortIndex.nullCount > 0) {
+            Field<T> field = query.getOrderBy();
+            for (T candidate : source.snapshot()) {
+                if (field.get(candidate) != null) {
+                    continue;
+                }
+                examined++;
+                if (filter.test(candidate)) {
+                    rows.add(candidate);
+                    if (rows.size() >= query.getLimit()) {
+                        break;
+                    }
+                }
+            }
+            plan.step("parcours " + name + " des " + sortIndex.nullCount + " valeurs nulles de " + field);
+        }
+        plan.indexed();
+        plan.examined(examined);
+        plan.step("parcours ordonné de l'index " + query.getOrderBy() + (query.isDescending() ? " décroissant" : "")
+                + ", filtre " + filter + " : " + examined + " examinées → " + rows.size() + " (limite "
+                + query.getLimit() + ")");
+        return new QueryResult<>(rows, plan);
+    }
+
+    // ==================== PLANIFICATION ====================
+
+    private static <T> List<Criteria<T>> conjuncts(Criteria<T> where) {
+        return where instanceof Criteria.And<T> and ? and.terms() : List.of(where);
+    }
+
+    /**
+     * Accès par index pour un terme (null si aucun index ne le sert)
+     */
+    private Access access(Criteria<T> term) {
+        if (term instanceof Criteria.Eq<T> eq) {
+            Index index = indexes.get(eq.field());
+            if (index == null || eq.value() == null) {
+                return null;
+            }
+            return new Access(term, index.count(eq.value()),
+                    () -> new ArrayList<>(entities(index.postings.get(eq.value()))),
+                    entity -> index.contains(eq.value(), entity));
+        }
+        if (term instanceof Criteria.In<T> in) {
+            Index index = indexes.get(in.field());
+            if (index == null || in.values().contains(null)) {
+                return null;
+            }
+            long estimate = 0;
+            for (Object value : in.values()) {
+                estimate += index.count(value);
+            }
+            return new Access(term, estimate, () -> {
+                List<T> rows = new ArrayList<>();
+                for (Object value : in.values()) {
+                    rows.addAll(entities(index.postings.get(value)));
+                }
+                return rows;
+            }, entity -> {
+                for (Object value : in.values()) {
+                    if (index.contains(value, entity)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+        if (term instanceof Criteria.Range<T> range) {
+            Index index = indexes.get(range.field());
+            if (index == null) {
+                return null;
+            }
+            Collection<Object> postings = index.range(range.from(), range.to()).values();
+            long estimate = 0;
+            for (Object posting : postings) {
+                estimate += size(posting);
+            }
+            return new Access(term, estimate, () -> {
+                List<T> rows = new ArrayList<>();
+                for (Object posting : postings) {
+                    rows.addAll(entities(posting));
+                }
+                return rows;
+            }, null);
+        }
+        if (term instanceof Criteria.Or<T> or) {
+            List<Access> branches = new ArrayList<>();
+            long estimate = 0;
+            for (Criteria<T> branch : or.terms()) {
+                Access access = access(branch);
+                if (access == null) {
+                    return null; // Une branche non indexée impose un parcours
+                }
+                branches.add(access);
+                estimate += access.estimate;
+            }
+            return new Access(term, estimate, () -> {
+                Set<T> union = Collections.newSetFromMap(new IdentityHashMap<>());
+                List<T> rows = new ArrayList<>();
+                for (Access branch : branches) {
+                    for (T row : branch.fetch()) {
+                        if (union.add(row)) {
+                            rows.add(row);
+                        }
+                    }
+                }
+                return rows;
+            }, null);
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Comparator<T> comparator(Query<T> query) {
+        Field<T> field = query.getOrderBy();
+        // Valeurs nulles en dernier dans les deux sens, comme le parcours ordonné de l'index
+        Comparator<Comparable> order = query.isDescending() ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return Comparator.comparing(entity -> (Comparable) field.get(entity), Comparator.nullsLast(order));
+    }
+
+    // ==================== LISTES DE CORRESPONDANCES ====================
+    // Une valeur portée par une seule entité (ISBN, identifiant) la référence
+    // directement ; au-delà, un LinkedHashSet (les entités sont comparées par identité).
+
+    @SuppressWarnings("unchecked")
+    private Collection<T> entities(Object posting) {
+        if (posting == null) {
+            return List.of();
+        }
+        return posting instanceof LinkedHashSet<?> set ? (Collection<T>) set : List.of((T) posting);
+    }
+
+    private static int size(Object posting) {
+        if (posting == null) {
+            return 0;
+        }
+        return posting instanceof LinkedHashSet<?> set ? set.size() : 1;
+    }
+
+    /**
+     * Terme servi par un index : estimation, lecture des candidats, test d'appartenance
+     * (null si l'intersection ne se fait pas par l'index)
+     */
+    private final class Access {
+        private final Criteria<T> term;
+        private final long estimate;
+        private final Supplier<List<T>> fetch;
+        private final Predicate<T> member;
+
+        Access(Criteria<T> term, long estimate, Supplier<List<T>> fetch, Predicate<T> member) {
+            this.term = term;
+            this.estimate = estimate;
+            this.fetch = fetch;
+            this.member = member;
+        }
+
+        List<T> fetch() {
+            return fetch.get();
+        }
+    }
+
+    private final class Index {
+        private final Field<T> field;
+        private final Map<Object, Object> postings;
+        private int nullCount;  // Entités sans valeur pour le champ (absentes des postings)
+
+        Index(Field<T> field) {
+            this.field = field;
+            this.postings = field.isOrdered() ? new TreeMap<>() : new HashMap<>();
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(T entity) {
+            Object key = field.get(entity);
+            if (key == null) {
+                nullCount++;
+                return;
+            }
+            Object posting = postings.get(key);
+            if (posting == null) {
+                postings.put(key, entity);
+            } else if (posting instanceof LinkedHashSet<?> set) {
+                ((Set<Object>) set).add(entity);
+            } else {
+                Set<Object> set = new LinkedHashSet<>();
+                set.add(posting);
+                set.add(entity);
+                postings.put(key, set);
+            }
+        }
+
+        void remove(T entity) {
+            Object key = field.get(entity);
+            if (key == null) {
+                nullCount--;
+                return;
+            }
+            Object posting = postings.get(key);
+            if (posting == entity) {
+                postings.remove(key);
+            } else if (posting instanceof LinkedHashSet<?> set) {
+                set.remove(entity);
+                if (set.size() == 1) {
+                    postings.put(key, set.iterator().next());
+                } else if (set.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        int count(Object key) {
+            return size(postings.get(key));
+        }
+
+        boolean contains(Object key, T entity) {
+            Object posting = postings.get(key);
+            return posting == entity || (posting instanceof LinkedHashSet<?> set && set.contains(entity));
+        }
+
+        @SuppressWarnings("unchecked")
+        NavigableMap<Object, Object> range(Object from, Object to) {
+            NavigableMap<Object, Object> ordered = (NavigableMap<Object, Object>) postings;
+            if (from != null && to != null) {
+                return ordered.subMap(from, true, to, true);
+            }
+            return from != null ? ordered.tailMap(from, true) : ordered.headMap(to, true);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package query;
+
+import model.Loan;
+
+/**
+ * Champs interrogeables d'un emprunt
+ */
+public final class LoanFields {
+
+    public static final Field<Loan> LOAN_ID = Field.of("loanId", Loan::getLoanId);
+    public static final Field<Loan> USER_ID = Field.of("userId", Loan::getUserId);
+    public static final Field<Loan> ISBN = Field.of("isbn", Loan::getIsbn);
+    public static final Field<Loan> LOAN_DATE = Field.ordered("loanDate", Loan::getLoanDate);
+    public static final Field<Loan> DUE_DATE = Field.ordered("dueDate", Loan::getDueDate);
+    public static final Field<Loan> RETURNED = Field.of("returned", Loan::isReturned);
+
+    private LoanFields() {
+    }
+}
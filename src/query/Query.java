@@ -0,0 +1,77 @@
+package query;
+
+/**
+ * Requête : critère, tri et limite
+ *
+ * Pattern : Builder
+ * Exemple : new Query.Builder<Book>()
+ *                 .where(Criteria.allOf(Criteria.eq(BookFields.AUTHOR, "Victor Hugo"),
+ *                                     Criteria.between(BookFields.YEAR, 1850, 1870)))
+ *                 .orderBy(BookFields.YEAR).limit(10).build()
+ */
+public final class Query<T> {
+
+    private final Criteria<T> where;
+    private final Field<T> orderBy;
+    private final boolean descending;
+    private final int limit;
+
+    private Query(Builder<T> builder) {
+        this.where = builder.where;
+        this.orderBy = builder.orderBy;
+        this.descending = builder.descending;
+        this.limit = builder.limit;
+    }
+
+    public Criteria<T> getWhere() { return where; }
+    public Field<T> getOrderBy() { return orderBy; }
+    public boolean isDescending() { return descending; }
+    public int getLimit() { return limit; }
+
+    @Override
+    public String toString() {
+        return where + (orderBy == null ? "" : " TRI " + orderBy + (descending ? " DESC" : ""))
+                + (limit == Integer.MAX_VALUE ? "" : " LIMITE " + limit);
+    }
+
+    public static class Builder<T> {
+        private Criteria<T> where = Criteria.all();
+        private Field<T> orderBy;
+        private boolean descending;
+        private int limit = Integer.MAX_VALUE;
+
+        public Builder<T> where(Criteria<T> where) {
+            this.where = where;
+            return this;
+        }
+
+        public Builder<T> orderBy(Field<T> field) {
+            return orderBy(field, false);
+        }
+
+        public Builder<T> orderByDescending(Field<T> field) {
+            return orderBy(field, true);
+        }
+
+        private Builder<T> orderBy(Field<T> field, boolean descending) {
+            if (!field.isOrdered()) {
+                throw new IllegalArgumentException("Tri impossible : le champ " + field + " n'est pas ordonné");
+            }
+            this.orderBy = field;
+            this.descending = descending;
+            return this;
+        }
+
+        public Builder<T> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("La limite ne peut pas être négative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public Query<T> build() {
+            return new Query<>(this);
+        }
+    }
+}
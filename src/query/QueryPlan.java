@@ -0,0 +1,46 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plan exécuté par une requête : étapes, lignes examinées, index utilisé ou non
+ *
+ * Exemple (toString) :
+ *   index userId = U001 → 12
+ *   intersection returned = false → 3
+ *   filtre (userId = U001 ET returned = false) : 3 examinées → 3
+ *   tri dueDate
+ */
+public final class QueryPlan {
+
+    private final List<String> steps = new ArrayList<>();
+    private long rowsExamined;
+    private boolean indexed;
+
+    void step(String description) {
+        steps.add(description);
+    }
+
+    void examined(long rows) {
+        rowsExamined += rows;
+    }
+
+    void indexed() {
+        indexed = true;
+    }
+
+    public List<String> getSteps() { return Collections.unmodifiableList(steps); }
+    public long getRowsExamined() { return rowsExamined; }
+
+    /**
+     * Faux si la requête a dû parcourir toute la table
+     */
+    public boolean isIndexed() { return indexed; }
+
+    @Override
+    public String toString() {
+        return String.join("\n", steps);
+    }
+}
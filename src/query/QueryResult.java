@@ -0,0 +1,21 @@
+package query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat d'une requête et le plan qui l'a produit (mode explain)
+ */
+public final class QueryResult<T> {
+
+    private final List<T> rows;
+    private final QueryPlan plan;
+
+    QueryResult(List<T> rows, QueryPlan plan) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.plan = plan;
+    }
+
+    public List<T> getRows() { return rows; }
+    public QueryPlan getPlan() { return plan; }
+}
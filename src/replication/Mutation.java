@@ -0,0 +1,91 @@
+package replication;
+
+import model.Book;
+import model.Loan;
+import model.User;
+
+/**
+ * Une modification du store à rejouer sur les réplicas (livre, utilisateur ou emprunt)
+ *
+ * Les entités du model sont mutables : la mutation garde une copie prise au
+ * moment de l'écriture, pour que le flux envoyé aux réplicas ne change plus ensuite.
+ */
+public final class Mutation {
+
+    public enum Kind { PUT_BOOK, DELETE_BOOK, PUT_USER, DELETE_USER, PUT_LOAN }
+
+    private final long sequence;
+    private final Kind kind;
+    private final String key;
+    private final Book book;
+    private final User user;
+    private final Loan loan;
+
+    private Mutation(long sequence, Kind kind, String key, Book book, User user, Loan loan) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.key = key;
+        this.book = book;
+        this.user = user;
+        this.loan = loan;
+    }
+
+    public static Mutation putBook(Book book) {
+        return new Mutation(0, Kind.PUT_BOOK, book.getIsbn(), copy(book), null, null);
+    }
+
+    public static Mutation deleteBook(String isbn) {
+        return new Mutation(0, Kind.DELETE_BOOK, isbn, null, null, null);
+    }
+
+    public static Mutation putUser(User user) {
+        return new Mutation(0, Kind.PUT_USER, user.getUserId(), null, copy(user), null);
+    }
+
+    public static Mutation deleteUser(String userId) {
+        return new Mutation(0, Kind.DELETE_USER, userId, null, null, null);
+    }
+
+    public static Mutation putLoan(Loan loan) {
+        return new Mutation(0, Kind.PUT_LOAN, loan.getLoanId(), null, null, copy(loan));
+    }
+
+    /**
+     * Mutation décodée côté réplica (entité déjà fraîchement construite, pas de copie)
+     */
+    static Mutation decoded(long sequence, Kind kind, String key, Book book, User user, Loan loan) {
+        return new Mutation(sequence, kind, key, book, user, loan);
+    }
+
+    /**
+     * Même mutation avec son numéro d'ordre dans le journal
+     */
+    Mutation withSequence(long sequence) {
+        return new Mutation(sequence, kind, key, book, user, loan);
+    }
+
+    public long getSequence() { return sequence; }
+    public Kind getKind() { return kind; }
+    public String getKey() { return key; }
+    public Book getBook() { return book; }
+    public User getUser() { return user; }
+    public Loan getLoan() { return loan; }
+
+    static Book copy(Book book) {
+        return new Book.Builder(book).build();
+    }
+
+    static User copy(User user) {
+        return new User(user.getUserId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPassword(), user.isAdmin());
+    }
+
+    static Loan copy(Loan loan) {
+        return new Loan(loan);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + kind + " " + key;
+    }
+}
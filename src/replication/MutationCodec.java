@@ -0,0 +1,115 @@
+package replication;
+
+import codec.BinaryInput;
+import codec.BinaryOutput;
+import model.Book;
+import model.Loan;
+import model.User;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Encodage des trames de réplication dans le format binaire du package codec
+ *
+ * Trames (varint de type en tête) :
+ *   MUTATIONS : tête du journal, nombre, puis les mutations (séquence, type, entité)
+ *   HEARTBEAT : tête du journal (envoyé quand il n'y a rien d'autre)
+ *   SNAPSHOT  : tête du journal, identifiant du journal, numéro couvert par
+ *               l'instantané, nombre, puis une mutation PUT par entité
+ * Dans l'autre sens, le réplica envoie à la connexion l'identifiant du journal
+ * qu'il suit et son dernier numéro appliqué, puis ce numéro (long) après chaque trame.
+ */
+final class MutationCodec {
+
+    static final int FRAME_MUTATIONS = 1;
+    static final int FRAME_HEARTBEAT = 2;
+    static final int FRAME_SNAPSHOT = 3;
+
+    private static final long NO_DATE = 0; // Les jours epoch sont décalés de 1 pour réserver 0
+
+    private MutationCodec() {
+    }
+
+    static void write(Mutation mutation, BinaryOutput out) throws IOException {
+        out.writeVarint(mutation.getSequence());
+        out.writeVarint(mutation.getKind().ordinal());
+        switch (mutation.getKind()) {
+            case PUT_BOOK -> {
+                Book book = mutation.getBook();
+                out.writeString(book.getIsbn());
+                out.writeString(book.getTitle());
+                out.writeString(book.getAuthor());
+                out.writeString(book.getPublisher());
+                out.writeSignedVarint(book.getYear());
+                out.writeBoolean(book.isAvailable());
+            }
+            case PUT_USER -> {
+                User user = mutation.getUser();
+                out.writeString(user.getUserId());
+                out.writeString(user.getFirstName());
+                out.writeString(user.getLastName());
+                out.writeString(user.getEmail());
+                out.writeString(user.getPassword());
+                out.writeBoolean(user.isAdmin());
+            }
+            case PUT_LOAN -> {
+                Loan loan = mutation.getLoan();
+                out.writeString(loan.getLoanId());
+                out.writeString(loan.getUserId());
+                out.writeString(loan.getIsbn());
+                writeDate(loan.getLoanDate(), out);
+                writeDate(loan.getDueDate(), out);
+                writeDate(loan.getReturnDate(), out);
+            }
+            case DELETE_BOOK, DELETE_USER -> out.writeString(mutation.getKey());
+        }
+    }
+
+    static Mutation read(BinaryInput in) throws IOException {
+        long sequence = in.readVarint();
+        long kind = in.readVarint();
+        if (kind >= Mutation.Kind.values().length) {
+            throw new IOException("Type de mutation inconnu : " + kind);
+        }
+        switch (Mutation.Kind.values()[(int) kind]) {
+            case PUT_BOOK -> {
+                Book book = new Book.Builder()
+                        .isbn(in.readString())
+                        .title(in.readString())
+                        .author(in.readString())
+                        .publisher(in.readString())
+                        .year(in.readInt())
+                        .available(in.readBoolean())
+                        .build();
+                return Mutation.decoded(sequence, Mutation.Kind.PUT_BOOK, book.getIsbn(), book, null, null);
+            }
+            case PUT_USER -> {
+                User user = new User(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readString(), in.readBoolean());
+                return Mutation.decoded(sequence, Mutation.Kind.PUT_USER, user.getUserId(), null, user, null);
+            }
+            case PUT_LOAN -> {
+                Loan loan = new Loan(in.readString(), in.readString(), in.readString(),
+                        readDate(in), readDate(in));
+                loan.setReturnDate(readDate(in));
+                return Mutation.decoded(sequence, Mutation.Kind.PUT_LOAN, loan.getLoanId(), null, null, loan);
+            }
+            case DELETE_BOOK -> {
+                return Mutation.decoded(sequence, Mutation.Kind.DELETE_BOOK, in.readString(), null, null, null);
+            }
+            default -> {
+                return Mutation.decoded(sequence, Mutation.Kind.DELETE_USER, in.readString(), null, null, null);
+            }
+        }
+    }
+
+    private static void writeDate(LocalDate date, BinaryOutput out) throws IOException {
+        out.writeSignedVarint(date == null ? NO_DATE : date.toEpochDay() + 1);
+    }
+
+    private static LocalDate readDate(BinaryInput in) throws IOException {
+        long value = in.readSignedVarint();
+        return value == NO_DATE ? null : LocalDate.ofEpochDay(value - 1);
+    }
+}
@@ -0,0 +1,130 @@
+package replication;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Journal append-only des mutations du leader
+ *
+ * Chaque mutation reçoit un numéro d'ordre (à partir de 1). Les réplicas
+ * lisent le journal par lots à partir de leur dernier numéro appliqué ;
+ * un réplica qui se (re)connecte reprend donc exactement où il s'était arrêté.
+ *
+ * Le journal ne garde que les mutations que tous les réplicas n'ont pas encore
+ * appliquées : ReplicationLeader le tronque (truncate) au plus petit numéro
+ * acquitté. Un réplica qui repart d'avant le début du journal, ou d'un autre
+ * journal (leader redémarré : nouvel identifiant logId, numéros repartis de 1),
+ * reçoit un instantané de l'état courant du store (snapshot) puis la suite.
+ */
+public class MutationLog {
+
+    // En dessous, la troncature attend : retirer le début d'une ArrayList coûte une copie
+    private static final int MIN_TRUNCATION = 1024;
+
+    private final long logId;
+    private final Supplier<List<Mutation>> stateReader;
+    private final List<Mutation> mutations = new ArrayList<>();
+    private long truncated;  // Numéro de la dernière mutation retirée du journal
+
+    /**
+     * stateReader : état courant du store, une mutation PUT par entité (instantanés)
+     */
+    public MutationLog(Supplier<List<Mutation>> stateReader) {
+        long id;
+        do {
+            id = new SecureRandom().nextLong();
+        } while (id == 0);  // 0 : réplica qui n'a encore suivi aucun journal
+        this.logId = id;
+        this.stateReader = stateReader;
+    }
+
+    /**
+     * Identifiant de ce journal, différent à chaque démarrage du leader
+     */
+    public long getLogId() {
+        return logId;
+    }
+
+    /**
+     * Ajoute une mutation et renvoie son numéro d'ordre
+     */
+    public synchronized long append(Mutation mutation) {
+        long sequence = truncated + mutations.size() + 1;
+        mutations.add(mutation.withSequence(sequence));
+        notifyAll();
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return truncated + mutations.size();
+    }
+
+    /**
+     * Premier numéro encore disponible dans le journal (getLastSequence() + 1 s'il est vide)
+     */
+    public synchronized long getFirstSequence() {
+        return truncated + 1;
+    }
+
+    /**
+     * Nombre de mutations gardées en mémoire
+     */
+    public synchronized int size() {
+        return mutations.size();
+    }
+
+    /**
+     * Retire les mutations de numéro <= appliedByAll (appliquées par tous les réplicas)
+     */
+    public synchronized void truncate(long appliedByAll) {
+        long count = Math.min(appliedByAll, getLastSequence()) - truncated;
+        if (count >= MIN_TRUNCATION || (count > 0 && count == mutations.size())) {
+            mutations.subList(0, (int) count).clear();
+            truncated += count;
+        }
+    }
+
+    /**
+     * Instantané de l'état courant et numéro à partir duquel le journal le complète
+     *
+     * Le numéro est lu avant l'état : une écriture de numéro <= sequence est déjà
+     * dans le store au moment de la lecture (le décorateur écrit puis journalise) ;
+     * une écriture plus récente déjà visible dans l'instantané sera rejouée, sans
+     * effet (les mutations sont des upserts et des suppressions).
+     */
+    public Snapshot snapshot() {
+        long sequence = getLastSequence();
+        return new Snapshot(sequence, stateReader.get());
+    }
+
+    /**
+     * Renvoie au plus max mutations de numéro > afterSequence, en attendant
+     * jusqu'à timeoutMillis qu'il y en ait au moins une (liste vide sinon) ;
+     * null si afterSequence précède le début du journal (instantané nécessaire)
+     */
+    public synchronized List<Mutation> awaitBatch(long afterSequence, int max, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getLastSequence() <= afterSequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            wait(remaining);
+        }
+        if (afterSequence < truncated) {
+            return null;
+        }
+        int from = (int) (afterSequence - truncated);
+        int to = Math.min(mutations.size(), from + max);
+        return new ArrayList<>(mutations.subList(from, to));
+    }
+
+    /**
+     * État complet du store, à compléter par les mutations de numéro > sequence
+     */
+    public record Snapshot(long sequence, List<Mutation> state) {
+    }
+}
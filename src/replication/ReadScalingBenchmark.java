@@ -0,0 +1,91 @@
+package replication;
+
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesure du débit de lecture en fonction du nombre de réplicas
+ *
+ * Pour k = 1..n, les clients se répartissent en tourniquet sur les k premiers
+ * réplicas et enchaînent des requêtes de consultation pendant la durée donnée.
+ * Affiche le débit, p50/p99 et le nombre de réponses 503 (réplica en retard).
+ *
+ * Usage : java -cp out replication.ReadScalingBenchmark <clients> <secondes> <urlRéplica>...
+ * Exemple (trois réplicas lancés sur 8081..8083) :
+ *   java -cp out replication.ReadScalingBenchmark 200 10 \
+ *       http://localhost:8081 http://localhost:8082 http://localhost:8083
+ */
+public class ReadScalingBenchmark {
+
+    private static final String[] PATHS = {
+            "/books/search?q=" + URLEncoder.encode("le", StandardCharsets.UTF_8),
+            "/books",
+            "/loans/overdue"
+    };
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage : java replication.ReadScalingBenchmark <clients> <secondes> <urlRéplica>...");
+            return;
+        }
+        int clients = Integer.parseInt(args[0]);
+        int seconds = Integer.parseInt(args[1]);
+        List<String> replicas = Arrays.asList(args).subList(2, args.length);
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        System.out.println("réplicas  req/s      p50 ms   p99 ms   503");
+        for (int k = 1; k <= replicas.size(); k++) {
+            run(http, replicas.subList(0, k), clients, seconds);
+        }
+    }
+
+    private static void run(HttpClient http, List<String> replicas, int clients, int seconds) {
+        LatencyTimer latency = MetricsRegistry.getInstance().timer("replica.read." + replicas.size());
+        AtomicLong stale = new AtomicLong();
+        long begin = System.nanoTime();
+        long deadline = begin + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            runs.add(loop(http, replicas.get(i % replicas.size()), i, deadline, latency, stale));
+        }
+        CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).join();
+
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%-9d %-10.0f %-8.2f %-8.2f %d%n", replicas.size(), latency.getCount() / elapsed,
+                latency.getPercentile(50, TimeUnit.MILLISECONDS),
+                latency.getPercentile(99, TimeUnit.MILLISECONDS), stale.get());
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient http, String baseUrl, int iteration, long deadline,
+                                                LatencyTimer latency, AtomicLong stale) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + PATHS[iteration % PATHS.length])).GET().build();
+        long start = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    latency.recordSince(start);
+                    if (failure == null && response.statusCode() == 503) {
+                        stale.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(http, baseUrl, iteration + 1, deadline, latency, stale));
+    }
+}
@@ -0,0 +1,144 @@
+package replication;
+
+import codec.BookCodec;
+import codec.JsonOutput;
+import codec.LoanCodec;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import repository.ShardedBookRepository;
+import repository.ShardedLoanRepository;
+import repository.ShardedUserRepository;
+import service.BookService;
+import service.LoanService;
+import service.UserService;
+import transaction.TransactionManager;
+import util.ShardedDataStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Réplica en lecture seule : suit un leader et sert les requêtes de consultation
+ *
+ * Routes HTTP (GET, réponses JSON) :
+ *   /books               tous les livres       (BookService.getAllBooks)
+ *   /books/search?q=mot  recherche par titre   (BookService.searchBooksByTitle)
+ *   /loans/overdue       emprunts en retard    (LoanService.getOverdueLoans)
+ * Si le réplica dépasse sa borne de fraîcheur, il répond 503 pour que le client
+ * s'adresse à un autre nœud.
+ *
+ * Leader : java -Dbiblio.replication.port=7400 -cp out App --server 8080
+ * Réplica : java -cp out replication.ReplicaNode localhost:7400 8081 [fraîcheurMs] [shards]
+ */
+public class ReplicaNode {
+
+    private final ReplicationFollower follower;
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final HttpServer server;
+
+    public ReplicaNode(String leaderHost, int leaderPort, int httpPort, long maxStalenessMillis, int shards)
+            throws IOException {
+        ShardedDataStore store = new ShardedDataStore(shards);
+        this.follower = new ReplicationFollower(leaderHost, leaderPort, maxStalenessMillis, store);
+        TransactionManager transactions = new TransactionManager(new ShardedBookRepository(store),
+                new ShardedUserRepository(store), new ShardedLoanRepository(store));
+        this.bookService = new BookService(transactions);
+        UserService userService = new UserService(transactions.getUserRepository());
+        this.loanService = new LoanService(transactions, bookService, userService);
+
+        this.server = HttpServer.create(new InetSocketAddress(httpPort), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2));
+        server.createContext("/books/search", exchange -> handle(exchange, json ->
+                BookCodec.INSTANCE.writeJsonArray(bookService.searchBooksByTitle(param(exchange, "q")), json)));
+        server.createContext("/books", exchange -> handle(exchange, json ->
+                BookCodec.INSTANCE.writeJsonArray(bookService.getAllBooks(), json)));
+        server.createContext("/loans/overdue", exchange -> handle(exchange, json ->
+                LoanCodec.INSTANCE.writeJsonArray(loanService.getOverdueLoans(), json)));
+    }
+
+    public void start() {
+        follower.start();
+        server.start();
+    }
+
+    public void stop() throws IOException {
+        server.stop(0);
+        follower.stop();
+    }
+
+    private void handle(HttpExchange exchange, Query query) throws IOException {
+        try (exchange) {
+            int status = 200;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            JsonOutput json = new JsonOutput(body, 4096);
+            try {
+                follower.checkFreshness();
+                query.write(json);
+            } catch (IllegalStateException e) {
+                status = 503;
+                body.reset();
+                json = new JsonOutput(body, 4096);
+                json.beginObject().name("error").value(e.getMessage()).endObject();
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body.reset();
+                json = new JsonOutput(body, 4096);
+                json.beginObject().name("error").value(e.getMessage()).endObject();
+            } catch (RuntimeException e) {
+                System.err.println("[replication] Erreur interne sur " + exchange.getRequestURI().getPath() + " : " + e);
+                e.printStackTrace();
+                status = 500;
+                body.reset();
+                json = new JsonOutput(body, 4096);
+                json.beginObject().name("error").value("Erreur interne").endObject();
+            }
+            json.flush();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.getResponseHeaders().set("X-Replica-Sequence", Long.toString(follower.getAppliedSequence()));
+            exchange.sendResponseHeaders(status, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        }
+    }
+
+    private static String param(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8).equals(name)) {
+                    return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Paramètre manquant : " + name);
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        void write(JsonOutput json) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : java replication.ReplicaNode <hôteLeader:port> <portHttp> [fraîcheurMs] [shards]");
+            return;
+        }
+        String[] leader = args[0].split(":");
+        int httpPort = Integer.parseInt(args[1]);
+        long staleness = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        int shards = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ReplicaNode node = new ReplicaNode(leader[0], Integer.parseInt(leader[1]), httpPort, staleness, shards);
+        node.start();
+        System.out.printf("Réplica de %s en écoute sur http://localhost:%d (fraîcheur max %d ms)%n",
+                args[0], httpPort, staleness);
+    }
+}
@@ -0,0 +1,94 @@
+package replication;
+
+import model.Book;
+import query.Query;
+import query.QueryResult;
+import repository.BookRepository;
+import repository.EntityHandle;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pattern : Decorator
+ * Pourquoi : Ajoute la réplication à n'importe quel BookRepository sans le modifier :
+ * chaque écriture réussie est ajoutée au journal des mutations du leader.
+ * Lien : https://refactoring.guru/fr/design-patterns/decorator
+ */
+public class ReplicatingBookRepository implements BookRepository {
+
+    private final BookRepository delegate;
+    private final MutationLog log;
+
+    public ReplicatingBookRepository(BookRepository delegate, MutationLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    @Override
+    public void save(Book book) {
+        delegate.save(book);
+        log.append(Mutation.putBook(book));
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return delegate.findByIsbn(isbn);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Book> findByTitleContaining(String keyword) {
+        return delegate.findByTitleContaining(keyword);
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return delegate.findByAuthor(author);
+    }
+
+    @Override
+    public List<Book> findAllAvailable() {
+        return delegate.findAllAvailable();
+    }
+
+    @Override
+    public boolean deleteByIsbn(String isbn) {
+        boolean deleted = delegate.deleteByIsbn(isbn);
+        if (deleted) {
+            log.append(Mutation.deleteBook(isbn));
+        }
+        return deleted;
+    }
+
+    @Override
+    public void update(Book book) {
+        delegate.update(book);
+        log.append(Mutation.putBook(book));
+    }
+
+    @Override
+    public QueryResult<Book> query(Query<Book> query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public EntityHandle<Book> resolve(String isbn) {
+        return delegate.resolve(isbn);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<Book> handle) {
+        return delegate.isCurrent(handle);
+    }
+
+    @Override
+    public void update(EntityHandle<Book> handle, Book book) {
+        delegate.update(handle, book);
+        log.append(Mutation.putBook(book));
+    }
+}
@@ -0,0 +1,94 @@
+package replication;
+
+import model.Loan;
+import query.Query;
+import query.QueryResult;
+import repository.EntityHandle;
+import repository.LoanRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pattern : Decorator
+ * Journalise les écritures d'un LoanRepository pour les réplicas
+ */
+public class ReplicatingLoanRepository implements LoanRepository {
+
+    private final LoanRepository delegate;
+    private final MutationLog log;
+
+    public ReplicatingLoanRepository(LoanRepository delegate, MutationLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    @Override
+    public void save(Loan loan) {
+        delegate.save(loan);
+        log.append(Mutation.putLoan(loan));
+    }
+
+    @Override
+    public Optional<Loan> findById(String loanId) {
+        return delegate.findById(loanId);
+    }
+
+    @Override
+    public List<Loan> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Loan> findByUserId(String userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public List<Loan> findByIsbn(String isbn) {
+        return delegate.findByIsbn(isbn);
+    }
+
+    @Override
+    public List<Loan> findActiveLoans() {
+        return delegate.findActiveLoans();
+    }
+
+    @Override
+    public List<Loan> findOverdueLoans() {
+        return delegate.findOverdueLoans();
+    }
+
+    @Override
+    public void update(Loan loan) {
+        delegate.update(loan);
+        log.append(Mutation.putLoan(loan));
+    }
+
+    @Override
+    public QueryResult<Loan> query(Query<Loan> query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public EntityHandle<Loan> resolve(String loanId) {
+        return delegate.resolve(loanId);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<Loan> handle) {
+        return delegate.isCurrent(handle);
+    }
+
+    @Override
+    public void update(EntityHandle<Loan> handle, Loan loan) {
+        delegate.update(handle, loan);
+        log.append(Mutation.putLoan(loan));
+    }
+
+    @Override
+    public void insert(Loan loan) {
+        delegate.insert(loan);
+        log.append(Mutation.putLoan(loan));
+    }
+}
@@ -0,0 +1,63 @@
+package replication;
+
+import model.User;
+import repository.EntityHandle;
+import repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pattern : Decorator
+ * Journalise les écritures d'un UserRepository pour les réplicas
+ */
+public class ReplicatingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final MutationLog log;
+
+    public ReplicatingUserRepository(UserRepository delegate, MutationLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    @Override
+    public void save(User user) {
+        delegate.save(user);
+        log.append(Mutation.putUser(user));
+    }
+
+    @Override
+    public Optional<User> findById(String userId) {
+        return delegate.findById(userId);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public boolean deleteById(String userId) {
+        boolean deleted = delegate.deleteById(userId);
+        if (deleted) {
+            log.append(Mutation.deleteUser(userId));
+        }
+        return deleted;
+    }
+
+    @Override
+    public EntityHandle<User> resolve(String userId) {
+        return delegate.resolve(userId);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<User> handle) {
+        return delegate.isCurrent(handle);
+    }
+}
@@ -0,0 +1,205 @@
+package replication;
+
+import codec.BinaryInput;
+import model.Book;
+import model.Loan;
+import model.User;
+import util.ShardedDataStore;
+
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Côté réplica : reçoit le journal du leader et l'applique à un ShardedDataStore local
+ *
+ * Les lectures se font pendant l'application des mutations (verrous par shard).
+ * Le réplica garantit une borne de fraîcheur : il note le dernier instant où il avait
+ * appliqué tout ce que le leader annonçait (tête du journal reçue dans chaque trame).
+ * Si cet instant date de plus de maxStalenessMillis (leader arrêté, réseau coupé,
+ * réplica trop lent), checkFreshness() refuse de servir des données potentiellement périmées.
+ * Après une coupure, le réplica se reconnecte et reprend au dernier numéro appliqué,
+ * s'il suit toujours le même journal (logId). Après un redémarrage du leader, ou si
+ * le journal a été tronqué au-delà de sa position, le leader lui envoie un instantané :
+ * le store local est vidé puis rechargé, et le réplica se déclare en retard
+ * (checkFreshness) jusqu'à ce qu'il ait rattrapé le nouveau journal.
+ * Après chaque trame, le réplica acquitte son dernier numéro appliqué ; le leader
+ * s'en sert pour tronquer son journal.
+ */
+public class ReplicationFollower {
+
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final long maxStalenessMillis;
+    private final ShardedDataStore store;
+
+    private volatile long logId;  // Journal suivi (0 : aucun)
+    private volatile long appliedSequence;
+    private volatile long caughtUpNanos;
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread receiver;
+
+    public ReplicationFollower(String host, int port, long maxStalenessMillis, ShardedDataStore store) {
+        this.host = host;
+        this.port = port;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.store = store;
+    }
+
+    public void start() {
+        running = true;
+        receiver = new Thread(this::receiveLoop, "replication-receive");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    public void stop() throws IOException {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getLogId() {
+        return logId;
+    }
+
+    /**
+     * Délai depuis le dernier instant où le réplica était à jour (Long.MAX_VALUE si jamais synchronisé)
+     */
+    public long getStalenessMillis() {
+        long last = caughtUpNanos;
+        return last == 0 ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - last);
+    }
+
+    /**
+     * Lève une exception si les données locales peuvent dépasser la borne de fraîcheur
+     */
+    public void checkFreshness() {
+        long staleness = getStalenessMillis();
+        if (staleness > maxStalenessMillis) {
+            throw new IllegalStateException("Réplica en retard sur le leader ("
+                    + (staleness == Long.MAX_VALUE ? "jamais synchronisé" : staleness + " ms") + ")");
+        }
+    }
+
+    private void receiveLoop() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                connection.connect(new InetSocketAddress(host, port));
+                connection.setTcpNoDelay(true);
+                socket = connection;
+                DataOutputStream acks = new DataOutputStream(connection.getOutputStream());
+                acks.writeLong(logId);
+                acks.writeLong(appliedSequence);
+                acks.flush();
+
+                BinaryInput in = new BinaryInput(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+                while (running) {
+                    readFrame(in);
+                    acks.writeLong(appliedSequence);
+                    acks.flush();
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[replication] Leader injoignable (" + e.getMessage()
+                            + "), nouvelle tentative dans " + RECONNECT_DELAY_MILLIS + " ms");
+                    sleepQuietly();
+                }
+            }
+        }
+    }
+
+    private void readFrame(BinaryInput in) throws IOException {
+        long frame = in.readVarint();
+        long head = in.readVarint();
+        if (frame == MutationCodec.FRAME_SNAPSHOT) {
+            readSnapshot(in);
+        } else if (frame == MutationCodec.FRAME_MUTATIONS) {
+            long count = in.readVarint();
+            for (long i = 0; i < count; i++) {
+                Mutation mutation = MutationCodec.read(in);
+                if (mutation.getSequence() > appliedSequence) {
+                    apply(mutation);
+                    appliedSequence = mutation.getSequence();
+                }
+            }
+        } else if (frame != MutationCodec.FRAME_HEARTBEAT) {
+            throw new IOException("Trame de réplication inconnue : " + frame);
+        }
+        if (appliedSequence >= head) {
+            caughtUpNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Remplace tout le store local par l'instantané du leader
+     */
+    private void readSnapshot(BinaryInput in) throws IOException {
+        long newLogId = in.readSignedVarint();
+        long sequence = in.readVarint();
+        long count = in.readVarint();
+        caughtUpNanos = 0; // Store incomplet pendant le rechargement : lectures refusées
+        logId = 0;
+        store.clear();
+        for (long i = 0; i < count; i++) {
+            apply(MutationCodec.read(in));
+        }
+        appliedSequence = sequence;
+        logId = newLogId;
+    }
+
+    /**
+     * Applique une mutation (upsert ou suppression) au shard concerné
+     */
+    private void apply(Mutation mutation) {
+        switch (mutation.getKind()) {
+            case PUT_BOOK -> {
+                Book book = mutation.getBook();
+                ShardedDataStore.Shard shard = store.bookShard(book.getIsbn());
+                shard.write(() -> shard.books().put(book.getIsbn(), book));
+            }
+            case DELETE_BOOK -> {
+                ShardedDataStore.Shard shard = store.bookShard(mutation.getKey());
+                shard.write(() -> shard.books().remove(mutation.getKey()));
+            }
+            case PUT_USER -> {
+                User user = mutation.getUser();
+                ShardedDataStore.Shard shard = store.userShard(user.getUserId());
+                shard.write(() -> shard.users().put(user.getUserId(), user));
+            }
+            case DELETE_USER -> {
+                ShardedDataStore.Shard shard = store.userShard(mutation.getKey());
+                shard.write(() -> shard.users().remove(mutation.getKey()));
+            }
+            case PUT_LOAN -> {
+                Loan loan = mutation.getLoan();
+                store.registerLoan(loan);
+                ShardedDataStore.Shard shard = store.userShard(loan.getUserId());
+                shard.write(() -> {
+                    shard.indexLoan(loan);
+                    return null;
+                });
+            }
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package replication;
+
+import codec.BinaryOutput;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Côté leader de la réplication : envoie le journal des mutations aux réplicas
+ *
+ * Chaque réplica se connecte en TCP et annonce le journal qu'il suit (logId) et
+ * le dernier numéro d'ordre qu'il a appliqué. S'il suit un autre journal (leader
+ * redémarré) ou si ce numéro a déjà été retiré du journal, il reçoit d'abord un
+ * instantané de l'état du store. Un thread dédié lui envoie ensuite le journal par
+ * lots (jusqu'à BATCH_SIZE mutations, un seul flush par lot), sans attendre
+ * d'acquittement : les lots s'enchaînent sur la socket (pipeline). Chaque trame
+ * annonce la tête du journal au moment de l'envoi ; quand il n'y a rien à envoyer,
+ * une trame HEARTBEAT part toutes les HEARTBEAT_MILLIS pour que le réplica sache
+ * qu'il est toujours à jour.
+ *
+ * Les réplicas renvoient leur dernier numéro appliqué après chaque trame ; toutes
+ * les TRUNCATE_MILLIS, le journal est tronqué au plus petit numéro acquitté par
+ * les réplicas connectés (en entier s'il n'y en a aucun). Un réplica trop lent ne
+ * retient pas plus de MAX_RETAINED mutations : au-delà, il repartira d'un instantané.
+ */
+public class ReplicationLeader {
+
+    static final int BATCH_SIZE = 1024;
+    static final long HEARTBEAT_MILLIS = 100;
+    static final long TRUNCATE_MILLIS = 1000;
+    static final long MAX_RETAINED = 1_000_000;
+
+    private final MutationLog log;
+    private final ServerSocket serverSocket;
+    // Réplicas connectés → dernier numéro qu'ils ont acquitté (0 pendant la poignée de main)
+    private final Map<Socket, Long> followers = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public ReplicationLeader(int port, MutationLog log) throws IOException {
+        this.log = log;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+    }
+
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        Thread truncator = new Thread(this::truncateLoop, "replication-truncate");
+        truncator.setDaemon(true);
+        truncator.start();
+    }
+
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : followers.keySet()) {
+            socket.close();
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.put(socket, 0L);
+                Thread sender = new Thread(() -> ship(socket), "replication-ship-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[replication] Connexion refusée : " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tronque périodiquement le journal à ce que tous les réplicas connectés ont appliqué
+     */
+    private void truncateLoop() {
+        while (running) {
+            try {
+                Thread.sleep(TRUNCATE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long last = log.getLastSequence();
+            long appliedByAll = followers.values().stream()
+                    .mapToLong(Long::longValue)
+                    .min()
+                    .orElse(last);
+            log.truncate(Math.max(appliedByAll, last - MAX_RETAINED));
+        }
+    }
+
+    /**
+     * Envoie le journal à un réplica à partir du numéro qu'il a annoncé
+     */
+    private void ship(Socket socket) {
+        try (socket) {
+            DataInputStream acks = new DataInputStream(socket.getInputStream());
+            long followedLog = acks.readLong();
+            long sent = acks.readLong();
+            BinaryOutput out = new BinaryOutput(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            if (followedLog != log.getLogId() || sent > log.getLastSequence()) {
+                sent = sendSnapshot(out);
+            } else {
+                followers.put(socket, sent);
+            }
+            while (running) {
+                List<Mutation> batch = log.awaitBatch(sent, BATCH_SIZE, HEARTBEAT_MILLIS);
+                long head = log.getLastSequence();
+                if (batch == null) {
+                    sent = sendSnapshot(out); // Position déjà retirée du journal
+                } else if (batch.isEmpty()) {
+                    out.writeVarint(MutationCodec.FRAME_HEARTBEAT);
+                    out.writeVarint(head);
+                } else {
+                    out.writeVarint(MutationCodec.FRAME_MUTATIONS);
+                    out.writeVarint(head);
+                    out.writeVarint(batch.size());
+                    for (Mutation mutation : batch) {
+                        MutationCodec.write(mutation, out);
+                    }
+                    sent = batch.get(batch.size() - 1).getSequence();
+                }
+                out.flush();
+                while (acks.available() >= Long.BYTES) {
+                    followers.put(socket, acks.readLong());
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("[replication] Réplica déconnecté : " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Envoie l'état complet du store ; renvoie le numéro à partir duquel continuer
+     */
+    private long sendSnapshot(BinaryOutput out) throws IOException {
+        MutationLog.Snapshot snapshot = log.snapshot();
+        out.writeVarint(MutationCodec.FRAME_SNAPSHOT);
+        out.writeVarint(log.getLastSequence());
+        out.writeSignedVarint(log.getLogId());
+        out.writeVarint(snapshot.sequence());
+        out.writeVarint(snapshot.state().size());
+        for (Mutation mutation : snapshot.state()) {
+            MutationCodec.write(mutation, out);
+        }
+        out.flush();
+        return snapshot.sequence();
+    }
+}
@@ -1,6 +1,10 @@
 package repository;
 
 import model.Book;
+import query.IndexedTable;
+import query.Query;
+import query.QueryResult;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -51,4 +55,36 @@ public interface BookRepository {
      * Met à jour un livre existant
      */
     void update(Book book);
+
+    /**
+     * Recherche par critères composables (voir query.Criteria), avec le plan suivi ;
+     * par défaut un parcours complet, les implémentations indexées font mieux
+     */
+    default QueryResult<Book> query(Query<Book> query) {
+        return IndexedTable.scan("livres", query, findAll());
+    }
+
+    // ==================== HANDLES (une résolution par opération) ====================
+
+    /**
+     * Résout un livre une fois pour toute une opération (handle absent s'il n'existe pas)
+     */
+    default EntityHandle<Book> resolve(String isbn) {
+        return EntityHandle.of(isbn, findByIsbn(isbn).orElse(null), EntityHandle.NO_SLOT);
+    }
+
+    /**
+     * Vrai si le livre est toujours dans la version résolue (ou toujours absent)
+     */
+    default boolean isCurrent(EntityHandle<Book> handle) {
+        return findByIsbn(handle.getId()).orElse(null) == handle.get();
+    }
+
+    /**
+     * Remplace la version résolue par book, sans nouvelle recherche quand le
+     * stockage connaît la position du livre
+     */
+    default void update(EntityHandle<Book> handle, Book book) {
+        update(book);
+    }
 }
\ No newline at end of file
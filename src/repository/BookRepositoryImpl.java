@@ -1,6 +1,12 @@
 package repository;
 
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
 import model.Book;
+import query.Query;
+import query.QueryResult;
 import util.DataStore;
 
 import java.util.List;
@@ -13,6 +19,17 @@ import java.util.stream.Collectors;
  */
 public class BookRepositoryImpl implements BookRepository {
 
+    // Métriques : recherches par clé et parcours complets
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.book.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.book.scans");
+
+    // Statistiques par requête (lignes examinées / renvoyées, temps)
+    private static final QueryStats FIND_BY_ISBN = QueryProfiler.getInstance().stats("BookRepository.findByIsbn");
+    private static final QueryStats FIND_BY_TITLE = QueryProfiler.getInstance().stats("BookRepository.findByTitleContaining");
+    private static final QueryStats FIND_BY_AUTHOR = QueryProfiler.getInstance().stats("BookRepository.findByAuthor");
+    private static final QueryStats FIND_ALL_AVAILABLE = QueryProfiler.getInstance().stats("BookRepository.findAllAvailable");
+    private static final QueryStats QUERY = QueryProfiler.getInstance().stats("BookRepository.query");
+
     private final DataStore dataStore;
 
     public BookRepositoryImpl() {
@@ -22,44 +39,85 @@ public class BookRepositoryImpl implements BookRepository {
 
     @Override
     public void save(Book book) {
-        // Vérifie que le livre n'existe pas déjà
-        if (findByIsbn(book.getIsbn()).isPresent()) {
-            throw new IllegalArgumentException("Un livre avec cet ISBN existe déjà : " + book.getIsbn());
+        // Vérification et ajout sous le verrou d'écriture de la liste : deux save
+        // concurrents du même ISBN ne peuvent pas réussir tous les deux
+        synchronized (dataStore.getBooks()) {
+            if (findByIsbn(book.getIsbn()).isPresent()) {
+                throw new IllegalArgumentException("Un livre avec cet ISBN existe déjà : " + book.getIsbn());
+            }
+            dataStore.getBooks().add(book);
         }
-        dataStore.getBooks().add(book);
     }
 
     @Override
     public Optional<Book> findByIsbn(String isbn) {
-        return dataStore.getBooks().stream()
-                .filter(book -> book.getIsbn().equals(isbn))
-                .findFirst();
+        LOOKUPS.increment();
+        long start = FIND_BY_ISBN.start();
+        List<Book> all = dataStore.getBooks().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            Book book = all.get(i);
+            if (book.getIsbn().equals(isbn)) {
+                FIND_BY_ISBN.record(start, i + 1, 1);
+                return Optional.of(book);
+            }
+        }
+        FIND_BY_ISBN.record(start, all.size(), 0);
+        return Optional.empty();
     }
 
     @Override
     public List<Book> findAll() {
-        return dataStore.getBooks();
+        return dataStore.getBooks().snapshot();
     }
 
     @Override
     public List<Book> findByTitleContaining(String keyword) {
-        return dataStore.getBooks().stream()
+        SCANS.increment();
+        long start = FIND_BY_TITLE.start();
+        List<Book> all = dataStore.getBooks().snapshot();
+        List<Book> result = all.stream()
                 .filter(book -> book.getTitle().toLowerCase().contains(keyword.toLowerCase()))
                 .collect(Collectors.toList());
+        FIND_BY_TITLE.record(start, all.size(), result.size());
+        return result;
     }
 
     @Override
     public List<Book> findByAuthor(String author) {
-        return dataStore.getBooks().stream()
+        SCANS.increment();
+        long start = FIND_BY_AUTHOR.start();
+        List<Book> all = dataStore.getBooks().snapshot();
+        List<Book> result = all.stream()
                 .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
                 .collect(Collectors.toList());
+        FIND_BY_AUTHOR.record(start, all.size(), result.size());
+        return result;
     }
 
     @Override
     public List<Book> findAllAvailable() {
-        return dataStore.getBooks().stream()
+        SCANS.increment();
+        long start = FIND_ALL_AVAILABLE.start();
+        List<Book> all = dataStore.getBooks().snapshot();
+        List<Book> result = all.stream()
                 .filter(Book::isAvailable)
                 .collect(Collectors.toList());
+        FIND_ALL_AVAILABLE.record(start, all.size(), result.size());
+        return result;
+    }
+
+    /**
+     * Requête planifiée sur les index du DataStore
+     */
+    @Override
+    public QueryResult<Book> query(Query<Book> query) {
+        long start = QUERY.start();
+        QueryResult<Book> result = dataStore.getBookTable().execute(query);
+        if (!result.getPlan().isIndexed()) {
+            SCANS.increment();
+        }
+        QUERY.record(start, result.getPlan().getRowsExamined(), result.getRows().size());
+        return result;
     }
 
     @Override
@@ -69,12 +127,57 @@ public class BookRepositoryImpl implements BookRepository {
 
     @Override
     public void update(Book book) {
-        Optional<Book> existingBook = findByIsbn(book.getIsbn());
-        if (existingBook.isEmpty()) {
-            throw new IllegalArgumentException("Livre introuvable : " + book.getIsbn());
+        // Recherche et remplacement sous le verrou d'écriture : une écriture concurrente
+        // ne peut ni faire échouer la mise à jour ni être écrasée par une version périmée
+        synchronized (dataStore.getBooks()) {
+            Optional<Book> existingBook = findByIsbn(book.getIsbn());
+            if (existingBook.isEmpty()) {
+                throw new IllegalArgumentException("Livre introuvable : " + book.getIsbn());
+            }
+            // Remplace l'ancien par le nouveau en une seule version (jamais "supprimé mais pas réinséré")
+            dataStore.getBooks().replace(existingBook.get(), book);
+        }
+    }
+
+    // ==================== HANDLES ====================
+
+    @Override
+    public EntityHandle<Book> resolve(String isbn) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ISBN.start();
+        List<Book> all = dataStore.getBooks().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            Book book = all.get(i);
+            if (book.getIsbn().equals(isbn)) {
+                FIND_BY_ISBN.record(start, i + 1, 1);
+                return EntityHandle.of(isbn, book, i);
+            }
+        }
+        FIND_BY_ISBN.record(start, all.size(), 0);
+        return EntityHandle.absent(isbn);
+    }
+
+    /**
+     * Vérification à la position résolue ; nouvelle recherche seulement si un
+     * retrait a décalé le livre (ou s'il était absent)
+     */
+    @Override
+    public boolean isCurrent(EntityHandle<Book> handle) {
+        List<Book> all = dataStore.getBooks().snapshot();
+        int slot = handle.getSlot();
+        if (slot != EntityHandle.NO_SLOT && slot < all.size() && all.get(slot) == handle.get()) {
+            return true;
+        }
+        return findByIsbn(handle.getId()).orElse(null) == handle.get();
+    }
+
+    @Override
+    public void update(EntityHandle<Book> handle, Book book) {
+        if (!handle.isPresent()) {
+            throw new IllegalArgumentException("Livre introuvable : " + handle.getId());
+        }
+        if (!dataStore.getBooks().replaceAt(handle.getSlot(), handle.get(), book)) {
+            throw new IllegalArgumentException("Livre modifié ou supprimé entre-temps : " + book.getIsbn());
         }
-        // Supprime l'ancien et ajoute le nouveau
-        deleteByIsbn(book.getIsbn());
-        dataStore.getBooks().add(book);
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package repository;
+
+/**
+ * Entité résolue une fois pour toute une opération (emprunt, retour...)
+ *
+ * Pourquoi : Une même opération relisait le même livre ou le même lecteur à
+ * chaque étape (contrôle, mise à jour, validation du commit), et chaque lecture
+ * est une recherche dans le repository. Le handle retient la version lue (son
+ * identité sert de version, les entités étant remplacées et jamais modifiées en
+ * place) et sa position dans le stockage quand le repository la connaît : la
+ * validation et la mise à jour vont directement à cette position.
+ */
+public final class EntityHandle<T> {
+
+    /**
+     * Position inconnue (stockage sans positions, ou entité absente)
+     */
+    public static final int NO_SLOT = -1;
+
+    private final String id;
+    private final T entity;
+    private final int slot;
+
+    private EntityHandle(String id, T entity, int slot) {
+        this.id = id;
+        this.entity = entity;
+        this.slot = slot;
+    }
+
+    /**
+     * @param entity version lue (null si absente au moment de la résolution)
+     * @param slot position de l'entité dans le stockage, ou NO_SLOT
+     */
+    public static <T> EntityHandle<T> of(String id, T entity, int slot) {
+        return new EntityHandle<>(id, entity, entity == null ? NO_SLOT : slot);
+    }
+
+    public static <T> EntityHandle<T> absent(String id) {
+        return new EntityHandle<>(id, null, NO_SLOT);
+    }
+
+    public String getId() { return id; }
+    public T get() { return entity; }
+    public int getSlot() { return slot; }
+
+    public boolean isPresent() {
+        return entity != null;
+    }
+}
@@ -1,6 +1,10 @@
 package repository;
 
 import model.Loan;
+import query.IndexedTable;
+import query.Query;
+import query.QueryResult;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +29,44 @@ public interface LoanRepository {
     List<Loan> findOverdueLoans(); // Emprunts en retard
 
     void update(Loan loan);
+
+    /**
+     * Recherche par critères composables (voir query.Criteria), avec le plan suivi ;
+     * par défaut un parcours complet, les implémentations indexées font mieux
+     */
+    default QueryResult<Loan> query(Query<Loan> query) {
+        return IndexedTable.scan("emprunts", query, findAll());
+    }
+
+    // ==================== HANDLES (une résolution par opération) ====================
+
+    /**
+     * Résout un emprunt une fois pour toute une opération
+     */
+    default EntityHandle<Loan> resolve(String loanId) {
+        return EntityHandle.of(loanId, findById(loanId).orElse(null), EntityHandle.NO_SLOT);
+    }
+
+    /**
+     * Vrai si l'emprunt est toujours dans la version résolue (ou toujours absent)
+     */
+    default boolean isCurrent(EntityHandle<Loan> handle) {
+        return findById(handle.getId()).orElse(null) == handle.get();
+    }
+
+    /**
+     * Remplace la version résolue par loan
+     */
+    default void update(EntityHandle<Loan> handle, Loan loan) {
+        update(loan);
+    }
+
+    /**
+     * Ajoute un emprunt dont l'identifiant est déjà garanti unique par l'appelant
+     * (identifiant généré, ou absence vérifiée sous le verrou de commit) :
+     * les implémentations peuvent se passer de la recherche de doublon de save()
+     */
+    default void insert(Loan loan) {
+        save(loan);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,12 @@
 package repository;
 
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
 import model.Loan;
+import query.Query;
+import query.QueryResult;
 import util.DataStore;
 
 import java.util.List;
@@ -13,6 +19,18 @@ import java.util.stream.Collectors;
  */
 public class LoanRepositoryImpl implements LoanRepository {
 
+    // Métriques : recherches par clé et parcours complets
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.loan.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.loan.scans");
+
+    // Statistiques par requête (lignes examinées / renvoyées, temps)
+    private static final QueryStats FIND_BY_ID = QueryProfiler.getInstance().stats("LoanRepository.findById");
+    private static final QueryStats FIND_BY_USER_ID = QueryProfiler.getInstance().stats("LoanRepository.findByUserId");
+    private static final QueryStats FIND_BY_ISBN = QueryProfiler.getInstance().stats("LoanRepository.findByIsbn");
+    private static final QueryStats FIND_ACTIVE = QueryProfiler.getInstance().stats("LoanRepository.findActiveLoans");
+    private static final QueryStats FIND_OVERDUE = QueryProfiler.getInstance().stats("LoanRepository.findOverdueLoans");
+    private static final QueryStats QUERY = QueryProfiler.getInstance().stats("LoanRepository.query");
+
     private final DataStore dataStore;
 
     public LoanRepositoryImpl() {
@@ -21,60 +39,154 @@ public class LoanRepositoryImpl implements LoanRepository {
 
     @Override
     public void save(Loan loan) {
-        if (findById(loan.getLoanId()).isPresent()) {
-            throw new IllegalArgumentException("Un emprunt avec cet ID existe déjà : " + loan.getLoanId());
+        // Vérification et ajout sous le verrou d'écriture de la liste (pas de doublon concurrent)
+        synchronized (dataStore.getLoans()) {
+            if (findById(loan.getLoanId()).isPresent()) {
+                throw new IllegalArgumentException("Un emprunt avec cet ID existe déjà : " + loan.getLoanId());
+            }
+            dataStore.getLoans().add(loan);
         }
-        dataStore.getLoans().add(loan);
     }
 
     @Override
     public Optional<Loan> findById(String loanId) {
-        return dataStore.getLoans().stream()
-                .filter(loan -> loan.getLoanId().equals(loanId))
-                .findFirst();
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            Loan loan = all.get(i);
+            if (loan.getLoanId().equals(loanId)) {
+                FIND_BY_ID.record(start, i + 1, 1);
+                return Optional.of(loan);
+            }
+        }
+        FIND_BY_ID.record(start, all.size(), 0);
+        return Optional.empty();
     }
 
     @Override
     public List<Loan> findAll() {
-        return dataStore.getLoans();
+        return dataStore.getLoans().snapshot();
     }
 
     @Override
     public List<Loan> findByUserId(String userId) {
-        return dataStore.getLoans().stream()
+        SCANS.increment();
+        long start = FIND_BY_USER_ID.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        List<Loan> result = all.stream()
                 .filter(loan -> loan.getUserId().equals(userId))
                 .collect(Collectors.toList());
+        FIND_BY_USER_ID.record(start, all.size(), result.size());
+        return result;
     }
 
     @Override
     public List<Loan> findByIsbn(String isbn) {
-        return dataStore.getLoans().stream()
+        SCANS.increment();
+        long start = FIND_BY_ISBN.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        List<Loan> result = all.stream()
                 .filter(loan -> loan.getIsbn().equals(isbn))
                 .collect(Collectors.toList());
+        FIND_BY_ISBN.record(start, all.size(), result.size());
+        return result;
     }
 
     @Override
     public List<Loan> findActiveLoans() {
-        return dataStore.getLoans().stream()
+        SCANS.increment();
+        long start = FIND_ACTIVE.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        List<Loan> result = all.stream()
                 .filter(loan -> !loan.isReturned())
                 .collect(Collectors.toList());
+        FIND_ACTIVE.record(start, all.size(), result.size());
+        return result;
     }
 
     @Override
     public List<Loan> findOverdueLoans() {
-        return dataStore.getLoans().stream()
+        SCANS.increment();
+        long start = FIND_OVERDUE.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        List<Loan> result = all.stream()
                 .filter(Loan::isOverdue)
                 .collect(Collectors.toList());
+        FIND_OVERDUE.record(start, all.size(), result.size());
+        return result;
+    }
+
+    /**
+     * Requête planifiée sur les index du DataStore
+     */
+    @Override
+    public QueryResult<Loan> query(Query<Loan> query) {
+        long start = QUERY.start();
+        QueryResult<Loan> result = dataStore.getLoanTable().execute(query);
+        if (!result.getPlan().isIndexed()) {
+            SCANS.increment();
+        }
+        QUERY.record(start, result.getPlan().getRowsExamined(), result.getRows().size());
+        return result;
     }
 
     @Override
     public void update(Loan loan) {
-        Optional<Loan> existingLoan = findById(loan.getLoanId());
-        if (existingLoan.isEmpty()) {
-            throw new IllegalArgumentException("Emprunt introuvable : " + loan.getLoanId());
+        // Recherche et remplacement sous le verrou d'écriture (voir BookRepositoryImpl.update)
+        synchronized (dataStore.getLoans()) {
+            Optional<Loan> existingLoan = findById(loan.getLoanId());
+            if (existingLoan.isEmpty()) {
+                throw new IllegalArgumentException("Emprunt introuvable : " + loan.getLoanId());
+            }
+            // Remplace l'ancien par le nouveau en une seule version (jamais "supprimé mais pas réinséré")
+            dataStore.getLoans().replace(existingLoan.get(), loan);
+        }
+    }
+
+    // ==================== HANDLES ====================
+
+    @Override
+    public EntityHandle<Loan> resolve(String loanId) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        List<Loan> all = dataStore.getLoans().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            Loan loan = all.get(i);
+            if (loan.getLoanId().equals(loanId)) {
+                FIND_BY_ID.record(start, i + 1, 1);
+                return EntityHandle.of(loanId, loan, i);
+            }
         }
-        // Remplace l'ancien par le nouveau
-        dataStore.getLoans().remove(existingLoan.get());
+        FIND_BY_ID.record(start, all.size(), 0);
+        return EntityHandle.absent(loanId);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<Loan> handle) {
+        List<Loan> all = dataStore.getLoans().snapshot();
+        int slot = handle.getSlot();
+        if (slot != EntityHandle.NO_SLOT && slot < all.size() && all.get(slot) == handle.get()) {
+            return true;
+        }
+        return findById(handle.getId()).orElse(null) == handle.get();
+    }
+
+    @Override
+    public void update(EntityHandle<Loan> handle, Loan loan) {
+        if (!handle.isPresent()) {
+            throw new IllegalArgumentException("Emprunt introuvable : " + handle.getId());
+        }
+        if (!dataStore.getLoans().replaceAt(handle.getSlot(), handle.get(), loan)) {
+            throw new IllegalArgumentException("Emprunt modifié entre-temps : " + loan.getLoanId());
+        }
+    }
+
+    /**
+     * Ajout sans recherche de doublon (unicité garantie par l'appelant)
+     */
+    @Override
+    public void insert(Loan loan) {
         dataStore.getLoans().add(loan);
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package repository;
+
+import model.Book;
+import query.Query;
+import query.QueryResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pattern : Decorator + Observer
+ * Pourquoi : Les index dérivés du catalogue (autocomplétion, recherche approchée...)
+ * doivent suivre chaque écriture, quel que soit le code qui l'effectue. Le décorateur
+ * prévient ses observateurs après chaque écriture réussie du repository décoré.
+ * Lien : https://refactoring.guru/fr/design-patterns/observer
+ */
+public class ObservableBookRepository implements BookRepository {
+
+    private final BookRepository delegate;
+    private final List<BookListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ObservableBookRepository(BookRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public void addListener(BookListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void save(Book book) {
+        delegate.save(book);
+        listeners.forEach(listener -> listener.onBookSaved(book));
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return delegate.findByIsbn(isbn);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Book> findByTitleContaining(String keyword) {
+        return delegate.findByTitleContaining(keyword);
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return delegate.findByAuthor(author);
+    }
+
+    @Override
+    public List<Book> findAllAvailable() {
+        return delegate.findAllAvailable();
+    }
+
+    @Override
+    public boolean deleteByIsbn(String isbn) {
+        boolean deleted = delegate.deleteByIsbn(isbn);
+        if (deleted) {
+            listeners.forEach(listener -> listener.onBookDeleted(isbn));
+        }
+        return deleted;
+    }
+
+    @Override
+    public void update(Book book) {
+        delegate.update(book);
+        listeners.forEach(listener -> listener.onBookSaved(book));
+    }
+
+    @Override
+    public QueryResult<Book> query(Query<Book> query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public EntityHandle<Book> resolve(String isbn) {
+        return delegate.resolve(isbn);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<Book> handle) {
+        return delegate.isCurrent(handle);
+    }
+
+    @Override
+    public void update(EntityHandle<Book> handle, Book book) {
+        delegate.update(handle, book);
+        listeners.forEach(listener -> listener.onBookSaved(book));
+    }
+
+    /**
+     * Interface Observer pour les écritures du catalogue
+     */
+    public interface BookListener {
+        /**
+         * Livre ajouté ou mis à jour
+         */
+        void onBookSaved(Book book);
+
+        void onBookDeleted(String isbn);
+    }
+}
@@ -0,0 +1,126 @@
+package repository;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
+import model.Book;
+import util.ShardedDataStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Pattern : Repository (implémentation partitionnée)
+ * Les recherches par ISBN vont directement au shard du livre ; les recherches
+ * par titre, auteur ou disponibilité interrogent tous les shards en parallèle.
+ */
+public class ShardedBookRepository implements BookRepository {
+
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.book.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.book.scans");
+
+    private static final QueryStats FIND_BY_ISBN = QueryProfiler.getInstance().stats("BookRepository.findByIsbn");
+    private static final QueryStats FIND_BY_TITLE = QueryProfiler.getInstance().stats("BookRepository.findByTitleContaining");
+    private static final QueryStats FIND_BY_AUTHOR = QueryProfiler.getInstance().stats("BookRepository.findByAuthor");
+    private static final QueryStats FIND_ALL_AVAILABLE = QueryProfiler.getInstance().stats("BookRepository.findAllAvailable");
+
+    private final ShardedDataStore store;
+
+    public ShardedBookRepository(ShardedDataStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void save(Book book) {
+        ShardedDataStore.Shard shard = store.bookShard(book.getIsbn());
+        shard.write(() -> {
+            if (shard.books().putIfAbsent(book.getIsbn(), book) != null) {
+                throw new IllegalArgumentException("Un livre avec cet ISBN existe déjà : " + book.getIsbn());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ISBN.start();
+        ShardedDataStore.Shard shard = store.bookShard(isbn);
+        Book book = shard.read(() -> shard.books().get(isbn));
+        FIND_BY_ISBN.record(start, 1, book == null ? 0 : 1);
+        return Optional.ofNullable(book);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return store.gather(shard -> new ArrayList<>(shard.books().values()));
+    }
+
+    @Override
+    public List<Book> findByTitleContaining(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        return scan(FIND_BY_TITLE, book -> book.getTitle().toLowerCase().contains(lowerKeyword));
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        String lowerAuthor = author.toLowerCase();
+        return scan(FIND_BY_AUTHOR, book -> book.getAuthor().toLowerCase().contains(lowerAuthor));
+    }
+
+    @Override
+    public List<Book> findAllAvailable() {
+        return scan(FIND_ALL_AVAILABLE, Book::isAvailable);
+    }
+
+    @Override
+    public boolean deleteByIsbn(String isbn) {
+        ShardedDataStore.Shard shard = store.bookShard(isbn);
+        return shard.write(() -> shard.books().remove(isbn) != null);
+    }
+
+    @Override
+    public void update(Book book) {
+        ShardedDataStore.Shard shard = store.bookShard(book.getIsbn());
+        shard.write(() -> {
+            if (shard.books().replace(book.getIsbn(), book) == null) {
+                throw new IllegalArgumentException("Livre introuvable : " + book.getIsbn());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Validation d'un handle : lecture directe dans le shard, sans compter une recherche
+     */
+    @Override
+    public boolean isCurrent(EntityHandle<Book> handle) {
+        ShardedDataStore.Shard shard = store.bookShard(handle.getId());
+        return shard.read(() -> shard.books().get(handle.getId())) == handle.get();
+    }
+
+    /**
+     * Parcours de tous les shards en parallèle (scatter-gather)
+     */
+    private List<Book> scan(QueryStats stats, Predicate<Book> filter) {
+        SCANS.increment();
+        long start = stats.start();
+        LongAdder examined = new LongAdder();
+        List<Book> result = store.gather(shard -> {
+            examined.add(shard.books().size());
+            List<Book> matches = new ArrayList<>();
+            for (Book book : shard.books().values()) {
+                if (filter.test(book)) {
+                    matches.add(book);
+                }
+            }
+            return matches;
+        });
+        stats.record(start, examined.sum(), result.size());
+        return result;
+    }
+}
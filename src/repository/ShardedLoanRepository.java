@@ -0,0 +1,139 @@
+package repository;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
+import model.Loan;
+import util.ShardedDataStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Pattern : Repository (implémentation partitionnée)
+ * Les emprunts vivent dans le shard de leur lecteur : "mes emprunts" ne touche
+ * qu'un shard. La recherche par ID passe par le répertoire global du store ;
+ * les recherches par ISBN et les listes globales interrogent tous les shards.
+ */
+public class ShardedLoanRepository implements LoanRepository {
+
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.loan.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.loan.scans");
+
+    private static final QueryStats FIND_BY_ID = QueryProfiler.getInstance().stats("LoanRepository.findById");
+    private static final QueryStats FIND_BY_USER_ID = QueryProfiler.getInstance().stats("LoanRepository.findByUserId");
+    private static final QueryStats FIND_BY_ISBN = QueryProfiler.getInstance().stats("LoanRepository.findByIsbn");
+    private static final QueryStats FIND_ACTIVE = QueryProfiler.getInstance().stats("LoanRepository.findActiveLoans");
+    private static final QueryStats FIND_OVERDUE = QueryProfiler.getInstance().stats("LoanRepository.findOverdueLoans");
+
+    private final ShardedDataStore store;
+
+    public ShardedLoanRepository(ShardedDataStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void save(Loan loan) {
+        ShardedDataStore.Shard shard = store.userShard(loan.getUserId());
+        // Enregistré dans le répertoire sous le verrou du shard : un update concurrent
+        // qui trouve l'emprunt attend qu'il soit indexé, au lieu d'être écrasé ensuite
+        shard.write(() -> {
+            if (!store.registerLoan(loan)) {
+                throw new IllegalArgumentException("Un emprunt avec cet ID existe déjà : " + loan.getLoanId());
+            }
+            shard.indexLoan(loan);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Loan> findById(String loanId) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        ShardedDataStore.Shard shard = store.loanShard(loanId);
+        Loan loan = shard == null ? null : shard.read(() -> shard.loans().get(loanId));
+        FIND_BY_ID.record(start, 1, loan == null ? 0 : 1);
+        return Optional.ofNullable(loan);
+    }
+
+    @Override
+    public List<Loan> findAll() {
+        return store.gather(shard -> new ArrayList<>(shard.loans().values()));
+    }
+
+    @Override
+    public List<Loan> findByUserId(String userId) {
+        LOOKUPS.increment();
+        long start = FIND_BY_USER_ID.start();
+        ShardedDataStore.Shard shard = store.userShard(userId);
+        List<Loan> result = shard.read(() -> new ArrayList<>(shard.loansOfUser(userId)));
+        FIND_BY_USER_ID.record(start, result.size(), result.size());
+        return result;
+    }
+
+    @Override
+    public List<Loan> findByIsbn(String isbn) {
+        SCANS.increment();
+        long start = FIND_BY_ISBN.start();
+        List<Loan> result = store.gather(shard -> new ArrayList<>(shard.loansOfBook(isbn)));
+        FIND_BY_ISBN.record(start, result.size(), result.size());
+        return result;
+    }
+
+    @Override
+    public List<Loan> findActiveLoans() {
+        return scan(FIND_ACTIVE, loan -> !loan.isReturned());
+    }
+
+    @Override
+    public List<Loan> findOverdueLoans() {
+        return scan(FIND_OVERDUE, Loan::isOverdue);
+    }
+
+    @Override
+    public void update(Loan loan) {
+        ShardedDataStore.Shard shard = store.loanShard(loan.getLoanId());
+        if (shard == null) {
+            throw new IllegalArgumentException("Emprunt introuvable : " + loan.getLoanId());
+        }
+        shard.write(() -> {
+            shard.indexLoan(loan);
+            return null;
+        });
+    }
+
+    /**
+     * Validation d'un handle : lecture directe dans le shard, sans compter une recherche
+     */
+    @Override
+    public boolean isCurrent(EntityHandle<Loan> handle) {
+        ShardedDataStore.Shard shard = store.loanShard(handle.getId());
+        Loan loan = shard == null ? null : shard.read(() -> shard.loans().get(handle.getId()));
+        return loan == handle.get();
+    }
+
+    /**
+     * Parcours de tous les shards en parallèle (scatter-gather)
+     */
+    private List<Loan> scan(QueryStats stats, Predicate<Loan> filter) {
+        SCANS.increment();
+        long start = stats.start();
+        LongAdder examined = new LongAdder();
+        List<Loan> result = store.gather(shard -> {
+            examined.add(shard.loans().size());
+            List<Loan> matches = new ArrayList<>();
+            for (Loan loan : shard.loans().values()) {
+                if (filter.test(loan)) {
+                    matches.add(loan);
+                }
+            }
+            return matches;
+        });
+        stats.record(start, examined.sum(), result.size());
+        return result;
+    }
+}
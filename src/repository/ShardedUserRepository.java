@@ -0,0 +1,92 @@
+package repository;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
+import model.User;
+import util.ShardedDataStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pattern : Repository (implémentation partitionnée)
+ * Les utilisateurs sont routés par hachage de leur ID ; la recherche par email
+ * interroge tous les shards en parallèle.
+ */
+public class ShardedUserRepository implements UserRepository {
+
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.user.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.user.scans");
+
+    private static final QueryStats FIND_BY_ID = QueryProfiler.getInstance().stats("UserRepository.findById");
+    private static final QueryStats FIND_BY_EMAIL = QueryProfiler.getInstance().stats("UserRepository.findByEmail");
+
+    private final ShardedDataStore store;
+
+    public ShardedUserRepository(ShardedDataStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void save(User user) {
+        ShardedDataStore.Shard shard = store.userShard(user.getUserId());
+        shard.write(() -> {
+            if (shard.users().putIfAbsent(user.getUserId(), user) != null) {
+                throw new IllegalArgumentException("Un utilisateur avec cet ID existe déjà : " + user.getUserId());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<User> findById(String userId) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        ShardedDataStore.Shard shard = store.userShard(userId);
+        User user = shard.read(() -> shard.users().get(userId));
+        FIND_BY_ID.record(start, 1, user == null ? 0 : 1);
+        return Optional.ofNullable(user);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.gather(shard -> new ArrayList<>(shard.users().values()));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        SCANS.increment();
+        long start = FIND_BY_EMAIL.start();
+        LongAdder examined = new LongAdder();
+        List<User> matches = store.gather(shard -> {
+            examined.add(shard.users().size());
+            for (User user : shard.users().values()) {
+                if (user.getEmail().equalsIgnoreCase(email)) {
+                    return List.of(user);
+                }
+            }
+            return List.of();
+        });
+        FIND_BY_EMAIL.record(start, examined.sum(), matches.isEmpty() ? 0 : 1);
+        return matches.stream().findFirst();
+    }
+
+    @Override
+    public boolean deleteById(String userId) {
+        ShardedDataStore.Shard shard = store.userShard(userId);
+        return shard.write(() -> shard.users().remove(userId) != null);
+    }
+
+    /**
+     * Validation d'un handle : lecture directe dans le shard, sans compter une recherche
+     */
+    @Override
+    public boolean isCurrent(EntityHandle<User> handle) {
+        ShardedDataStore.Shard shard = store.userShard(handle.getId());
+        return shard.read(() -> shard.users().get(handle.getId())) == handle.get();
+    }
+}
@@ -19,4 +19,20 @@ public interface UserRepository {
     Optional<User> findByEmail(String email);
 
     boolean deleteById(String userId);
+
+    // ==================== HANDLES (une résolution par opération) ====================
+
+    /**
+     * Résout un utilisateur une fois pour toute une opération
+     */
+    default EntityHandle<User> resolve(String userId) {
+        return EntityHandle.of(userId, findById(userId).orElse(null), EntityHandle.NO_SLOT);
+    }
+
+    /**
+     * Vrai si l'utilisateur est toujours dans la version résolue (ou toujours absent)
+     */
+    default boolean isCurrent(EntityHandle<User> handle) {
+        return findById(handle.getId()).orElse(null) == handle.get();
+    }
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package repository;
 
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import metrics.QueryStats;
 import model.User;
 import util.DataStore;
 
@@ -12,6 +16,14 @@ import java.util.Optional;
  */
 public class UserRepositoryImpl implements UserRepository {
 
+    // Métriques : recherches par clé et parcours complets
+    private static final Counter LOOKUPS = MetricsRegistry.getInstance().counter("repository.user.lookups");
+    private static final Counter SCANS = MetricsRegistry.getInstance().counter("repository.user.scans");
+
+    // Statistiques par requête (lignes examinées / renvoyées, temps)
+    private static final QueryStats FIND_BY_ID = QueryProfiler.getInstance().stats("UserRepository.findById");
+    private static final QueryStats FIND_BY_EMAIL = QueryProfiler.getInstance().stats("UserRepository.findByEmail");
+
     private final DataStore dataStore;
 
     public UserRepositoryImpl() {
@@ -20,33 +32,82 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public void save(User user) {
-        if (findById(user.getUserId()).isPresent()) {
-            throw new IllegalArgumentException("Un utilisateur avec cet ID existe déjà : " + user.getUserId());
+        // Vérification et ajout sous le verrou d'écriture de la liste (pas de doublon concurrent)
+        synchronized (dataStore.getUsers()) {
+            if (findById(user.getUserId()).isPresent()) {
+                throw new IllegalArgumentException("Un utilisateur avec cet ID existe déjà : " + user.getUserId());
+            }
+            dataStore.getUsers().add(user);
         }
-        dataStore.getUsers().add(user);
     }
 
     @Override
     public Optional<User> findById(String userId) {
-        return dataStore.getUsers().stream()
-                .filter(user -> user.getUserId().equals(userId))
-                .findFirst();
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        List<User> all = dataStore.getUsers().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            User user = all.get(i);
+            if (user.getUserId().equals(userId)) {
+                FIND_BY_ID.record(start, i + 1, 1);
+                return Optional.of(user);
+            }
+        }
+        FIND_BY_ID.record(start, all.size(), 0);
+        return Optional.empty();
     }
 
     @Override
     public List<User> findAll() {
-        return dataStore.getUsers();
+        return dataStore.getUsers().snapshot();
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return dataStore.getUsers().stream()
-                .filter(user -> user.getEmail().equalsIgnoreCase(email))
-                .findFirst();
+        SCANS.increment();
+        long start = FIND_BY_EMAIL.start();
+        List<User> all = dataStore.getUsers().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            User user = all.get(i);
+            if (user.getEmail().equalsIgnoreCase(email)) {
+                FIND_BY_EMAIL.record(start, i + 1, 1);
+                return Optional.of(user);
+            }
+        }
+        FIND_BY_EMAIL.record(start, all.size(), 0);
+        return Optional.empty();
     }
 
     @Override
     public boolean deleteById(String userId) {
         return dataStore.getUsers().removeIf(user -> user.getUserId().equals(userId));
     }
+
+    // ==================== HANDLES ====================
+
+    @Override
+    public EntityHandle<User> resolve(String userId) {
+        LOOKUPS.increment();
+        long start = FIND_BY_ID.start();
+        List<User> all = dataStore.getUsers().snapshot();
+        for (int i = 0; i < all.size(); i++) {
+            User user = all.get(i);
+            if (user.getUserId().equals(userId)) {
+                FIND_BY_ID.record(start, i + 1, 1);
+                return EntityHandle.of(userId, user, i);
+            }
+        }
+        FIND_BY_ID.record(start, all.size(), 0);
+        return EntityHandle.absent(userId);
+    }
+
+    @Override
+    public boolean isCurrent(EntityHandle<User> handle) {
+        List<User> all = dataStore.getUsers().snapshot();
+        int slot = handle.getSlot();
+        if (slot != EntityHandle.NO_SLOT && slot < all.size() && all.get(slot) == handle.get()) {
+            return true;
+        }
+        return findById(handle.getId()).orElse(null) == handle.get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,403 @@
+package server;
+
+import codec.BookCodec;
+import codec.JsonOutput;
+import codec.LoanCodec;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dto.BookDTO;
+import dto.BrowseResultDTO;
+import dto.LoanDTO;
+import model.User;
+import service.AutocompleteService;
+import service.BookService;
+import service.CatalogBrowseService;
+import service.LoanService;
+import service.UserService;
+import util.FacetQuery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API HTTP/JSON exposant les mêmes opérations que le menu de App
+ * (inscription, connexion, recherche, emprunt, retour, mes emprunts).
+ *
+ * Les paramètres sont envoyés en query string ou en corps
+ * application/x-www-form-urlencoded ; les réponses sont en JSON.
+ * La session est portée par l'en-tête X-Session renvoyé par /login.
+ *
+ * Un thread virtuel par requête ; les services sont sûrs en concurrence
+ * (lectures sur versions figées, écritures sous le verrou de commit), les
+ * requêtes ne sont pas sérialisées ici. Écoute sur l'interface locale
+ * (l'API n'est pas authentifiée) sauf adresse donnée par -Dbiblio.http.bind.
+ */
+public class LibraryHttpServer {
+
+    private static final String SESSION_HEADER = "X-Session";
+    private static final int JSON_BUFFER_SIZE = 4096;
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    private final BookService bookService;
+    private final UserService userService;
+    private final LoanService loanService;
+    private final AutocompleteService autocompleteService;
+    private final CatalogBrowseService catalogBrowseService;
+    private final SessionStore sessions = new SessionStore();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public LibraryHttpServer(int port, BookService bookService, UserService userService,
+                             LoanService loanService, AutocompleteService autocompleteService,
+                             CatalogBrowseService catalogBrowseService) throws IOException {
+        this.bookService = bookService;
+        this.userService = userService;
+        this.loanService = loanService;
+        this.autocompleteService = autocompleteService;
+        this.catalogBrowseService = catalogBrowseService;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress(), port), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/register", exchange -> handle(exchange, this::register));
+        server.createContext("/login", exchange -> handle(exchange, this::login));
+        server.createContext("/logout", exchange -> handle(exchange, this::logout));
+        server.createContext("/books/search", exchange -> handle(exchange, this::searchBooks));
+        server.createContext("/books/fuzzy", exchange -> handle(exchange, this::searchBooksFuzzy));
+        server.createContext("/books/suggest", exchange -> handle(exchange, this::suggest));
+        server.createContext("/books/browse", exchange -> handle(exchange, this::browse));
+        server.createContext("/loans/borrow", exchange -> handle(exchange, this::borrowBook));
+        server.createContext("/loans/return", exchange -> handle(exchange, this::returnBook));
+        server.createContext("/loans/mine", exchange -> handle(exchange, this::myLoans));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Interface d'écoute : boucle locale par défaut, comme PrometheusMetricsExporter
+     */
+    private static InetAddress bindAddress() throws UnknownHostException {
+        String configured = System.getProperty("biblio.http.bind");
+        return configured == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(configured);
+    }
+
+    // ==================== OPÉRATIONS ====================
+
+    private void register(Request request, JsonOutput json) throws IOException {
+        userService.register(request.param("userId"), request.param("firstName"),
+                request.param("lastName"), request.param("email"), request.param("password"));
+        json.beginObject().name("status").value("ok").endObject();
+    }
+
+    private void login(Request request, JsonOutput json) throws IOException {
+        User user = userService.login(request.param("userId"), request.param("password"));
+        if (user == null) {
+            throw new HttpError(401, "Identifiant ou mot de passe incorrect");
+        }
+        String token = sessions.open(user);
+        json.beginObject()
+                .name("session").value(token)
+                .name("fullName").value(user.getFullName())
+                .name("admin").value(user.isAdmin())
+                .endObject();
+    }
+
+    private void logout(Request request, JsonOutput json) throws IOException {
+        sessions.close(request.header(SESSION_HEADER));
+        json.beginObject().name("status").value("ok").endObject();
+    }
+
+    private void searchBooks(Request request, JsonOutput json) throws IOException {
+        List<BookDTO> books = bookService.searchBooksByTitle(request.param("q"));
+        BookCodec.INSTANCE.writeJsonArray(books, json);
+    }
+
+    private void searchBooksFuzzy(Request request, JsonOutput json) throws IOException {
+        int limit = limitParam(request);
+        List<BookDTO> books = bookService.searchBooksFuzzy(request.param("q"), limit);
+        BookCodec.INSTANCE.writeJsonArray(books, json);
+    }
+
+    /**
+     * Suggestions au fil de la frappe (l'index a son propre verrou)
+     */
+    private void suggest(Request request, JsonOutput json) throws IOException {
+        List<String> suggestions = autocompleteService.complete(request.param("q"), limitParam(request));
+        json.beginArray();
+        for (String suggestion : suggestions) {
+            json.value(suggestion);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Navigation filtrée : yearFrom, yearTo, publisher (répétable par virgules),
+     * available=true, title, author, limit
+     */
+    private void browse(Request request, JsonOutput json) throws IOException {
+        FacetQuery.Builder query = new FacetQuery.Builder()
+                .years(intParam(request, "yearFrom"), intParam(request, "yearTo"))
+                .availableOnly(Boolean.parseBoolean(request.param("available")))
+                .titleContains(request.param("title"))
+                .authorContains(request.param("author"));
+        if (request.param("publisher") != null) {
+            for (String publisher : request.param("publisher").split(",")) {
+                query.publisher(publisher.trim());
+            }
+        }
+        Integer limit = intParam(request, "limit");
+        if (limit != null) {
+            query.limit(limit);
+        }
+        BrowseResultDTO result = catalogBrowseService.browse(query.build());
+
+        json.beginObject().name("total").value(result.getTotal()).name("books");
+        BookCodec.INSTANCE.writeJsonArray(result.getBooks(), json);
+        json.name("years").beginObject();
+        for (Map.Entry<Integer, Integer> year : result.getYearCounts().entrySet()) {
+            json.name(String.valueOf(year.getKey())).value(year.getValue());
+        }
+        json.endObject().name("publishers").beginObject();
+        for (Map.Entry<String, Integer> publisher : result.getPublisherCounts().entrySet()) {
+            json.name(publisher.getKey()).value(publisher.getValue());
+        }
+        json.endObject().endObject();
+    }
+
+    /**
+     * Nombre de résultats demandé (10 par défaut) ; hors de 1..100 → 400
+     */
+    private static int limitParam(Request request) {
+        Integer limit = intParam(request, "limit");
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit doit être compris entre 1 et " + MAX_LIMIT + " : " + limit);
+        }
+        return limit;
+    }
+
+    private static Integer intParam(Request request, String name) {
+        String value = request.param(name);
+        return value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
+    }
+
+    private void borrowBook(Request request, JsonOutput json) throws IOException {
+        User user = requireUser(request);
+        loanService.createLoan(user.getUserId(), request.param("isbn"));
+        json.beginObject().name("status").value("ok").endObject();
+    }
+
+    private void returnBook(Request request, JsonOutput json) throws IOException {
+        requireUser(request);
+        loanService.returnBook(request.param("loanId"));
+        json.beginObject().name("status").value("ok").endObject();
+    }
+
+    private void myLoans(Request request, JsonOutput json) throws IOException {
+        User user = requireUser(request);
+        List<LoanDTO> loans = loanService.getActiveLoansByUserId(user.getUserId());
+        LoanCodec.INSTANCE.writeJsonArray(loans, json);
+    }
+
+    private User requireUser(Request request) {
+        User user = sessions.get(request.header(SESSION_HEADER));
+        if (user == null) {
+            throw new HttpError(401, "Vous devez être connecté");
+        }
+        return user;
+    }
+
+    // ==================== INFRASTRUCTURE ====================
+
+    /**
+     * Exécute l'opération et envoie sa réponse JSON en flux (transfert par blocs)
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            Request request = Request.parse(exchange);
+            // Tant que rien n'est parti sur la socket, une erreur peut encore changer le statut HTTP
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            StreamingBody body = new StreamingBody(exchange);
+            try {
+                JsonOutput json = new JsonOutput(body, JSON_BUFFER_SIZE);
+                handler.handle(request, json);
+                json.flush();
+            } catch (HttpError e) {
+                sendError(exchange, body, e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, body, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                // Détails côté serveur seulement : le client ne voit pas l'état interne
+                System.err.println("[http] Erreur interne sur " + exchange.getRequestURI().getPath() + " : " + e);
+                e.printStackTrace();
+                sendError(exchange, body, 500, "Erreur interne");
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, StreamingBody body, int status, String message)
+            throws IOException {
+        if (body.started) {
+            return; // Trop tard pour changer le statut : la réponse est tronquée
+        }
+        body.status = status;
+        body.reset();
+        new JsonOutput(body, JSON_BUFFER_SIZE).beginObject().name("error").value(message).endObject().flush();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(Request request, JsonOutput json) throws IOException;
+    }
+
+    /**
+     * Erreur applicative portant un statut HTTP
+     */
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Corps de réponse : les premiers octets sont gardés en tampon, puis l'en-tête
+     * 200 est envoyé et le reste part directement sur la socket au fil de l'écriture.
+     */
+    private static class StreamingBody extends OutputStream {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final HttpExchange exchange;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream(BUFFER_SIZE);
+        private OutputStream out;
+        private boolean started;
+        private int status = 200;
+
+        StreamingBody(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            if (started) {
+                out.write(bytes, off, len);
+                return;
+            }
+            pending.write(bytes, off, len);
+            if (pending.size() >= BUFFER_SIZE) {
+                startStreaming();
+            }
+        }
+
+        void reset() {
+            pending.reset();
+        }
+
+        private void startStreaming() throws IOException {
+            exchange.sendResponseHeaders(status, 0); // 0 = transfert par blocs
+            out = exchange.getResponseBody();
+            started = true;
+            pending.writeTo(out);
+            pending.reset();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!started) {
+                int length = pending.size();
+                exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+                out = exchange.getResponseBody();
+                if (length > 0) {
+                    pending.writeTo(out);
+                    pending.reset();
+                }
+                started = true;
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Paramètres d'une requête (query string + corps formulaire)
+     */
+    private static class Request {
+        private final Map<String, String> params;
+        private final HttpExchange exchange;
+
+        private Request(HttpExchange exchange, Map<String, String> params) {
+            this.exchange = exchange;
+            this.params = params;
+        }
+
+        static Request parse(HttpExchange exchange) throws IOException {
+            Map<String, String> params = new HashMap<>();
+            decode(exchange.getRequestURI().getRawQuery(), params);
+            try (InputStream in = exchange.getRequestBody()) {
+                decode(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+            return new Request(exchange, params);
+        }
+
+        private static void decode(String encoded, Map<String, String> params) {
+            if (encoded == null || encoded.isEmpty()) {
+                return;
+            }
+            for (String pair : encoded.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+
+        String param(String name) {
+            return params.get(name);
+        }
+
+        String header(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+    }
+}
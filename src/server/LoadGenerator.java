@@ -0,0 +1,137 @@
+package server;
+
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Générateur de charge pour LibraryHttpServer
+ *
+ * Chaque client simulé s'inscrit, se connecte, puis enchaîne en boucle
+ * recherche de livre et consultation de ses emprunts pendant la durée donnée.
+ * Affiche le débit et les latences p50/p99/max.
+ *
+ * Usage : java -cp out server.LoadGenerator [url] [clients] [secondes]
+ * Exemple : java -cp out server.LoadGenerator http://localhost:8080 1000 30
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        LatencyTimer latency = MetricsRegistry.getInstance().timer("load.request");
+        AtomicLong errors = new AtomicLong();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        System.out.printf("Charge : %d clients pendant %d s sur %s%n", clients, seconds, baseUrl);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long begin = System.nanoTime();
+
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(http, baseUrl, "load-" + runId + "-" + i, latency, errors);
+            runs.add(client.register()
+                    .thenCompose(ignored -> client.login())
+                    .thenCompose(ignored -> client.loop(deadline)));
+        }
+        CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).join();
+
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("Requêtes : %d (%d erreurs) en %.1f s → %.0f req/s%n",
+                latency.getCount(), errors.get(), elapsed, latency.getCount() / elapsed);
+        System.out.printf("Latence : p50=%.2f ms  p99=%.2f ms  max=%.2f ms%n",
+                latency.getPercentile(50, TimeUnit.MILLISECONDS),
+                latency.getPercentile(99, TimeUnit.MILLISECONDS),
+                latency.getMaxNanos() / 1e6);
+    }
+
+    /**
+     * Un client simulé : enchaîne ses requêtes de façon asynchrone (pas de thread bloqué)
+     */
+    private static class Client {
+        private static final String[] KEYWORDS = {"Prince", "1984", "Misérables", "le"};
+
+        private final HttpClient http;
+        private final String baseUrl;
+        private final String userId;
+        private final LatencyTimer latency;
+        private final AtomicLong errors;
+        private String session = "";
+        private int iteration;
+
+        Client(HttpClient http, String baseUrl, String userId, LatencyTimer latency, AtomicLong errors) {
+            this.http = http;
+            this.baseUrl = baseUrl;
+            this.userId = userId;
+            this.latency = latency;
+            this.errors = errors;
+        }
+
+        CompletableFuture<String> register() {
+            return post("/register", "userId=" + userId + "&firstName=Load&lastName=Test&email="
+                    + userId + "@load.test&password=secret");
+        }
+
+        CompletableFuture<String> login() {
+            return post("/login", "userId=" + userId + "&password=secret").thenApply(body -> {
+                int start = body.indexOf("\"session\":\"");
+                if (start >= 0) {
+                    start += 11;
+                    session = body.substring(start, body.indexOf('"', start));
+                }
+                return body;
+            });
+        }
+
+        CompletableFuture<Void> loop(long deadline) {
+            if (System.nanoTime() >= deadline) {
+                return CompletableFuture.completedFuture(null);
+            }
+            String keyword = KEYWORDS[iteration++ % KEYWORDS.length];
+            return get("/books/search?q=" + URLEncoder.encode(keyword, StandardCharsets.UTF_8))
+                    .thenCompose(ignored -> get("/loans/mine"))
+                    .thenCompose(ignored -> loop(deadline));
+        }
+
+        private CompletableFuture<String> get(String path) {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+        }
+
+        private CompletableFuture<String> post(String path, String form) {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)));
+        }
+
+        private CompletableFuture<String> send(HttpRequest.Builder builder) {
+            HttpRequest request = builder.header("X-Session", session).build();
+            long start = System.nanoTime();
+            return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, failure) -> {
+                        latency.recordSince(start);
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                            return "";
+                        }
+                        return response.body();
+                    });
+        }
+    }
+}
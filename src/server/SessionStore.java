@@ -0,0 +1,96 @@
+package server;
+
+import model.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sessions des clients HTTP : remplace le champ statique currentUser de App.
+ * Chaque connexion réussie reçoit un jeton aléatoire associé à son utilisateur.
+ *
+ * Une session expire après ttl sans requête (30 minutes par défaut,
+ * -Dbiblio.sessionTtlMinutes) ; les sessions expirées sont retirées au plus tard
+ * à l'ouverture suivante d'une session, une fois par ttl.
+ */
+public class SessionStore {
+
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(Long.getLong("biblio.sessionTtlMinutes", 30));
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlNanos;
+    private volatile long lastPurge = System.nanoTime();
+
+    public SessionStore() {
+        this(DEFAULT_TTL);
+    }
+
+    public SessionStore(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Durée de session invalide : " + ttl);
+        }
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Ouvre une session pour l'utilisateur et renvoie son jeton
+     */
+    public String open(User user) {
+        long now = System.nanoTime();
+        if (now - lastPurge > ttlNanos) {
+            lastPurge = now;
+            sessions.values().removeIf(session -> session.isExpired(now, ttlNanos));
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, now));
+        return token;
+    }
+
+    /**
+     * Utilisateur associé au jeton, ou null si la session est inconnue ou expirée
+     * (chaque accès prolonge la session)
+     */
+    public User get(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (session.isExpired(now, ttlNanos)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccess = now;
+        return session.user;
+    }
+
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private static final class Session {
+        private final User user;
+        private volatile long lastAccess;
+
+        Session(User user, long lastAccess) {
+            this.user = user;
+            this.lastAccess = lastAccess;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - lastAccess > ttlNanos;
+        }
+    }
+}
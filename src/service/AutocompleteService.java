@@ -0,0 +1,126 @@
+package service;
+
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import model.Book;
+import model.Loan;
+import model.LoanEvent;
+import repository.BookRepository;
+import repository.LoanRepository;
+import repository.ObservableBookRepository;
+import util.CompletionTrie;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pattern : Observer (implémente BookListener et LoanObserver)
+ * Suggestions "au fil de la frappe" sur les titres et les auteurs.
+ *
+ * Pourquoi : Une recherche par sous-chaîne à chaque frappe parcourt tout le
+ * catalogue. Le CompletionTrie répond en microsecondes, et il est tenu à jour
+ * incrémentalement : chaque livre enregistré y est ajouté, chaque emprunt
+ * augmente la popularité de son titre et de son auteur.
+ *
+ * Poids : titre = somme sur ses livres de (1 + nombre d'emprunts),
+ * auteur = somme sur ses livres de (1 + nombre d'emprunts).
+ */
+public class AutocompleteService implements ObservableBookRepository.BookListener, LoanService.LoanObserver {
+
+    private static final LatencyTimer COMPLETE_TIMER = MetricsRegistry.getInstance().timer("book.autocomplete");
+
+    private final CompletionTrie trie = new CompletionTrie();
+
+    // ISBN → titre, auteur et popularité déjà comptés dans le trie
+    private final Map<String, IndexedBook> books = new HashMap<>();
+
+    /**
+     * Construit l'index à partir du catalogue et de l'historique des emprunts
+     */
+    public AutocompleteService(BookRepository bookRepository, LoanRepository loanRepository) {
+        Map<String, Integer> loansByIsbn = new HashMap<>();
+        for (Loan loan : loanRepository.findAll()) {
+            loansByIsbn.merge(loan.getIsbn(), 1, Integer::sum);
+        }
+        for (Book book : bookRepository.findAll()) {
+            index(book, loansByIsbn.getOrDefault(book.getIsbn(), 0));
+        }
+    }
+
+    /**
+     * Les limit titres ou auteurs les plus populaires dont un mot commence par prefix
+     */
+    public List<String> complete(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return trie.complete(prefix, limit);
+        } finally {
+            COMPLETE_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Pattern : Observer - Livre ajouté ou modifié dans le repository
+     */
+    @Override
+    public synchronized void onBookSaved(Book book) {
+        IndexedBook indexed = books.get(book.getIsbn());
+        if (indexed != null) {
+            if (Objects.equals(indexed.title, book.getTitle()) && Objects.equals(indexed.author, book.getAuthor())) {
+                return; // Simple changement de disponibilité
+            }
+            unindex(indexed);
+        }
+        index(book, indexed == null ? 0 : indexed.loans);
+    }
+
+    @Override
+    public synchronized void onBookDeleted(String isbn) {
+        IndexedBook indexed = books.remove(isbn);
+        if (indexed != null) {
+            unindex(indexed);
+        }
+    }
+
+    /**
+     * Pattern : Observer - Chaque emprunt rend le titre et l'auteur plus populaires
+     */
+    @Override
+    public synchronized void onLoanEvent(LoanEvent event) {
+        if (event.getType() != LoanEvent.Type.CREATED) {
+            return;
+        }
+        IndexedBook indexed = books.get(event.getIsbn());
+        if (indexed != null) {
+            indexed.loans++;
+            trie.adjust(indexed.title, 1);
+            trie.adjust(indexed.author, 1);
+        }
+    }
+
+    private void index(Book book, int loans) {
+        IndexedBook indexed = new IndexedBook(book.getTitle(), book.getAuthor(), loans);
+        books.put(book.getIsbn(), indexed);
+        trie.adjust(indexed.title, 1 + loans);
+        trie.adjust(indexed.author, 1 + loans);
+    }
+
+    private void unindex(IndexedBook indexed) {
+        trie.adjust(indexed.title, -(1 + indexed.loans));
+        trie.adjust(indexed.author, -(1 + indexed.loans));
+    }
+
+    private static final class IndexedBook {
+        private final String title;
+        private final String author;
+        private int loans;
+
+        IndexedBook(String title, String author, int loans) {
+            this.title = title;
+            this.author = author;
+            this.loans = loans;
+        }
+    }
+}
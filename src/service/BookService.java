@@ -1,10 +1,23 @@
 package service;
 
 import dto.BookDTO;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import metrics.OperationContext;
 import model.Book;
 import repository.BookRepository;
 import repository.BookRepositoryImpl;
+import repository.LoanRepositoryImpl;
+import repository.ObservableBookRepository;
+import repository.UserRepositoryImpl;
+import transaction.TransactionConflictException;
+import transaction.TransactionManager;
+import transaction.UnitOfWork;
+import util.FuzzyTitleIndex;
+import workload.Operation;
+import workload.WorkloadRecorder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,16 +29,45 @@ import java.util.stream.Collectors;
  */
 public class BookService {
 
+    private static final LatencyTimer SEARCH_BY_TITLE_TIMER =
+            MetricsRegistry.getInstance().timer("book.searchByTitle");
+    private static final LatencyTimer SEARCH_FUZZY_TIMER =
+            MetricsRegistry.getInstance().timer("book.searchFuzzy");
+
+    private static final int MAX_ATTEMPTS = 3; // Tentatives en cas de conflit de transaction
+
     private final BookRepository bookRepository;
+    private final TransactionManager transactions;
+
+    // Index de similarité, construit à la première recherche approchée puis tenu
+    // à jour par les écritures du repository (ajouts, modifications, suppressions)
+    private volatile FuzzyTitleIndex fuzzyIndex;
 
     public BookService() {
-        this.bookRepository = new BookRepositoryImpl();
+        this(new BookRepositoryImpl());
+    }
+
+    public BookService(BookRepository bookRepository) {
+        this(new TransactionManager(bookRepository instanceof ObservableBookRepository
+                ? bookRepository : new ObservableBookRepository(bookRepository),
+                new UserRepositoryImpl(), new LoanRepositoryImpl()));
+    }
+
+    /**
+     * Les ajouts passent par les transactions : ils sont sérialisés avec les
+     * emprunts et retours sous le même verrou de commit
+     */
+    public BookService(TransactionManager transactions) {
+        this.transactions = transactions;
+        this.bookRepository = transactions.getBookRepository();
     }
 
     /**
      * Ajoute un nouveau livre dans la bibliothèque
      */
     public void addBook(String isbn, String title, String author, String publisher, int year) {
+        WorkloadRecorder.getInstance().record(Operation.Type.ADD_BOOK, isbn, title, author, publisher,
+                String.valueOf(year));
         // Validation métier
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("L'ISBN ne peut pas être vide");
@@ -46,7 +88,22 @@ public class BookService {
                 .year(year)
                 .build();
 
-        bookRepository.save(book);
+        for (int attempt = 1; ; attempt++) {
+            UnitOfWork unitOfWork = transactions.begin();
+            if (unitOfWork.findBook(isbn).isPresent()) {
+                throw new IllegalArgumentException("Un livre avec cet ISBN existe déjà : " + isbn);
+            }
+            unitOfWork.saveBook(book);
+            try {
+                unitOfWork.commit();
+                break;
+            } catch (TransactionConflictException e) {
+                // Même ISBN ajouté entre-temps : la relecture le signale
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
     }
 
     /**
@@ -54,7 +111,7 @@ public class BookService {
      */
     public List<BookDTO> getAllBooks() {
         return bookRepository.findAll().stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
@@ -62,8 +119,9 @@ public class BookService {
      * Récupère uniquement les livres disponibles
      */
     public List<BookDTO> getAvailableBooks() {
+        WorkloadRecorder.getInstance().record(Operation.Type.AVAILABLE_BOOKS);
         return bookRepository.findAllAvailable().stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
@@ -71,23 +129,106 @@ public class BookService {
      * Recherche des livres par titre
      */
     public List<BookDTO> searchBooksByTitle(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            throw new IllegalArgumentException("Le mot-clé ne peut pas être vide");
+        WorkloadRecorder.getInstance().record(Operation.Type.SEARCH_TITLE, keyword);
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(SEARCH_BY_TITLE_TIMER.getName());
+        try {
+            if (keyword == null || keyword.trim().isEmpty()) {
+                throw new IllegalArgumentException("Le mot-clé ne peut pas être vide");
+            }
+            return bookRepository.findByTitleContaining(keyword).stream()
+                    .map(BookService::convertToDTO)
+                    .collect(Collectors.toList());
+        } finally {
+            SEARCH_BY_TITLE_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
+        }
+    }
+
+    /**
+     * Recherche approchée (fautes de frappe tolérées) sur le titre et l'auteur,
+     * les limit livres les plus proches en premier
+     */
+    public List<BookDTO> searchBooksFuzzy(String query, int limit) {
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(SEARCH_FUZZY_TIMER.getName());
+        try {
+            if (query == null || query.trim().isEmpty()) {
+                throw new IllegalArgumentException("Le mot-clé ne peut pas être vide");
+            }
+            List<BookDTO> books = new ArrayList<>();
+            for (String isbn : fuzzyIndex().search(query, limit)) {
+                bookRepository.findByIsbn(isbn).map(BookService::convertToDTO).ifPresent(books::add);
+            }
+            return books;
+        } finally {
+            SEARCH_FUZZY_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
+        }
+    }
+
+    /**
+     * Construit l'index au premier appel. Amorçage et abonnement se font sous le verrou
+     * de commit : aucune écriture entre la lecture du catalogue et l'abonnement ne peut
+     * être manquée.
+     */
+    private FuzzyTitleIndex fuzzyIndex() {
+        FuzzyTitleIndex index = fuzzyIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = fuzzyIndex;
+                if (index == null) {
+                    if (!(bookRepository instanceof ObservableBookRepository observable)) {
+                        throw new IllegalStateException(
+                                "La recherche approchée nécessite un ObservableBookRepository");
+                    }
+                    index = transactions.readCommitted(() -> {
+                        FuzzyTitleIndex built = new FuzzyTitleIndex();
+                        for (Book book : bookRepository.findAll()) {
+                            built.add(book.getIsbn(), book.getTitle(), book.getAuthor());
+                        }
+                        observable.addListener(new FuzzyIndexUpdater(built));
+                        return built;
+                    });
+                    fuzzyIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Pattern : Observer - Reporte les écritures du catalogue dans l'index de similarité
+     */
+    private static class FuzzyIndexUpdater implements ObservableBookRepository.BookListener {
+
+        private final FuzzyTitleIndex index;
+
+        FuzzyIndexUpdater(FuzzyTitleIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onBookSaved(Book book) {
+            index.add(book.getIsbn(), book.getTitle(), book.getAuthor());
+        }
+
+        @Override
+        public void onBookDeleted(String isbn) {
+            index.remove(isbn);
         }
-        return bookRepository.findByTitleContaining(keyword).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
     }
 
     /**
      * Recherche des livres par auteur
      */
     public List<BookDTO> searchBooksByAuthor(String author) {
+        WorkloadRecorder.getInstance().record(Operation.Type.SEARCH_AUTHOR, author);
         if (author == null || author.trim().isEmpty()) {
             throw new IllegalArgumentException("L'auteur ne peut pas être vide");
         }
         return bookRepository.findByAuthor(author).stream()
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
@@ -96,7 +237,7 @@ public class BookService {
      */
     public BookDTO getBookByIsbn(String isbn) {
         return bookRepository.findByIsbn(isbn)
-                .map(this::convertToDTO)
+                .map(BookService::convertToDTO)
                 .orElse(null);
     }
 
@@ -109,31 +250,11 @@ public class BookService {
                 .orElse(false);
     }
 
-    /**
-     * Marque un livre comme emprunté
-     */
-    public void markAsUnavailable(String isbn) {
-        bookRepository.findByIsbn(isbn).ifPresent(book -> {
-            book.setAvailable(false);
-            bookRepository.update(book);
-        });
-    }
-
-    /**
-     * Marque un livre comme disponible
-     */
-    public void markAsAvailable(String isbn) {
-        bookRepository.findByIsbn(isbn).ifPresent(book -> {
-            book.setAvailable(true);
-            bookRepository.update(book);
-        });
-    }
-
     /**
      * Conversion d'une entité Book en BookDTO
      * Pattern : DTO - On ne renvoie jamais l'entité directement
      */
-    private BookDTO convertToDTO(Book book) {
+    static BookDTO convertToDTO(Book book) {
         String status = book.isAvailable() ? "Disponible" : "Emprunté";
         return new BookDTO(
                 book.getIsbn(),
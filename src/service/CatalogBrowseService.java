@@ -0,0 +1,64 @@
+package service;
+
+import dto.BookDTO;
+import dto.BrowseResultDTO;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import model.Book;
+import repository.BookRepository;
+import repository.ObservableBookRepository;
+import util.FacetIndex;
+import util.FacetQuery;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pattern : Observer (implémente BookListener)
+ * Navigation filtrée dans le catalogue : plage d'années, éditeurs, disponibilité,
+ * mots du titre ou de l'auteur, avec les compteurs par année et par éditeur.
+ *
+ * Pourquoi : Le FacetIndex répond sans parcourir le catalogue ; il est tenu à jour
+ * à chaque écriture du repository (ajout, changement de disponibilité, suppression).
+ */
+public class CatalogBrowseService implements ObservableBookRepository.BookListener {
+
+    private static final LatencyTimer BROWSE_TIMER = MetricsRegistry.getInstance().timer("book.browse");
+
+    private final FacetIndex index = new FacetIndex();
+
+    public CatalogBrowseService(BookRepository bookRepository) {
+        for (Book book : bookRepository.findAll()) {
+            index.put(book);
+        }
+    }
+
+    /**
+     * Livres correspondant aux critères, avec leur nombre total et les facettes
+     */
+    public BrowseResultDTO browse(FacetQuery query) {
+        long start = System.nanoTime();
+        try {
+            FacetIndex.Result result = index.query(query);
+            List<BookDTO> books = result.getBooks().stream()
+                    .map(BookService::convertToDTO)
+                    .collect(Collectors.toList());
+            return new BrowseResultDTO(books, result.getTotal(), result.getYearCounts(), result.getPublisherCounts());
+        } finally {
+            BROWSE_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Pattern : Observer - Livre ajouté ou modifié dans le repository
+     */
+    @Override
+    public void onBookSaved(Book book) {
+        index.put(book);
+    }
+
+    @Override
+    public void onBookDeleted(String isbn) {
+        index.remove(isbn);
+    }
+}
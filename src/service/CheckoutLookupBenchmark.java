@@ -0,0 +1,102 @@
+package service;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.QueryProfiler;
+import model.Book;
+import model.Loan;
+import model.User;
+import repository.BookRepositoryImpl;
+import repository.LoanRepositoryImpl;
+import repository.UserRepositoryImpl;
+import transaction.TransactionManager;
+import util.DataStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherches dans les repositories par emprunt et par retour
+ *
+ * Remplit le DataStore (livres, lecteurs), enchaîne des emprunts puis leurs
+ * retours via LoanService (sans notifications ni observateurs), et affiche par
+ * opération le nombre de recherches par clé, de parcours complets et de lignes
+ * examinées, pour chaque repository. Avec les handles, chaque opération cherche
+ * chaque entité une seule fois : 1 lecteur + 1 livre par emprunt (l'emprunt créé
+ * n'est jamais recherché), 1 emprunt + 1 livre par retour.
+ *
+ * Usage : java -cp out service.CheckoutLookupBenchmark [livres] [opérations]
+ */
+public class CheckoutLookupBenchmark {
+
+    private static final String[] REPOSITORIES = {"book", "user", "loan"};
+    private static final String[] FIND_BY_KEY = {
+            "BookRepository.findByIsbn", "UserRepository.findById", "LoanRepository.findById"
+    };
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        // Remplissage direct du DataStore (save() vérifierait chaque ISBN : remplissage quadratique)
+        List<Book> catalogue = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            catalogue.add(new Book.Builder().isbn("BENCH-" + i).title("Livre " + i).author("Auteur " + (i % 500))
+                    .publisher("Éditeur " + (i % 40)).year(1900 + i % 120).build());
+        }
+        DataStore.getInstance().getBooks().addAll(catalogue);
+        int readers = Math.max(1, operations / 10);
+        for (int i = 0; i < readers; i++) {
+            DataStore.getInstance().getUsers().add(new User("BENCH-U" + i, "Lecteur", String.valueOf(i),
+                    "lecteur" + i + "@biblio.com", "password", false));
+        }
+        BookRepositoryImpl bookRepository = new BookRepositoryImpl();
+        UserRepositoryImpl userRepository = new UserRepositoryImpl();
+        TransactionManager transactions = new TransactionManager(bookRepository, userRepository, new LoanRepositoryImpl());
+        LoanService loans = new LoanService(transactions, new BookService(transactions), new UserService(userRepository));
+
+        System.out.printf("Catalogue : %,d livres, %,d opérations de chaque type%n", books, operations);
+        System.out.println("opération  repository  recherches/op  parcours/op  lignes examinées/op");
+
+        long[] before = snapshot();
+        for (int i = 0; i < operations; i++) {
+            // Livres pris dans tout le catalogue : le coût d'une recherche dépend de la position
+            loans.createLoan("BENCH-U" + (i % readers), "BENCH-" + (int) ((long) i * books / operations));
+        }
+        print("emprunt", before, operations);
+
+        List<Loan> active = transactions.getLoanRepository().findActiveLoans();
+        before = snapshot();
+        for (Loan loan : active) {
+            loans.returnBook(loan.getLoanId());
+        }
+        print("retour", before, active.size());
+    }
+
+    /**
+     * Compteurs par repository : recherches, parcours, lignes examinées par clé
+     */
+    private static long[] snapshot() {
+        long[] values = new long[REPOSITORIES.length * 3];
+        for (int i = 0; i < REPOSITORIES.length; i++) {
+            values[3 * i] = counter(REPOSITORIES[i], "lookups").get();
+            values[3 * i + 1] = counter(REPOSITORIES[i], "scans").get();
+            values[3 * i + 2] = QueryProfiler.getInstance().stats(FIND_BY_KEY[i]).getRowsExamined();
+        }
+        return values;
+    }
+
+    private static void print(String operation, long[] before, int count) {
+        long[] after = snapshot();
+        for (int i = 0; i < REPOSITORIES.length; i++) {
+            System.out.printf("%-10s %-11s %-14.2f %-12.2f %.0f%n", operation, REPOSITORIES[i],
+                    (after[3 * i] - before[3 * i]) / (double) count,
+                    (after[3 * i + 1] - before[3 * i + 1]) / (double) count,
+                    (after[3 * i + 2] - before[3 * i + 2]) / (double) count);
+        }
+    }
+
+    private static Counter counter(String repository, String kind) {
+        return MetricsRegistry.getInstance().counter("repository." + repository + "." + kind);
+    }
+}
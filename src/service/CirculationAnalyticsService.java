@@ -0,0 +1,227 @@
+package service;
+
+import repository.BookRepository;
+import repository.BookRepositoryImpl;
+import repository.LoanRepository;
+import repository.LoanRepositoryImpl;
+import util.IntIntHashMap;
+import util.LoanSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Pattern : Service Layer
+ * Statistiques de circulation calculées sur une photographie en colonnes des emprunts.
+ *
+ * Pourquoi : Chaque agrégation est un parcours parallèle (fork-join via les
+ * streams parallèles) d'une plage de tableaux de primitifs. Chaque feuille du
+ * fork-join remplit son propre accumulateur creux (IntIntHashMap, pas de boxing),
+ * dont la taille suit les clés rencontrées et non le nombre de livres ou
+ * d'auteurs du catalogue, puis les accumulateurs sont fusionnés. La plage est
+ * réduite par recherche dichotomique sur la date d'emprunt.
+ *
+ * La photographie n'est pas mise à jour à chaque emprunt : elle est reconstruite
+ * par refreshSnapshot(), ou automatiquement au premier rapport demandé après
+ * maxSnapshotAge (5 minutes par défaut). Les rapports peuvent donc ignorer les
+ * emprunts des dernières minutes.
+ */
+public class CirculationAnalyticsService {
+
+    private final LoanRepository loanRepository;
+    private final BookRepository bookRepository;
+
+    private static final Duration DEFAULT_MAX_SNAPSHOT_AGE = Duration.ofMinutes(5);
+
+    private volatile LoanSnapshot snapshot;
+    private volatile long snapshotTakenAt;  // System.nanoTime() de la dernière reconstruction
+    private volatile Duration maxSnapshotAge = DEFAULT_MAX_SNAPSHOT_AGE;
+
+    public CirculationAnalyticsService() {
+        this(new LoanRepositoryImpl(), new BookRepositoryImpl());
+    }
+
+    public CirculationAnalyticsService(LoanRepository loanRepository, BookRepository bookRepository) {
+        this.loanRepository = loanRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Reconstruit la photographie à partir des repositories (à appeler avant un rapport)
+     */
+    public void refreshSnapshot() {
+        long takenAt = System.nanoTime();
+        snapshot = LoanSnapshot.of(loanRepository.findAll(), bookRepository.findAll());
+        snapshotTakenAt = takenAt;
+    }
+
+    /**
+     * Âge au-delà duquel la photographie est reconstruite avant un rapport
+     */
+    public void setMaxSnapshotAge(Duration maxAge) {
+        if (maxAge == null || maxAge.isNegative()) {
+            throw new IllegalArgumentException("Âge maximal de la photographie invalide : " + maxAge);
+        }
+        this.maxSnapshotAge = maxAge;
+    }
+
+    private LoanSnapshot snapshot() {
+        LoanSnapshot current = snapshot;
+        if (current == null || System.nanoTime() - snapshotTakenAt > maxSnapshotAge.toNanos()) {
+            synchronized (this) {
+                // Un seul thread reconstruit, les autres reprennent sa photographie
+                if (snapshot == current) {
+                    refreshSnapshot();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Les livres les plus empruntés sur la période [from, to] (ISBN → nombre d'emprunts)
+     */
+    public Map<String, Integer> getMostBorrowedBooks(LocalDate from, LocalDate to, int limit) {
+        checkRange(from, to);
+        LoanSnapshot s = snapshot();
+        IntIntHashMap counts = rangeOf(s, from, to).collect(
+                CirculationAnalyticsService::newAccumulator,
+                (acc, i) -> acc.addTo(s.book(i), 1),
+                CirculationAnalyticsService::addAll);
+
+        // Sélection des meilleurs par tri des indices (une seule passe de boxing, sur les livres empruntés)
+        List<Integer> books = new ArrayList<>(counts.size());
+        counts.forEach((b, count) -> books.add(b));
+        books.sort((a, b) -> Integer.compare(counts.get(b, 0), counts.get(a, 0)));
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(limit, books.size()); i++) {
+            int b = books.get(i);
+            result.put(s.isbn(b), counts.get(b, 0));
+        }
+        return result;
+    }
+
+    /**
+     * Nombre d'emprunts par auteur et par mois sur la période [from, to]
+     */
+    public Map<String, Map<YearMonth, Integer>> getLoansPerAuthorPerMonth(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        LoanSnapshot s = snapshot();
+        int firstMonth = LoanSnapshot.epochMonth((int) from.toEpochDay());
+        int months = LoanSnapshot.epochMonth((int) to.toEpochDay()) - firstMonth + 1;
+
+        // Clé primitive : auteur * mois + décalage du mois
+        IntIntHashMap counts = rangeOf(s, from, to).collect(
+                CirculationAnalyticsService::newAccumulator,
+                (acc, i) -> acc.addTo(s.authorOfBook(s.book(i)) * months
+                        + s.loanMonth(i) - firstMonth, 1),
+                CirculationAnalyticsService::addAll);
+
+        Map<String, Map<YearMonth, Integer>> result = new TreeMap<>();
+        YearMonth start = YearMonth.from(from);
+        counts.forEach((key, count) -> result.computeIfAbsent(s.author(key / months), k -> new TreeMap<>())
+                .put(start.plusMonths(key % months), count));
+        return result;
+    }
+
+    /**
+     * Durée moyenne (en jours) des emprunts retournés commencés sur la période [from, to]
+     */
+    public double getAverageLoanDuration(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        LoanSnapshot s = snapshot();
+        // acc[0] = somme des durées, acc[1] = nombre d'emprunts retournés
+        long[] acc = rangeOf(s, from, to).collect(
+                () -> new long[2],
+                (a, i) -> {
+                    int returned = s.returnDay(i);
+                    if (returned != LoanSnapshot.NOT_RETURNED) {
+                        a[0] += returned - s.loanDay(i);
+                        a[1]++;
+                    }
+                },
+                (a, b) -> {
+                    a[0] += b[0];
+                    a[1] += b[1];
+                });
+        return acc[1] == 0 ? 0.0 : (double) acc[0] / acc[1];
+    }
+
+    /**
+     * Taux de retard par cohorte d'utilisateurs (cohorte = mois du premier emprunt).
+     * Un emprunt est en retard s'il a été rendu après l'échéance, ou s'il n'est
+     * toujours pas rendu alors que l'échéance est dépassée à la date asOf.
+     */
+    public Map<YearMonth, Double> getOverdueRatePerCohort(LocalDate from, LocalDate to, LocalDate asOf) {
+        checkRange(from, to);
+        LoanSnapshot s = snapshot();
+        if (s.userCount() == 0) {
+            return new TreeMap<>();
+        }
+        int firstCohort = Integer.MAX_VALUE;
+        int lastCohort = Integer.MIN_VALUE;
+        for (int u = 0; u < s.userCount(); u++) {
+            firstCohort = Math.min(firstCohort, s.firstLoanMonth(u));
+            lastCohort = Math.max(lastCohort, s.firstLoanMonth(u));
+        }
+        int base = firstCohort;
+        int cohorts = lastCohort - firstCohort + 1;
+        int today = (int) asOf.toEpochDay();
+
+        // Clé 2c = emprunts de la cohorte c, clé 2c + 1 = emprunts en retard
+        IntIntHashMap acc = rangeOf(s, from, to).collect(
+                CirculationAnalyticsService::newAccumulator,
+                (a, i) -> {
+                    int c = s.firstLoanMonth(s.user(i)) - base;
+                    int returned = s.returnDay(i);
+                    int effectiveEnd = returned == LoanSnapshot.NOT_RETURNED ? today : returned;
+                    a.addTo(2 * c, 1);
+                    if (effectiveEnd > s.dueDay(i)) {
+                        a.addTo(2 * c + 1, 1);
+                    }
+                },
+                CirculationAnalyticsService::addAll);
+
+        Map<YearMonth, Double> result = new TreeMap<>();
+        for (int c = 0; c < cohorts; c++) {
+            int loans = acc.get(2 * c, 0);
+            if (loans > 0) {
+                YearMonth cohort = YearMonth.of(1970, 1).plusMonths(base + c);
+                result.put(cohort, (double) acc.get(2 * c + 1, 0) / loans);
+            }
+        }
+        return result;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Période invalide : du " + from + " au " + to);
+        }
+    }
+
+    /**
+     * Indices des emprunts commencés sur [from, to], parcourus en parallèle
+     */
+    private static IntStream rangeOf(LoanSnapshot s, LocalDate from, LocalDate to) {
+        int lo = s.lowerBound((int) from.toEpochDay());
+        int hi = s.lowerBound((int) to.toEpochDay() + 1);
+        return IntStream.range(lo, hi).parallel();
+    }
+
+    private static IntIntHashMap newAccumulator() {
+        return new IntIntHashMap(16);
+    }
+
+    private static void addAll(IntIntHashMap target, IntIntHashMap source) {
+        source.forEach(target::addTo);
+    }
+}
@@ -0,0 +1,158 @@
+package service;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import model.LoanEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pattern : Observer (Subject) - Distribution des événements d'emprunt
+ *
+ * Pourquoi : Chaque observateur ne reçoit que les événements qui l'intéressent
+ * (par type, et éventuellement pour une clé : emprunt, lecteur ou livre), sans
+ * avoir à filtrer lui-même chaque événement.
+ *
+ * La table de distribution (type → observateurs, clé → type → observateurs) est
+ * précalculée et immuable : publier un événement se résume à une lecture volatile
+ * et au parcours d'un tableau. Les abonnements la reconstruisent (copy-on-write),
+ * ce qui est sans danger pendant une distribution en cours et ne coûte rien aux
+ * emprunts, où seules les publications ont lieu.
+ *
+ * LoanService publie sous le verrou de commit, dans l'ordre des numéros de
+ * séquence : un observateur voit toujours la création d'un emprunt avant son
+ * retour, mais doit rester rapide (pas d'attente d'un autre thread qui commit).
+ * L'écriture est déjà validée quand ses événements sont publiés : l'exception d'un
+ * observateur est journalisée et comptée (loan.events.failed), sans remonter à
+ * l'appelant ni priver les observateurs suivants de l'événement.
+ */
+public class LoanEventBus {
+
+    private static final LoanService.LoanObserver[] NONE = new LoanService.LoanObserver[0];
+    private static final Counter FAILED = MetricsRegistry.getInstance().counter("loan.events.failed");
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private volatile DispatchTable table = new DispatchTable(new HashMap<>());
+
+    /**
+     * Abonne un observateur aux types donnés (tous les types si aucun)
+     */
+    public void subscribe(LoanService.LoanObserver observer, LoanEvent.Type... types) {
+        subscribe(observer, null, types);
+    }
+
+    /**
+     * Abonne un observateur aux événements d'une clé : identifiant d'emprunt,
+     * de lecteur ou ISBN (tous les types si aucun n'est donné)
+     */
+    public synchronized void subscribe(LoanService.LoanObserver observer, String key, LoanEvent.Type... types) {
+        if (observer == null) {
+            throw new IllegalArgumentException("L'observateur ne peut pas être null");
+        }
+        Set<LoanEvent.Type> filter = types.length == 0
+                ? EnumSet.allOf(LoanEvent.Type.class)
+                : EnumSet.copyOf(Arrays.asList(types));
+        subscriptions.add(new Subscription(observer, key, filter));
+        rebuild();
+    }
+
+    /**
+     * Retire tous les abonnements d'un observateur
+     */
+    public synchronized void unsubscribe(LoanService.LoanObserver observer) {
+        subscriptions.removeIf(subscription -> subscription.observer == observer);
+        rebuild();
+    }
+
+    /**
+     * Distribue l'événement à ses abonnés, dans l'ordre d'abonnement
+     */
+    public void publish(LoanEvent event) {
+        DispatchTable current = table;
+        for (LoanService.LoanObserver observer : current.observers(null, event.getType())) {
+            deliverTo(observer, event);
+        }
+        if (current.hasKeys()) {
+            deliver(current, event.getLoanId(), event);
+            deliver(current, event.getUserId(), event);
+            deliver(current, event.getIsbn(), event);
+        }
+    }
+
+    private static void deliver(DispatchTable table, String key, LoanEvent event) {
+        if (key != null) {
+            for (LoanService.LoanObserver observer : table.observers(key, event.getType())) {
+                deliverTo(observer, event);
+            }
+        }
+    }
+
+    private static void deliverTo(LoanService.LoanObserver observer, LoanEvent event) {
+        try {
+            observer.onLoanEvent(event);
+        } catch (RuntimeException e) {
+            FAILED.increment();
+            System.err.println("[events] Échec de l'observateur " + observer.getClass().getSimpleName()
+                    + " sur " + event + " : " + e);
+        }
+    }
+
+    /**
+     * Reconstruit la table immuable à partir des abonnements (sous le verrou)
+     */
+    private void rebuild() {
+        Map<String, EnumMap<LoanEvent.Type, LoanService.LoanObserver[]>> byKey = new HashMap<>();
+        for (Subscription subscription : subscriptions) {
+            EnumMap<LoanEvent.Type, LoanService.LoanObserver[]> byType =
+                    byKey.computeIfAbsent(subscription.key, k -> new EnumMap<>(LoanEvent.Type.class));
+            for (LoanEvent.Type type : subscription.types) {
+                LoanService.LoanObserver[] observers = byType.getOrDefault(type, NONE);
+                LoanService.LoanObserver[] extended = Arrays.copyOf(observers, observers.length + 1);
+                extended[observers.length] = subscription.observer;
+                byType.put(type, extended);
+            }
+        }
+        table = new DispatchTable(byKey);
+    }
+
+    private static final class Subscription {
+        private final LoanService.LoanObserver observer;
+        private final String key;
+        private final Set<LoanEvent.Type> types;
+
+        Subscription(LoanService.LoanObserver observer, String key, Set<LoanEvent.Type> types) {
+            this.observer = observer;
+            this.key = key;
+            this.types = types;
+        }
+    }
+
+    /**
+     * Table de distribution immuable (clé null = abonnements sans clé)
+     */
+    private static final class DispatchTable {
+        private final Map<String, EnumMap<LoanEvent.Type, LoanService.LoanObserver[]>> byKey;
+        private final boolean keyed;
+
+        DispatchTable(Map<String, EnumMap<LoanEvent.Type, LoanService.LoanObserver[]>> byKey) {
+            this.byKey = byKey;
+            this.keyed = byKey.size() > (byKey.containsKey(null) ? 1 : 0);
+        }
+
+        LoanService.LoanObserver[] observers(String key, LoanEvent.Type type) {
+            EnumMap<LoanEvent.Type, LoanService.LoanObserver[]> byType = byKey.get(key);
+            return byType == null ? NONE : byType.getOrDefault(type, NONE);
+        }
+
+        boolean hasKeys() {
+            return keyed;
+        }
+    }
+}
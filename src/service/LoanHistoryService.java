@@ -0,0 +1,190 @@
+package service;
+
+import model.Loan;
+import model.LoanEvent;
+import repository.LoanRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pattern : Observer (implémente LoanObserver) + Event Sourcing
+ * Pourquoi : Conserve le flux append-only des événements d'emprunt et maintient
+ * des vues matérialisées mises à jour à chaque événement. Les tableaux de bord
+ * lisent ainsi un état précalculé au lieu de rescanner tout l'historique.
+ *
+ * Les vues sont amorcées à partir des emprunts existants (le flux, lui, ne contient
+ * que les événements publiés depuis le démarrage). Les retards passés sont tirés
+ * des retours constatés : un emprunt rendu en retard reste compté en retard
+ * chaque jour entre son échéance et son retour, même une fois rendu.
+ * Lien : https://martinfowler.com/eaaDev/EventSourcing.html
+ */
+public class LoanHistoryService implements LoanService.LoanObserver {
+
+    // Flux d'événements : on ajoute, on ne modifie jamais
+    private final List<LoanEvent> events = new ArrayList<>();
+
+    // Vues matérialisées
+    private final Map<String, Integer> activeLoansByUser = new HashMap<>();
+    private final Map<String, Integer> circulationByIsbn = new HashMap<>();
+    private final Map<String, LocalDate> activeDueDates = new HashMap<>(); // loanId → date de retour prévue
+    private final TreeMap<LocalDate, Integer> activeLoansByDueDate = new TreeMap<>();
+    // Emprunts rendus en retard : +1 au lendemain de l'échéance, -1 au lendemain du retour
+    private final TreeMap<LocalDate, Integer> returnedOverdueChanges = new TreeMap<>();
+
+    public LoanHistoryService() {
+    }
+
+    /**
+     * Amorce les vues à partir des emprunts existants. Pour ne manquer aucun
+     * événement, à construire et abonner sous TransactionManager.readCommitted.
+     */
+    public LoanHistoryService(LoanRepository loanRepository) {
+        for (Loan loan : loanRepository.findAll()) {
+            circulationByIsbn.merge(loan.getIsbn(), 1, Integer::sum);
+            if (loan.isReturned()) {
+                recordReturn(loan.getDueDate(), loan.getReturnDate());
+            } else {
+                activeLoansByUser.merge(loan.getUserId(), 1, Integer::sum);
+                activeDueDates.put(loan.getLoanId(), loan.getDueDate());
+                activeLoansByDueDate.merge(loan.getDueDate(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Pattern : Observer - Ajoute l'événement au flux puis applique son effet aux vues
+     */
+    @Override
+    public synchronized void onLoanEvent(LoanEvent event) {
+        // Distribués sous le verrou de commit : les événements arrivent dans l'ordre des numéros
+        events.add(event);
+        apply(event);
+    }
+
+    private void apply(LoanEvent event) {
+        switch (event.getType()) {
+            case CREATED -> {
+                activeLoansByUser.merge(event.getUserId(), 1, Integer::sum);
+                circulationByIsbn.merge(event.getIsbn(), 1, Integer::sum);
+                activeDueDates.put(event.getLoanId(), event.getDueDate());
+                activeLoansByDueDate.merge(event.getDueDate(), 1, Integer::sum);
+            }
+            case RETURNED -> {
+                activeLoansByUser.merge(event.getUserId(), -1, this::sumOrRemove);
+                LocalDate dueDate = activeDueDates.remove(event.getLoanId());
+                if (dueDate != null) {
+                    activeLoansByDueDate.merge(dueDate, -1, this::sumOrRemove);
+                }
+                recordReturn(event.getDueDate(), event.getDate());
+            }
+            case RENEWED -> {
+                LocalDate dueDate = activeDueDates.replace(event.getLoanId(), event.getDueDate());
+                if (dueDate != null) {
+                    activeLoansByDueDate.merge(dueDate, -1, this::sumOrRemove);
+                    activeLoansByDueDate.merge(event.getDueDate(), 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Un emprunt rendu après son échéance est en retard de l'échéance (exclue)
+     * au jour du retour (inclus)
+     */
+    private void recordReturn(LocalDate dueDate, LocalDate returnDate) {
+        if (returnDate.isAfter(dueDate)) {
+            returnedOverdueChanges.merge(dueDate.plusDays(1), 1, this::sumOrRemoveZero);
+            returnedOverdueChanges.merge(returnDate.plusDays(1), -1, this::sumOrRemoveZero);
+        }
+    }
+
+    // Renvoie null quand le compteur tombe à zéro : Map.merge supprime alors l'entrée
+    private Integer sumOrRemove(Integer current, Integer delta) {
+        int result = current + delta;
+        return result <= 0 ? null : result;
+    }
+
+    // Variante pour les variations (qui peuvent être négatives)
+    private Integer sumOrRemoveZero(Integer current, Integer delta) {
+        int result = current + delta;
+        return result == 0 ? null : result;
+    }
+
+    /**
+     * Historique complet (lecture seule), dans l'ordre des numéros de séquence
+     */
+    public synchronized List<LoanEvent> getEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * Événements publiés après un numéro de séquence donné (pour rattraper un retard)
+     */
+    public synchronized List<LoanEvent> getEventsSince(long sequence) {
+        List<LoanEvent> result = new ArrayList<>();
+        for (int i = events.size() - 1; i >= 0 && events.get(i).getSequence() > sequence; i--) {
+            result.add(events.get(i));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Nombre d'emprunts en cours d'un utilisateur - O(1)
+     */
+    public synchronized int getActiveLoanCount(String userId) {
+        return activeLoansByUser.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Nombre total d'emprunts d'un livre depuis le début - O(1)
+     */
+    public synchronized int getCirculationCount(String isbn) {
+        return circulationByIsbn.getOrDefault(isbn, 0);
+    }
+
+    /**
+     * Nombre d'emprunts en cours dont la date de retour tombe un jour donné - O(1)
+     */
+    public synchronized int getDueCount(LocalDate day) {
+        return activeLoansByDueDate.getOrDefault(day, 0);
+    }
+
+    /**
+     * Nombre d'emprunts en retard à une date donnée : échéance dépassée et pas encore
+     * rendus ce jour-là (y compris ceux rendus depuis). Ne parcourt que les dates
+     * distinctes d'échéance et de retour, jamais les emprunts eux-mêmes.
+     */
+    public synchronized int getOverdueCount(LocalDate day) {
+        int total = 0;
+        for (int count : activeLoansByDueDate.headMap(day, false).values()) {
+            total += count;
+        }
+        for (int change : returnedOverdueChanges.headMap(day, true).values()) {
+            total += change;
+        }
+        return total;
+    }
+
+    /**
+     * Nombre d'emprunts en retard pour chaque jour d'une période (bornes incluses)
+     */
+    public synchronized Map<LocalDate, Integer> getOverdueCountsPerDay(LocalDate from, LocalDate to) {
+        Map<LocalDate, Integer> result = new TreeMap<>();
+        int running = getOverdueCount(from);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            result.put(day, running);
+            // Le lendemain, les emprunts échus aujourd'hui passent en retard,
+            // ceux rendus en retard aujourd'hui n'y sont plus
+            running += activeLoansByDueDate.getOrDefault(day, 0)
+                    + returnedOverdueChanges.getOrDefault(day.plusDays(1), 0);
+        }
+        return result;
+    }
+}
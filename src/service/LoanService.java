@@ -1,14 +1,37 @@
 package service;
 
 import dto.LoanDTO;
+import export.ExportFormat;
+import export.LoanExporter;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import metrics.OperationContext;
 import model.Loan;
+import model.LoanEvent;
+import model.Book;
+import model.User;
+import query.Criteria;
+import query.LoanFields;
+import query.Query;
+import repository.EntityHandle;
+import repository.BookRepositoryImpl;
 import repository.LoanRepository;
 import repository.LoanRepositoryImpl;
+import repository.UserRepositoryImpl;
+import transaction.TransactionConflictException;
+import transaction.TransactionManager;
+import transaction.UnitOfWork;
+import util.LibraryClock;
+import workload.Operation;
+import workload.WorkloadRecorder;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -16,110 +39,275 @@ import java.util.stream.Collectors;
  * Logique métier liée aux emprunts
  *
  * Pattern : Observer (Subject)
- * Notifie les observateurs quand un emprunt est créé ou retourné
+ * Publie un événement typé (LoanEvent) quand un emprunt est créé, retourné,
+ * prolongé ou passe en retard ; la distribution est confiée au LoanEventBus
  * Lien : https://refactoring.guru/fr/design-patterns/observer/java/example
  */
 public class LoanService {
 
+    // Métriques (récupérées une seule fois, hors du chemin critique)
+    private static final LatencyTimer CREATE_LOAN_TIMER = MetricsRegistry.getInstance().timer("loan.create");
+    private static final LatencyTimer RETURN_BOOK_TIMER = MetricsRegistry.getInstance().timer("loan.return");
+
     private final LoanRepository loanRepository;
+    private final TransactionManager transactions;
     private final BookService bookService;
     private final UserService userService;
 
-    // Pattern Observer : liste des observateurs à notifier
-    private final List<LoanObserver> observers;
+    // Pattern Observer : abonnés aux événements, filtrés par type ou par clé
+    private final LoanEventBus events = new LoanEventBus();
+
+    private final AtomicInteger loanCounter; // Pour générer des IDs uniques (hors verrou de commit)
 
-    private int loanCounter = 1; // Pour générer des IDs uniques
+    private static final int LOAN_DURATION_DAYS = 14;
+    private static final int MAX_ATTEMPTS = 3; // Tentatives en cas de conflit de transaction
 
     public LoanService(BookService bookService, UserService userService) {
-        this.loanRepository = new LoanRepositoryImpl();
+        this(new TransactionManager(new BookRepositoryImpl(), new UserRepositoryImpl(), new LoanRepositoryImpl()),
+                bookService, userService);
+    }
+
+    /**
+     * @param transactions transactions sur les mêmes repositories que bookService et userService
+     */
+    public LoanService(TransactionManager transactions, BookService bookService, UserService userService) {
+        this.transactions = transactions;
+        this.loanRepository = transactions.getLoanRepository();
         this.bookService = bookService;
         this.userService = userService;
-        this.observers = new ArrayList<>();
+        // Reprend la numérotation après les emprunts déjà chargés (instantané)
+        this.loanCounter = new AtomicInteger(nextLoanNumber(loanRepository.findAll()));
+        // Pattern Observer : les événements sont distribués au commit, sous son verrou,
+        // donc dans l'ordre de leurs numéros (jamais un retour avant son emprunt)
+        transactions.addCommitListener(record -> record.getEvents().forEach(events::publish));
+    }
+
+    /**
+     * Pattern Observer : Abonne un observateur aux types d'événements donnés (tous si aucun)
+     */
+    public void addObserver(LoanObserver observer, LoanEvent.Type... types) {
+        events.subscribe(observer, types);
+    }
+
+    /**
+     * Abonnements avancés (par clé : emprunt, lecteur ou livre)
+     */
+    public LoanEventBus getEvents() {
+        return events;
     }
 
     /**
-     * Pattern Observer : Ajoute un observateur
+     * Signale qu'un emprunt n'a pas été rendu à temps (appelé par le planificateur de rappels)
      */
-    public void addObserver(LoanObserver observer) {
-        observers.add(observer);
+    public void publishOverdue(String loanId, String userId, String isbn, LocalDate dueDate) {
+        transactions.publishNumbered(new LoanEvent(0, LoanEvent.Type.OVERDUE, loanId, userId, isbn,
+                LibraryClock.getInstance().today(), dueDate, null), events::publish);
     }
 
     /**
-     * Pattern Observer : Notifie tous les observateurs
+     * Événement d'une transaction : numéroté, enregistré dans l'Outbox et distribué
+     * aux abonnés au commit
      */
-    private void notifyObservers(String userId, String isbn, String message) {
-        for (LoanObserver observer : observers) {
-            observer.onLoanEvent(userId, isbn, message);
+    private static void stageEvent(UnitOfWork unitOfWork, LoanEvent.Type type, Loan loan, LocalDate date,
+                                   LocalDate previousDueDate) {
+        unitOfWork.publish(new LoanEvent(0, type, loan.getLoanId(), loan.getUserId(), loan.getIsbn(), date,
+                loan.getDueDate(), previousDueDate));
+    }
+
+    /**
+     * Premier numéro libre après les emprunts existants : les identifiants générés
+     * sont uniques par construction, l'emprunt créé n'a pas à être recherché
+     */
+    private static int nextLoanNumber(List<Loan> loans) {
+        int max = 0;
+        for (Loan loan : loans) {
+            String id = loan.getLoanId();
+            if (id.length() > 1 && id.charAt(0) == 'L' && id.chars().skip(1).allMatch(Character::isDigit)) {
+                max = Math.max(max, Integer.parseInt(id.substring(1)));
+            }
         }
+        return Math.max(max, loans.size()) + 1;
     }
 
     /**
      * Crée un nouvel emprunt
+     * L'emprunt et le livre devenu indisponible sont écrits dans une seule transaction ;
+     * le lecteur et le livre sont résolus une seule fois (handles), le nouvel
+     * emprunt n'est jamais recherché
      */
     public void createLoan(String userId, String isbn) {
-        // Validation métier
-        if (!userService.userExists(userId)) {
-            throw new IllegalArgumentException("Utilisateur introuvable : " + userId);
-        }
+        WorkloadRecorder.getInstance().record(Operation.Type.BORROW, userId, isbn);
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(CREATE_LOAN_TIMER.getName());
+        try {
+            LoanEvent event = null;
+            for (int attempt = 1; event == null; attempt++) {
+                UnitOfWork unitOfWork = transactions.begin();
+
+                // Validation métier
+                EntityHandle<User> user = unitOfWork.resolveUser(userId);
+                if (!user.isPresent()) {
+                    throw new IllegalArgumentException("Utilisateur introuvable : " + userId);
+                }
+                EntityHandle<Book> book = unitOfWork.resolveBook(isbn);
+                if (!book.isPresent() || !book.get().isAvailable()) {
+                    // Lu sans verrou, le livre peut être celui d'un retour à moitié appliqué :
+                    // le refus n'est prononcé qu'après relecture sous le verrou de commit
+                    if (!transactions.readCommitted(() -> isAvailable(isbn))) {
+                        throw new IllegalArgumentException("Le livre n'est pas disponible : " + isbn);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw new TransactionConflictException("Livre modifié pendant l'emprunt : " + isbn);
+                    }
+                    continue;
+                }
 
-        if (!bookService.isBookAvailable(isbn)) {
-            throw new IllegalArgumentException("Le livre n'est pas disponible : " + isbn);
+                // Création de l'emprunt
+                String loanId = "L" + String.format("%03d", loanCounter.getAndIncrement());
+                LocalDate loanDate = LibraryClock.getInstance().today();
+                LocalDate dueDate = loanDate.plusDays(LOAN_DURATION_DAYS); // 14 jours d'emprunt
+                Loan created = new Loan(loanId, userId, isbn, loanDate, dueDate);
+
+                // L'emprunt et le livre marqué comme emprunté, validés ensemble
+                unitOfWork.insertLoan(created);
+                unitOfWork.updateBook(book, new Book.Builder(book.get()).available(false).build());
+                stageEvent(unitOfWork, LoanEvent.Type.CREATED, created, loanDate, null);
+                event = commit(unitOfWork, attempt);
+            }
+        } finally {
+            CREATE_LOAN_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
         }
+    }
 
-        // Création de l'emprunt
-        String loanId = "L" + String.format("%03d", loanCounter++);
-        LocalDate loanDate = LocalDate.now();
-        LocalDate dueDate = loanDate.plusDays(14); // 14 jours d'emprunt
+    /**
+     * Retourne un livre emprunté
+     * L'emprunt clôturé et le livre redevenu disponible sont écrits dans une seule transaction ;
+     * chacun est résolu une seule fois (handles)
+     */
+    public void returnBook(String loanId) {
+        WorkloadRecorder.getInstance().record(Operation.Type.RETURN, loanId);
+        returnLoan(loanId);
+    }
 
-        Loan loan = new Loan(loanId, userId, isbn, loanDate, dueDate);
-        loanRepository.save(loan);
+    private void returnLoan(String loanId) {
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(RETURN_BOOK_TIMER.getName());
+        try {
+            LoanEvent event = null;
+            for (int attempt = 1; event == null; attempt++) {
+                UnitOfWork unitOfWork = transactions.begin();
+                EntityHandle<Loan> loan = unitOfWork.resolveLoan(loanId);
+                if (!loan.isPresent()) {
+                    throw new IllegalArgumentException("Emprunt introuvable : " + loanId);
+                }
+                Loan current = loan.get();
 
-        // Marque le livre comme emprunté
-        bookService.markAsUnavailable(isbn);
+                if (current.isReturned()) {
+                    throw new IllegalArgumentException("Ce livre a déjà été retourné");
+                }
 
-        // Pattern Observer : Notifie les observateurs
-        String bookTitle = bookService.getBookByIsbn(isbn).getTitle();
-        String userName = userService.getUserFullName(userId);
-        String message = String.format(
-                "📚 Emprunt créé avec succès !\n" +
-                        "Livre : %s\n" +
-                        "Emprunteur : %s\n" +
-                        "Date de retour : %s",
-                bookTitle, userName, dueDate.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
-        );
+                // Marque l'emprunt comme retourné (nouvelle version de l'emprunt)
+                Loan returned = new Loan(current);
+                returned.setReturnDate(LibraryClock.getInstance().today());
+                unitOfWork.updateLoan(loan, returned);
 
-        notifyObservers(userId, isbn, message);
+                // Marque le livre comme disponible
+                EntityHandle<Book> book = unitOfWork.resolveBook(current.getIsbn());
+                if (!book.isPresent()) {
+                    throw new IllegalArgumentException("Livre introuvable : " + current.getIsbn());
+                }
+                unitOfWork.updateBook(book, new Book.Builder(book.get()).available(true).build());
+                stageEvent(unitOfWork, LoanEvent.Type.RETURNED, returned,
+                        returned.getReturnDate(), null);
+                event = commit(unitOfWork, attempt);
+            }
+        } finally {
+            RETURN_BOOK_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
+        }
     }
 
     /**
-     * Retourne un livre emprunté
+     * Retourne le livre d'après son ISBN (boîte de retour : on ne connaît pas l'emprunt)
      */
-    public void returnBook(String loanId) {
-        Loan loan = loanRepository.findById(loanId)
-                .orElseThrow(() -> new IllegalArgumentException("Emprunt introuvable : " + loanId));
-
-        if (loan.isReturned()) {
-            throw new IllegalArgumentException("Ce livre a déjà été retourné");
+    public void returnBookByIsbn(String isbn) {
+        WorkloadRecorder.getInstance().record(Operation.Type.RETURN_BY_ISBN, isbn);
+        for (int attempt = 1; ; attempt++) {
+            Optional<Loan> loan = findActiveLoan(isbn);
+            if (loan.isEmpty()) {
+                // Sans verrou, la requête peut voir un retour à moitié appliqué : refus confirmé sous le verrou
+                loan = transactions.readCommitted(() -> findActiveLoan(isbn));
+                if (loan.isEmpty()) {
+                    throw new IllegalArgumentException("Aucun emprunt en cours pour : " + isbn);
+                }
+            }
+            try {
+                returnLoan(loan.get().getLoanId());
+                return;
+            } catch (IllegalArgumentException e) {
+                // Emprunt clôturé entre-temps par un autre retour : le livre a pu être emprunté à nouveau
+                if (attempt >= MAX_ATTEMPTS || transactions.readCommitted(() -> findActiveLoan(isbn)).isEmpty()) {
+                    throw e;
+                }
+            }
         }
+    }
 
-        // Marque l'emprunt comme retourné
-        loan.setReturnDate(LocalDate.now());
-        loanRepository.update(loan);
+    private Optional<Loan> findActiveLoan(String isbn) {
+        return loanRepository.query(new Query.Builder<Loan>()
+                        .where(Criteria.allOf(Criteria.eq(LoanFields.ISBN, isbn), Criteria.eq(LoanFields.RETURNED, false)))
+                        .limit(1)
+                        .build())
+                .getRows().stream()
+                .findFirst();
+    }
 
-        // Marque le livre comme disponible
-        bookService.markAsAvailable(loan.getIsbn());
+    private boolean isAvailable(String isbn) {
+        return transactions.getBookRepository().findByIsbn(isbn).map(Book::isAvailable).orElse(false);
+    }
 
-        // Notifie les observateurs
-        String bookTitle = bookService.getBookByIsbn(loan.getIsbn()).getTitle();
-        String userName = userService.getUserFullName(loan.getUserId());
-        String message = String.format(
-                "✅ Livre retourné !\n" +
-                        "Livre : %s\n" +
-                        "Emprunteur : %s",
-                bookTitle, userName
-        );
+    /**
+     * Prolonge un emprunt en cours de 14 jours
+     */
+    public void renewLoan(String loanId) {
+        WorkloadRecorder.getInstance().record(Operation.Type.RENEW, loanId);
+        LoanEvent event = null;
+        for (int attempt = 1; event == null; attempt++) {
+            UnitOfWork unitOfWork = transactions.begin();
+            EntityHandle<Loan> loan = unitOfWork.resolveLoan(loanId);
+            if (!loan.isPresent()) {
+                throw new IllegalArgumentException("Emprunt introuvable : " + loanId);
+            }
+            Loan current = loan.get();
 
-        notifyObservers(loan.getUserId(), loan.getIsbn(), message);
+            if (current.isReturned()) {
+                throw new IllegalArgumentException("Impossible de prolonger un emprunt déjà retourné");
+            }
+
+            LocalDate previousDueDate = current.getDueDate();
+            Loan renewed = new Loan(current);
+            renewed.setDueDate(previousDueDate.plusDays(LOAN_DURATION_DAYS));
+            unitOfWork.updateLoan(loan, renewed);
+            stageEvent(unitOfWork, LoanEvent.Type.RENEWED, renewed, LibraryClock.getInstance().today(),
+                    previousDueDate);
+            event = commit(unitOfWork, attempt);
+        }
+    }
+
+    /**
+     * Valide la transaction ; renvoie son événement numéroté, ou null si elle est en
+     * conflit et peut être rejouée
+     */
+    private static LoanEvent commit(UnitOfWork unitOfWork, int attempt) {
+        try {
+            return unitOfWork.commit().getEvents().get(0);
+        } catch (TransactionConflictException e) {
+            if (attempt >= MAX_ATTEMPTS) {
+                throw e;
+            }
+            return null;
+        }
     }
 
     /**
@@ -140,6 +328,21 @@ public class LoanService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Exporte tout l'historique des emprunts dans un fichier compressé (gzip)
+     *
+     * La liste est prise sans le verrou de commit : une transaction n'écrit qu'un
+     * emprunt, remplacé d'un bloc, donc aucun emprunt n'est vu à moitié écrit. Le
+     * repository DataStore renvoie une version figée (O(1)) ; le repository
+     * partitionné copie chaque shard sous son seul verrou de lecture, sans bloquer
+     * les commits des autres shards. La liste est ensuite encodée en parallèle par
+     * LoanExporter.
+     */
+    public LoanExporter.Result exportHistory(Path target, ExportFormat format) throws IOException {
+        List<Loan> loans = loanRepository.findAll();
+        return new LoanExporter.Builder().format(format).build().export(loans, target);
+    }
+
     /**
      * Récupère les emprunts en retard
      */
@@ -151,11 +354,15 @@ public class LoanService {
 
     /**
      * Récupère les emprunts actifs d'un utilisateur spécifique
-     * Pour la fonctionnalité "Voir mes emprunts"
+     * Pour la fonctionnalité "Voir mes emprunts" (échéance la plus proche d'abord)
      */
     public List<LoanDTO> getActiveLoansByUserId(String userId) {
-        return loanRepository.findActiveLoans().stream()
-                .filter(loan -> loan.getUserId().equals(userId))
+        WorkloadRecorder.getInstance().record(Operation.Type.MY_LOANS, userId);
+        return loanRepository.query(new Query.Builder<Loan>()
+                        .where(Criteria.allOf(Criteria.eq(LoanFields.USER_ID, userId), Criteria.eq(LoanFields.RETURNED, false)))
+                        .orderBy(LoanFields.DUE_DATE)
+                        .build())
+                .getRows().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -189,7 +396,8 @@ public class LoanService {
     /**
      * Interface Observer pour les événements d'emprunt
      */
+    @FunctionalInterface
     public interface LoanObserver {
-        void onLoanEvent(String userId, String isbn, String message);
+        void onLoanEvent(LoanEvent event);
     }
 }
\ No newline at end of file
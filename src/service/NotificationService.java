@@ -1,22 +1,39 @@
 package service;
 
+import dto.BookDTO;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import metrics.OperationContext;
+import model.LoanEvent;
 import pattern.NotificationFactory;
 import pattern.NotificationStrategy;
 
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 /**
  * Pattern : Observer (implémente LoanObserver)
  * Pourquoi : Écoute les événements d'emprunt et déclenche automatiquement
- * une notification quand un emprunt est créé ou retourné.
+ * une notification quand un emprunt est créé ou retourné. Le message est
+ * rédigé ici, à partir de l'événement typé : seul ce service en a besoin.
  *
  * Utilise aussi : Factory Pattern + Strategy Pattern
  */
 public class NotificationService implements LoanService.LoanObserver {
 
+    private static final LatencyTimer ON_LOAN_EVENT_TIMER =
+            MetricsRegistry.getInstance().timer("notification.onLoanEvent");
+    private static final LatencyTimer SEND_REMINDERS_TIMER =
+            MetricsRegistry.getInstance().timer("notification.sendReminders");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
     private NotificationStrategy notificationStrategy;
     private final UserService userService;
+    private final BookService bookService;
 
-    public NotificationService(UserService userService) {
+    public NotificationService(UserService userService, BookService bookService) {
         this.userService = userService;
+        this.bookService = bookService;
         // Par défaut, on utilise la notification console
         this.notificationStrategy = NotificationFactory.create("console");
     }
@@ -33,19 +50,73 @@ public class NotificationService implements LoanService.LoanObserver {
 
     /**
      * Pattern : Observer - Méthode appelée automatiquement par LoanService
-     * quand un événement d'emprunt se produit
+     * pour les événements auxquels ce service est abonné (création, retour)
      */
     @Override
-    public void onLoanEvent(String userId, String isbn, String message) {
-        // Récupère l'email ou l'ID de l'utilisateur comme destinataire
-        String recipient = userService.getUserEmail(userId);
+    public void onLoanEvent(LoanEvent event) {
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(ON_LOAN_EVENT_TIMER.getName());
+        try {
+            String message = render(event);
+            if (message == null) {
+                return;
+            }
+            // Récupère l'email ou l'ID de l'utilisateur comme destinataire
+            String recipient = userService.getUserEmail(event.getUserId());
+
+            if (recipient == null) {
+                recipient = event.getUserId(); // Fallback sur l'ID si pas d'email
+            }
 
-        if (recipient == null) {
-            recipient = userId; // Fallback sur l'ID si pas d'email
+            // Envoie la notification avec la stratégie actuelle
+            notificationStrategy.send(recipient, message);
+        } finally {
+            ON_LOAN_EVENT_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
         }
+    }
 
-        // Envoie la notification avec la stratégie actuelle
-        notificationStrategy.send(recipient, message);
+    /**
+     * Texte de la notification d'un événement (null si l'événement n'en produit pas)
+     */
+    private String render(LoanEvent event) {
+        BookDTO book = bookService.getBookByIsbn(event.getIsbn());
+        String title = book != null ? book.getTitle() : event.getIsbn();
+        String userName = userService.getUserFullName(event.getUserId());
+        return switch (event.getType()) {
+            case CREATED -> String.format(
+                    "📚 Emprunt créé avec succès !\n" +
+                            "Livre : %s\n" +
+                            "Emprunteur : %s\n" +
+                            "Date de retour : %s",
+                    title, userName, event.getDueDate().format(DATE_FORMAT));
+            case RETURNED -> String.format(
+                    "✅ Livre retourné !\n" +
+                            "Livre : %s\n" +
+                            "Emprunteur : %s",
+                    title, userName);
+            default -> null;
+        };
+    }
+
+    /**
+     * Envoie un lot de rappels de retour (appelé par ReminderService)
+     */
+    public void sendReminders(List<ReminderService.Reminder> reminders) {
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(SEND_REMINDERS_TIMER.getName());
+        try {
+            for (ReminderService.Reminder reminder : reminders) {
+                String recipient = userService.getUserEmail(reminder.getUserId());
+                String message = reminder.getKind().getMessage() + "\n" +
+                        "Emprunt : " + reminder.getLoanId() + " (ISBN " + reminder.getIsbn() + ")\n" +
+                        "Date de retour : " + reminder.getDueDate().format(DATE_FORMAT);
+                notificationStrategy.send(recipient != null ? recipient : reminder.getUserId(), message);
+            }
+        } finally {
+            SEND_REMINDERS_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
+        }
     }
 
     /**
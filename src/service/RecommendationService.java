@@ -0,0 +1,163 @@
+package service;
+
+import model.Loan;
+import model.LoanEvent;
+import repository.LoanRepository;
+import util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Pattern : Observer (implémente LoanObserver)
+ * Index de co-emprunts "les lecteurs qui ont emprunté ce livre ont aussi emprunté..."
+ *
+ * Pourquoi : Au lieu de recalculer les co-emprunts sur tout l'historique, chaque
+ * nouvel emprunt incrémente les compteurs entre le livre emprunté et les derniers
+ * livres du même lecteur. La mémoire reste bornée : historique limité par lecteur,
+ * et nombre de voisins limité par livre (élagage "space-saving" des moins fréquents).
+ */
+public class RecommendationService implements LoanService.LoanObserver {
+
+    private static final int HISTORY_PER_USER = 32;   // Derniers livres retenus par lecteur
+    private static final int NEIGHBOURS_PER_BOOK = 256; // Voisins conservés par livre
+
+    // Dictionnaire ISBN ↔ identifiant entier
+    private final Map<String, Integer> bookIds = new HashMap<>();
+    private final List<String> isbns = new ArrayList<>();
+
+    // Derniers livres empruntés par lecteur (tampon circulaire)
+    private final Map<String, UserHistory> historyByUser = new HashMap<>();
+
+    // Livre → (livre voisin → nombre de co-emprunts)
+    private final List<IntIntHashMap> coBorrows = new ArrayList<>();
+
+    public RecommendationService() {
+    }
+
+    /**
+     * Amorce l'index en rejouant les emprunts existants dans l'ordre chronologique.
+     * Pour ne manquer aucun emprunt, à construire et abonner sous
+     * TransactionManager.readCommitted.
+     */
+    public RecommendationService(LoanRepository loanRepository) {
+        List<Loan> loans = new ArrayList<>(loanRepository.findAll());
+        loans.sort(Comparator.comparing(Loan::getLoanDate).thenComparing(Loan::getLoanId));
+        for (Loan loan : loans) {
+            recordLoan(loan.getUserId(), loan.getIsbn());
+        }
+    }
+
+    /**
+     * Pattern : Observer - Met à jour l'index à chaque nouvel emprunt
+     */
+    @Override
+    public synchronized void onLoanEvent(LoanEvent event) {
+        if (event.getType() == LoanEvent.Type.CREATED) {
+            recordLoan(event.getUserId(), event.getIsbn());
+        }
+    }
+
+    /**
+     * Enregistre un emprunt et incrémente les co-emprunts avec l'historique du lecteur
+     */
+    public synchronized void recordLoan(String userId, String isbn) {
+        int book = idOf(isbn);
+        UserHistory history = historyByUser.computeIfAbsent(userId, k -> new UserHistory());
+        if (history.contains(book)) {
+            return; // Un ré-emprunt ne crée pas de nouvelle association
+        }
+        for (int i = 0; i < history.size; i++) {
+            int other = history.books[i];
+            increment(book, other);
+            increment(other, book);
+        }
+        history.add(book);
+    }
+
+    /**
+     * Livres les plus souvent empruntés avec celui-ci (ISBN, du plus fréquent au moins fréquent)
+     */
+    public synchronized List<String> getSimilarBooks(String isbn, int limit) {
+        Integer book = bookIds.get(isbn);
+        if (book == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Tas-min de taille limit : on ne garde que les meilleurs candidats
+        PriorityQueue<long[]> heap = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(a[1], b[1]));
+        coBorrows.get(book).forEach((other, count) -> {
+            if (heap.size() < limit) {
+                heap.add(new long[]{other, count});
+            } else if (count > heap.peek()[1]) {
+                heap.poll();
+                heap.add(new long[]{other, count});
+            }
+        });
+
+        List<String> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(isbns.get((int) heap.poll()[0]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private int idOf(String isbn) {
+        Integer id = bookIds.get(isbn);
+        if (id == null) {
+            id = isbns.size();
+            bookIds.put(isbn, id);
+            isbns.add(isbn);
+            coBorrows.add(new IntIntHashMap(16));
+        }
+        return id;
+    }
+
+    private void increment(int book, int other) {
+        IntIntHashMap neighbours = coBorrows.get(book);
+        if (neighbours.containsKey(other) || neighbours.size() < NEIGHBOURS_PER_BOOK) {
+            neighbours.addTo(other, 1);
+            return;
+        }
+        // Space-saving : le nouveau voisin remplace le moins fréquent et hérite de son compteur
+        int[] min = {-1, Integer.MAX_VALUE};
+        neighbours.forEach((key, count) -> {
+            if (count < min[1]) {
+                min[0] = key;
+                min[1] = count;
+            }
+        });
+        neighbours.remove(min[0]);
+        neighbours.put(other, min[1] + 1);
+    }
+
+    /**
+     * Tampon circulaire des derniers livres d'un lecteur
+     */
+    private static class UserHistory {
+        private final int[] books = new int[HISTORY_PER_USER];
+        private int size;
+        private int next;
+
+        boolean contains(int book) {
+            for (int i = 0; i < size; i++) {
+                if (books[i] == book) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int book) {
+            books[next] = book;
+            next = (next + 1) % books.length;
+            size = Math.min(size + 1, books.length);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package service;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import model.Loan;
+import model.LoanEvent;
+import repository.LoanRepository;
+import util.LibraryClock;
+import util.TimingWheel;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pattern : Observer (implémente LoanObserver)
+ * Rappels de retour programmés à chaque emprunt : 2 jours avant l'échéance,
+ * le jour de l'échéance et le lendemain.
+ *
+ * Pourquoi : Sans rappel, un emprunt en retard n'est découvert qu'en scannant
+ * tous les emprunts (getOverdueLoans). Ici chaque emprunt programme ses rappels
+ * dans une TimingWheel (O(1)), un retour les annule (O(1)), et un thread avance
+ * la roue chaque minute : les rappels arrivés à terme partent par lots.
+ *
+ * Au redémarrage, les rappels encore à venir sont reprogrammés à partir des
+ * emprunts actifs. Des rappels dont l'heure est passée, seul le retard (OVERDUE)
+ * est envoyé, une fois, au premier tick : un emprunt passé en retard pendant
+ * l'arrêt est signalé. Rien n'étant conservé d'un lancement à l'autre, un retard
+ * déjà signalé avant l'arrêt l'est à nouveau.
+ */
+public class ReminderService implements LoanService.LoanObserver {
+
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final LocalTime REMINDER_TIME = LocalTime.of(9, 0); // Heure d'envoi des rappels
+
+    private static final Counter SCHEDULED = MetricsRegistry.getInstance().counter("reminder.scheduled");
+    private static final Counter SENT = MetricsRegistry.getInstance().counter("reminder.sent");
+
+    private final Clock clock;
+    private final Consumer<List<Reminder>> sink;
+    private final TimingWheel<Reminder> wheel;
+
+    // Rappels en attente par emprunt (pour les annuler au retour ou à la prolongation)
+    private final Map<String, TimingWheel.Timer<Reminder>[]> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param sink reçoit chaque lot de rappels arrivés à terme
+     */
+    public ReminderService(LoanRepository loanRepository, Consumer<List<Reminder>> sink) {
+        this(loanRepository, sink, LibraryClock.getInstance());
+    }
+
+    public ReminderService(LoanRepository loanRepository, Consumer<List<Reminder>> sink, Clock clock) {
+        this.clock = clock;
+        this.sink = sink;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, clock.millis());
+        for (Loan loan : loanRepository.findActiveLoans()) {
+            schedule(loan.getLoanId(), loan.getUserId(), loan.getIsbn(), loan.getDueDate(), true);
+        }
+    }
+
+    /**
+     * Démarre le thread qui envoie les rappels arrivés à terme
+     */
+    public synchronized void start() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reminder-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(this::fireDueReminders, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Envoie (en un lot) les rappels arrivés à terme ; renvoie leur nombre
+     */
+    public int fireDueReminders() {
+        List<Reminder> due = wheel.advance(clock.millis());
+        if (!due.isEmpty()) {
+            sink.accept(due);
+            SENT.add(due.size());
+        }
+        return due.size();
+    }
+
+    /**
+     * Nombre de rappels programmés et pas encore envoyés
+     */
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Pattern : Observer - Programme, annule ou décale les rappels de l'emprunt
+     */
+    @Override
+    public void onLoanEvent(LoanEvent event) {
+        switch (event.getType()) {
+            case CREATED -> schedule(event.getLoanId(), event.getUserId(), event.getIsbn(), event.getDueDate(), false);
+            case RETURNED -> cancel(event.getLoanId());
+            case RENEWED -> {
+                cancel(event.getLoanId());
+                schedule(event.getLoanId(), event.getUserId(), event.getIsbn(), event.getDueDate(), true);
+            }
+        }
+    }
+
+    /**
+     * @param futureOnly rappels d'avant l'échéance (BEFORE_DUE, DUE) ignorés si leur heure est passée
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void schedule(String loanId, String userId, String isbn, LocalDate dueDate, boolean futureOnly) {
+        Reminder.Kind[] kinds = Reminder.Kind.values();
+        TimingWheel.Timer<Reminder>[] timers = new TimingWheel.Timer[kinds.length];
+        long now = clock.millis();
+        for (Reminder.Kind kind : kinds) {
+            LocalDate date = dueDate.plusDays(kind.offsetDays);
+            long deadline = date.atTime(REMINDER_TIME).atZone(clock.getZone()).toInstant().toEpochMilli();
+            if (futureOnly && deadline <= now && kind != Reminder.Kind.OVERDUE) {
+                continue;
+            }
+            timers[kind.ordinal()] = wheel.schedule(deadline, new Reminder(kind, loanId, userId, isbn, dueDate));
+            SCHEDULED.increment();
+        }
+        pending.put(loanId, timers);
+    }
+
+    private void cancel(String loanId) {
+        TimingWheel.Timer<Reminder>[] timers = pending.remove(loanId);
+        if (timers != null) {
+            for (TimingWheel.Timer<Reminder> timer : timers) {
+                if (timer != null) {
+                    timer.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rappel arrivé à terme pour un emprunt
+     */
+    public static final class Reminder {
+
+        public enum Kind {
+            BEFORE_DUE(-2, "⏰ Rappel : ce livre est à rendre dans 2 jours"),
+            DUE(0, "📅 Rappel : ce livre est à rendre aujourd'hui"),
+            OVERDUE(1, "⚠️ Retard : ce livre aurait dû être rendu hier");
+
+            private final int offsetDays;
+            private final String message;
+
+            Kind(int offsetDays, String message) {
+                this.offsetDays = offsetDays;
+                this.message = message;
+            }
+
+            public String getMessage() { return message; }
+        }
+
+        private final Kind kind;
+        private final String loanId;
+        private final String userId;
+        private final String isbn;
+        private final LocalDate dueDate;
+
+        Reminder(Kind kind, String loanId, String userId, String isbn, LocalDate dueDate) {
+            this.kind = kind;
+            this.loanId = loanId;
+            this.userId = userId;
+            this.isbn = isbn;
+            this.dueDate = dueDate;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getLoanId() { return loanId; }
+        public String getUserId() { return userId; }
+        public String getIsbn() { return isbn; }
+        public LocalDate getDueDate() { return dueDate; }
+    }
+}
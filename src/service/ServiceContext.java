@@ -0,0 +1,352 @@
+package service;
+
+import model.LoanEvent;
+import outbox.DurableOutbox;
+import outbox.OutboxDispatcher;
+import replication.Mutation;
+import replication.MutationLog;
+import replication.ReplicatingBookRepository;
+import replication.ReplicatingLoanRepository;
+import replication.ReplicatingUserRepository;
+import replication.ReplicationLeader;
+import repository.BookRepository;
+import repository.BookRepositoryImpl;
+import repository.LoanRepository;
+import repository.LoanRepositoryImpl;
+import repository.ObservableBookRepository;
+import repository.ShardedBookRepository;
+import repository.ShardedLoanRepository;
+import repository.ShardedUserRepository;
+import repository.UserRepository;
+import repository.UserRepositoryImpl;
+import transaction.TransactionManager;
+import util.DataStore;
+import util.ShardedDataStore;
+import workload.WorkloadRecorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Câblage paresseux des services
+ *
+ * Pourquoi : Chaque service (et le DataStore derrière lui) n'est construit qu'à
+ * sa première utilisation. L'application peut donc afficher son menu ou
+ * accepter sa première commande sans attendre que tout soit initialisé.
+ * Les observateurs de LoanService sont enregistrés au moment où il est créé.
+ *
+ * Avec -Dbiblio.shards=N (N > 0), les repositories s'appuient sur un
+ * ShardedDataStore à N partitions, rempli à partir du DataStore.
+ *
+ * Avec -Dbiblio.replication.port=P, ce processus devient leader de réplication :
+ * les écritures des repositories sont journalisées et envoyées aux réplicas
+ * (replication.ReplicaNode) qui se connectent sur le port P.
+ *
+ * Avec les notifications, les événements d'emprunt sont enregistrés dans une
+ * boîte d'envoi durable (-Dbiblio.outbox=fichier, outbox.log par défaut) avec
+ * leur transaction, puis livrés de façon asynchrone.
+ *
+ * Le repository des livres est enfin décoré par ObservableBookRepository pour que
+ * les index dérivés du catalogue (autocomplétion, facettes, recherche approchée)
+ * suivent chaque écriture.
+ *
+ * Avec -Dbiblio.record=fichier, les opérations des services sont enregistrées
+ * dans ce fichier (workload.WorkloadRecorder) pour être rejouées plus tard.
+ */
+public class ServiceContext {
+
+    private static final int OUTBOX_WORKERS = 2;
+
+    private final boolean consoleNotifications;
+    private final int shardCount = Integer.getInteger("biblio.shards", 0);
+    private final int replicationPort = Integer.getInteger("biblio.replication.port", 0);
+
+    private ShardedDataStore shardedStore;
+    private TransactionManager transactionManager;
+    private ObservableBookRepository observableBooks;
+    private MutationLog mutationLog;
+    private ReplicationLeader replicationLeader;
+
+    private BookService bookService;
+    private UserService userService;
+    private LoanService loanService;
+    private NotificationService notificationService;
+    private ReminderService reminderService;
+    private DurableOutbox outbox;
+    private OutboxDispatcher outboxDispatcher;
+    private LoanHistoryService loanHistoryService;
+    private RecommendationService recommendationService;
+    private AutocompleteService autocompleteService;
+    private CatalogBrowseService catalogBrowseService;
+    private CirculationAnalyticsService circulationAnalyticsService;
+
+    /**
+     * @param consoleNotifications false en mode batch : aucune notification n'est envoyée
+     */
+    public ServiceContext(boolean consoleNotifications) {
+        this.consoleNotifications = consoleNotifications;
+        String recording = System.getProperty("biblio.record");
+        if (recording != null && !WorkloadRecorder.getInstance().isRecording()) {
+            WorkloadRecorder.getInstance().start(Path.of(recording));
+        }
+    }
+
+    public synchronized BookService getBookService() {
+        if (bookService == null) {
+            bookService = new BookService(getTransactionManager());
+        }
+        return bookService;
+    }
+
+    public synchronized UserService getUserService() {
+        if (userService == null) {
+            userService = new UserService(getTransactionManager().getUserRepository());
+        }
+        return userService;
+    }
+
+    public synchronized LoanService getLoanService() {
+        if (loanService == null) {
+            loanService = new LoanService(getTransactionManager(), getBookService(), getUserService());
+            LoanService loans = loanService;
+
+            // Les notifications d'emprunt et de retour passent par la boîte d'envoi durable :
+            // enregistrées avec la transaction, livrées ensuite par des threads dédiés
+            if (consoleNotifications) {
+                notificationService = new NotificationService(getUserService(), getBookService());
+                try {
+                    outbox = new DurableOutbox(outboxPath(), getTransactionManager().getStoreEpoch());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Impossible d'ouvrir la boîte d'envoi", e);
+                }
+                getTransactionManager().setOutbox(outbox);
+                outboxDispatcher = new OutboxDispatcher(outbox, notificationService::onLoanEvent, OUTBOX_WORKERS);
+                outboxDispatcher.start();
+            }
+
+            // Rappels de retour (envoyés par lots via le NotificationService) ; le rappel
+            // du lendemain de l'échéance publie aussi l'événement OVERDUE
+            NotificationService notifications = notificationService;
+            reminderService = new ReminderService(getTransactionManager().getLoanRepository(), reminders -> {
+                if (notifications != null) {
+                    notifications.sendReminders(reminders);
+                }
+                for (ReminderService.Reminder reminder : reminders) {
+                    if (reminder.getKind() == ReminderService.Reminder.Kind.OVERDUE) {
+                        loans.publishOverdue(reminder.getLoanId(), reminder.getUserId(), reminder.getIsbn(),
+                                reminder.getDueDate());
+                    }
+                }
+            });
+            loanService.addObserver(reminderService,
+                    LoanEvent.Type.CREATED, LoanEvent.Type.RETURNED, LoanEvent.Type.RENEWED);
+            // En mode batch, pas de thread d'envoi : les rappels restent programmés
+            // (getPendingCount) et fireDueReminders peut être appelé explicitement
+            if (consoleNotifications) {
+                reminderService.start();
+            }
+
+            // Historique des emprunts : flux d'événements + vues matérialisées, amorcées
+            // à partir des emprunts existants et abonnées sous le verrou de commit
+            TransactionManager transactions = getTransactionManager();
+            loanHistoryService = transactions.readCommitted(() -> {
+                LoanHistoryService history = new LoanHistoryService(transactions.getLoanRepository());
+                loans.addObserver(history,
+                        LoanEvent.Type.CREATED, LoanEvent.Type.RETURNED, LoanEvent.Type.RENEWED);
+                return history;
+            });
+
+            // Recommandations "les lecteurs de ce livre ont aussi emprunté", amorcées
+            // elles aussi à partir des emprunts existants
+            recommendationService = transactions.readCommitted(() -> {
+                RecommendationService recommendations = new RecommendationService(transactions.getLoanRepository());
+                loans.addObserver(recommendations, LoanEvent.Type.CREATED);
+                return recommendations;
+            });
+        }
+        return loanService;
+    }
+
+    /**
+     * Journal de la boîte d'envoi : -Dbiblio.outbox, sinon outbox.log dans le répertoire
+     * de données (-Dbiblio.dataDir, par défaut ~/.biblio), jamais le répertoire courant
+     */
+    private static Path outboxPath() throws IOException {
+        String configured = System.getProperty("biblio.outbox");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        Path dataDir = Path.of(System.getProperty("biblio.dataDir",
+                Path.of(System.getProperty("user.home"), ".biblio").toString()));
+        Files.createDirectories(dataDir);
+        return dataDir.resolve("outbox.log");
+    }
+
+    /**
+     * Service de notification (null si les notifications sont désactivées)
+     */
+    public synchronized NotificationService getNotificationService() {
+        getLoanService();
+        return notificationService;
+    }
+
+    /**
+     * Boîte d'envoi des notifications (null si les notifications sont désactivées)
+     */
+    public synchronized DurableOutbox getOutbox() {
+        getLoanService();
+        return outbox;
+    }
+
+    /**
+     * Rappels de retour (et détection des retards)
+     */
+    public synchronized ReminderService getReminderService() {
+        getLoanService();
+        return reminderService;
+    }
+
+    public synchronized LoanHistoryService getLoanHistoryService() {
+        getLoanService();
+        return loanHistoryService;
+    }
+
+    public synchronized RecommendationService getRecommendationService() {
+        getLoanService();
+        return recommendationService;
+    }
+
+    /**
+     * Suggestions d'autocomplétion, tenues à jour par les écritures du catalogue
+     * et par les emprunts
+     */
+    public synchronized AutocompleteService getAutocompleteService() {
+        if (autocompleteService == null) {
+            TransactionManager transactions = getTransactionManager();
+            LoanService loans = getLoanService();
+            // Amorçage et abonnement sous le verrou de commit : aucun livre ajouté entre
+            // la lecture du catalogue et l'abonnement ne peut être manqué
+            autocompleteService = transactions.readCommitted(() -> {
+                AutocompleteService service = new AutocompleteService(transactions.getBookRepository(),
+                        transactions.getLoanRepository());
+                observableBooks.addListener(service);
+                loans.addObserver(service, LoanEvent.Type.CREATED);
+                return service;
+            });
+        }
+        return autocompleteService;
+    }
+
+    /**
+     * Navigation filtrée (facettes), tenue à jour par les écritures du catalogue
+     */
+    public synchronized CatalogBrowseService getCatalogBrowseService() {
+        if (catalogBrowseService == null) {
+            TransactionManager transactions = getTransactionManager();
+            // Comme pour l'autocomplétion : amorçage et abonnement sous le verrou de commit
+            catalogBrowseService = transactions.readCommitted(() -> {
+                CatalogBrowseService service = new CatalogBrowseService(transactions.getBookRepository());
+                observableBooks.addListener(service);
+                return service;
+            });
+        }
+        return catalogBrowseService;
+    }
+
+    /**
+     * Statistiques de circulation, calculées sur une photographie des repositories partagés
+     */
+    public synchronized CirculationAnalyticsService getCirculationAnalyticsService() {
+        if (circulationAnalyticsService == null) {
+            TransactionManager transactions = getTransactionManager();
+            circulationAnalyticsService = new CirculationAnalyticsService(transactions.getLoanRepository(),
+                    transactions.getBookRepository());
+        }
+        return circulationAnalyticsService;
+    }
+
+    /**
+     * Les repositories partagés par les services (une instance de chaque),
+     * décorés pour la réplication si elle est activée
+     */
+    public synchronized TransactionManager getTransactionManager() {
+        if (transactionManager == null) {
+            BookRepository books = newBookRepository();
+            UserRepository users = newUserRepository();
+            LoanRepository loans = newLoanRepository();
+            if (isReplicating()) {
+                books = new ReplicatingBookRepository(books, getMutationLog());
+                users = new ReplicatingUserRepository(users, getMutationLog());
+                loans = new ReplicatingLoanRepository(loans, getMutationLog());
+            }
+            observableBooks = new ObservableBookRepository(books);
+            transactionManager = new TransactionManager(observableBooks, users, loans);
+        }
+        return transactionManager;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 0;
+    }
+
+    /**
+     * Stockage partitionné (créé au premier accès, seulement si -Dbiblio.shards > 0)
+     */
+    public synchronized ShardedDataStore getShardedStore() {
+        if (!isSharded()) {
+            throw new IllegalStateException("Le stockage partitionné n'est pas activé (-Dbiblio.shards)");
+        }
+        if (shardedStore == null) {
+            shardedStore = ShardedDataStore.of(DataStore.getInstance(), shardCount);
+        }
+        return shardedStore;
+    }
+
+    public boolean isReplicating() {
+        return replicationPort > 0;
+    }
+
+    /**
+     * Journal des mutations du leader : créé au premier accès, puis ouvert aux
+     * réplicas sur -Dbiblio.replication.port. Un réplica qui arrive reçoit d'abord
+     * un instantané de l'état courant du store, lu sur les repositories sous-jacents.
+     */
+    public synchronized MutationLog getMutationLog() {
+        if (mutationLog == null) {
+            BookRepository books = newBookRepository();
+            UserRepository users = newUserRepository();
+            LoanRepository loans = newLoanRepository();
+            MutationLog log = new MutationLog(() -> {
+                List<Mutation> state = new ArrayList<>();
+                books.findAll().forEach(book -> state.add(Mutation.putBook(book)));
+                users.findAll().forEach(user -> state.add(Mutation.putUser(user)));
+                loans.findAll().forEach(loan -> state.add(Mutation.putLoan(loan)));
+                return state;
+            });
+            try {
+                replicationLeader = new ReplicationLeader(replicationPort, log);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible d'ouvrir le port de réplication " + replicationPort, e);
+            }
+            replicationLeader.start();
+            mutationLog = log;
+        }
+        return mutationLog;
+    }
+
+    private BookRepository newBookRepository() {
+        return isSharded() ? new ShardedBookRepository(getShardedStore()) : new BookRepositoryImpl();
+    }
+
+    private UserRepository newUserRepository() {
+        return isSharded() ? new ShardedUserRepository(getShardedStore()) : new UserRepositoryImpl();
+    }
+
+    private LoanRepository newLoanRepository() {
+        return isSharded() ? new ShardedLoanRepository(getShardedStore()) : new LoanRepositoryImpl();
+    }
+}
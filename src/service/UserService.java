@@ -1,9 +1,14 @@
 package service;
 
 import dto.UserDTO;
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import metrics.OperationContext;
 import model.User;
 import repository.UserRepository;
 import repository.UserRepositoryImpl;
+import workload.Operation;
+import workload.WorkloadRecorder;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,16 +19,24 @@ import java.util.stream.Collectors;
  */
 public class UserService {
 
+    private static final LatencyTimer LOGIN_TIMER = MetricsRegistry.getInstance().timer("user.login");
+
     private final UserRepository userRepository;
 
     public UserService() {
-        this.userRepository = new UserRepositoryImpl();
+        this(new UserRepositoryImpl());
+    }
+
+    public UserService(UserRepository userRepository) {
+        this.userRepository = userRepository;
     }
 
     /**
      * Inscrit un nouvel utilisateur (S'inscrire)
      */
     public void register(String userId, String firstName, String lastName, String email, String password) {
+        // Enregistré sans le mot de passe (le rejeu en utilise un fictif)
+        WorkloadRecorder.getInstance().record(Operation.Type.REGISTER, userId, firstName, lastName, email);
         // Validation métier
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("L'ID utilisateur ne peut pas être vide");
@@ -49,9 +62,17 @@ public class UserService {
      * Retourne l'utilisateur si les identifiants sont corrects, null sinon
      */
     public User login(String userId, String password) {
-        return userRepository.findById(userId)
-                .filter(user -> user.getPassword().equals(password))
-                .orElse(null);
+        WorkloadRecorder.getInstance().record(Operation.Type.LOGIN, userId);
+        long start = System.nanoTime();
+        String previousOperation = OperationContext.enter(LOGIN_TIMER.getName());
+        try {
+            return userRepository.findById(userId)
+                    .filter(user -> user.getPassword().equals(password))
+                    .orElse(null);
+        } finally {
+            LOGIN_TIMER.recordSince(start);
+            OperationContext.exit(previousOperation);
+        }
     }
 
     /**
@@ -0,0 +1,438 @@
+package stress;
+
+import model.Book;
+import model.Loan;
+import model.User;
+import replication.MutationLog;
+import replication.ReplicatingBookRepository;
+import replication.ReplicatingLoanRepository;
+import replication.ReplicatingUserRepository;
+import repository.BookRepository;
+import repository.BookRepositoryImpl;
+import repository.LoanRepository;
+import repository.LoanRepositoryImpl;
+import repository.ObservableBookRepository;
+import repository.ShardedBookRepository;
+import repository.ShardedLoanRepository;
+import repository.ShardedUserRepository;
+import repository.UserRepository;
+import repository.UserRepositoryImpl;
+import service.BookService;
+import service.LoanService;
+import service.UserService;
+import transaction.TransactionConflictException;
+import transaction.TransactionManager;
+import util.ShardedDataStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Tests de concurrence des repositories et des services (à la jcstress / Lincheck)
+ *
+ * Pourquoi : Dès que plusieurs threads écrivent, un "vérifier puis écrire" non
+ * atomique (deux save du même ISBN, un emprunt accordé deux fois) ne se voit pas
+ * dans un test séquentiel. Ici, par tours courts :
+ *   - repositories : chaque implémentation (DataStore, partitionnée, décorée,
+ *     répliquée)
+ *     reçoit des save / find / update / delete concurrents sur quelques clés
+ *     neuves ; l'historique de chaque clé doit être linéarisable pour le modèle
+ *     "une valeur ou rien" ;
+ *   - services : des guichets empruntent, rendent et consultent quelques livres
+ *     en même temps ; l'historique de chaque livre doit être linéarisable pour
+ *     le modèle "emprunté ou disponible", et à chaque tour les invariants sont
+ *     vérifiés : au plus un emprunt en cours par livre, disponibilité du livre
+ *     égale à l'absence d'emprunt en cours, autant d'emprunts que d'emprunts
+ *     réussis.
+ * La première violation est affichée avec l'historique de la clé ; le code de
+ * sortie est 1 s'il y en a eu une.
+ *
+ * Usage : java -cp out stress.ConcurrencyStress [tours] [threads]
+ */
+public class ConcurrencyStress {
+
+    private static final String ABSENT = "absent";
+    private static final String OK = "ok";
+
+    private static final int OPERATIONS_PER_THREAD = 8;   // Par tour
+    private static final int KEYS_PER_ROUND = 2;
+    private static final int BOOKS_PER_SERVICE_ROUND = 4;
+
+    private final int rounds;
+    private final int threads;
+    private final ExecutorService executor;
+    private final AtomicInteger runs = new AtomicInteger(); // Préfixe des clés : chaque exécution a les siennes
+    private int failures;
+
+    public ConcurrencyStress(int rounds, int threads) {
+        if (threads < 2 || threads * OPERATIONS_PER_THREAD > LinearizabilityChecker.MAX_EVENTS_PER_KEY) {
+            throw new IllegalArgumentException("Entre 2 et " + LinearizabilityChecker.MAX_EVENTS_PER_KEY
+                    / OPERATIONS_PER_THREAD + " threads");
+        }
+        this.rounds = rounds;
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stress");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ==================== REPOSITORIES ====================
+
+    /**
+     * Un repository vu comme une table clé → valeur ; update et delete sont null
+     * quand le repository ne propose pas l'opération (elle n'est alors pas tirée)
+     */
+    private record KeyValueTarget(BiFunction<String, String, String> save, Function<String, String> find,
+                                  BiFunction<String, String, String> update, Function<String, String> delete) {
+    }
+
+    /**
+     * Modèle séquentiel : la clé porte une valeur ou rien
+     */
+    private static final LinearizabilityChecker.Model<String> REGISTER = (state, event) -> {
+        boolean present = !state.equals(ABSENT);
+        String result = event.result();
+        switch (event.operation()) {
+            case "save":
+                return present ? refusedOrNull(result, state) : result.equals(OK) ? event.argument() : null;
+            case "find":
+                return result.equals(state) ? state : null;
+            case "update":
+                return !present ? refusedOrNull(result, state) : result.equals(OK) ? event.argument() : null;
+            case "delete":
+                return result.equals(String.valueOf(present)) ? ABSENT : null;
+            default:
+                throw new IllegalArgumentException("Opération inconnue : " + event.operation());
+        }
+    };
+
+    private static String refusedOrNull(String result, String state) {
+        return result.equals(History.REFUSED) ? state : null;
+    }
+
+    private void checkRepository(String name, KeyValueTarget target) throws InterruptedException {
+        String run = "STRESS" + runs.incrementAndGet() + "-";
+        int failuresBefore = failures;
+        int operations = 0;
+        for (int round = 0; round < rounds && failures == failuresBefore; round++) {
+            String[] keys = new String[KEYS_PER_ROUND];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = run + round + "-" + k;
+            }
+            History history = new History(threads);
+            runConcurrently(thread -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    String key = keys[random.nextInt(keys.length)];
+                    String value = "v" + thread + "." + i;
+                    switch (random.nextInt(4)) {
+                        case 0 -> history.call(thread, key, "save", value, () -> target.save().apply(key, value));
+                        case 1 -> history.call(thread, key, "find", null, () -> target.find().apply(key));
+                        case 2 -> {
+                            if (target.update() != null) {
+                                history.call(thread, key, "update", value, () -> target.update().apply(key, value));
+                            }
+                        }
+                        default -> {
+                            if (target.delete() != null) {
+                                history.call(thread, key, "delete", null, () -> target.delete().apply(key));
+                            }
+                        }
+                    }
+                }
+            });
+            List<History.Event> events = history.events();
+            operations += events.size();
+            report(name, LinearizabilityChecker.findViolation(events, REGISTER, key -> ABSENT));
+        }
+        printResult(name, operations, failures == failuresBefore);
+    }
+
+    private static KeyValueTarget books(BookRepository repository) {
+        return new KeyValueTarget(
+                (key, value) -> {
+                    repository.save(book(key, value));
+                    return OK;
+                },
+                key -> repository.findByIsbn(key).map(Book::getTitle).orElse(ABSENT),
+                (key, value) -> {
+                    repository.update(book(key, value));
+                    return OK;
+                },
+                key -> String.valueOf(repository.deleteByIsbn(key)));
+    }
+
+    private static Book book(String isbn, String title) {
+        return new Book.Builder().isbn(isbn).title(title).author("Stress").publisher("Stress").year(2000).build();
+    }
+
+    /**
+     * Pas de mise à jour : UserRepository n'en propose pas
+     */
+    private static KeyValueTarget users(UserRepository repository) {
+        return new KeyValueTarget(
+                (key, value) -> {
+                    repository.save(new User(key, value, "Stress", key.toLowerCase() + "@stress.fr", "stress", false));
+                    return OK;
+                },
+                key -> repository.findById(key).map(User::getFirstName).orElse(ABSENT),
+                null,
+                key -> String.valueOf(repository.deleteById(key)));
+    }
+
+    /**
+     * Pas de suppression : les emprunts ne se suppriment pas
+     */
+    private static KeyValueTarget loans(LoanRepository repository) {
+        LocalDate today = LocalDate.of(2025, 1, 6);
+        return new KeyValueTarget(
+                (key, value) -> {
+                    repository.save(new Loan(key, "STRESS-U", value, today, today.plusDays(14)));
+                    return OK;
+                },
+                key -> repository.findById(key).map(Loan::getIsbn).orElse(ABSENT),
+                (key, value) -> {
+                    repository.update(new Loan(key, "STRESS-U", value, today, today.plusDays(14)));
+                    return OK;
+                },
+                null);
+    }
+
+    // ==================== SERVICES ====================
+
+    /**
+     * Modèle séquentiel d'un exemplaire : emprunté ou disponible
+     */
+    private static final LinearizabilityChecker.Model<Boolean> COPY = (borrowed, event) -> {
+        String result = event.result();
+        if (result.equals(History.ABORTED)) {
+            return borrowed; // Transaction abandonnée : aucun effet
+        }
+        switch (event.operation()) {
+            case "borrow":
+            case "return":
+                boolean borrow = event.operation().equals("borrow");
+                if (borrowed == borrow) {
+                    return result.equals(History.REFUSED) ? borrowed : null;
+                }
+                return result.equals(OK) ? borrow : null;
+            case "available":
+                return result.equals(String.valueOf(!borrowed)) ? borrowed : null;
+            default:
+                throw new IllegalArgumentException("Opération inconnue : " + event.operation());
+        }
+    };
+
+    private void checkServices(String name, BookRepository bookRepository, UserRepository userRepository,
+                               LoanRepository loanRepository) throws InterruptedException {
+        String run = "STRESS" + runs.incrementAndGet() + "-";
+        TransactionManager transactions = new TransactionManager(bookRepository, userRepository, loanRepository);
+        BookService bookService = new BookService(transactions);
+        UserService userService = new UserService(userRepository);
+        LoanService loanService = new LoanService(transactions, bookService, userService);
+
+        int bookCount = BOOKS_PER_SERVICE_ROUND * 4;
+        String[] isbns = new String[bookCount];
+        for (int i = 0; i < bookCount; i++) {
+            isbns[i] = run + "B" + i;
+            bookService.addBook(isbns[i], "Exemplaire " + i, "Stress", "Stress", 2000);
+        }
+        String[] readers = new String[threads];
+        for (int i = 0; i < threads; i++) {
+            readers[i] = run + "U" + i;
+            userService.register(readers[i], "Guichet", String.valueOf(i), readers[i].toLowerCase() + "@stress.fr",
+                    "stress");
+        }
+
+        Set<String> allIsbns = Set.of(isbns);
+        int failuresBefore = failures;
+        int borrows = 0;
+        int operations = 0;
+        for (int round = 0; round < rounds && failures == failuresBefore; round++) {
+            // Quelques livres par tour (historiques courts), état de départ lu au repos
+            String[] keys = new String[BOOKS_PER_SERVICE_ROUND];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = isbns[(round * BOOKS_PER_SERVICE_ROUND + k) % bookCount];
+            }
+            Map<String, Boolean> borrowedAtStart = new HashMap<>();
+            for (String isbn : keys) {
+                borrowedAtStart.put(isbn, !bookService.isBookAvailable(isbn));
+            }
+
+            History history = new History(threads);
+            runConcurrently(thread -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    String isbn = keys[random.nextInt(keys.length)];
+                    switch (random.nextInt(3)) {
+                        case 0 -> history.call(thread, isbn, "borrow", readers[thread],
+                                () -> transactional(() -> loanService.createLoan(readers[thread], isbn)));
+                        case 1 -> history.call(thread, isbn, "return", null,
+                                () -> transactional(() -> loanService.returnBookByIsbn(isbn)));
+                        default -> history.call(thread, isbn, "available", null,
+                                () -> String.valueOf(bookService.isBookAvailable(isbn)));
+                    }
+                }
+            });
+            List<History.Event> events = history.events();
+            operations += events.size();
+            for (History.Event event : events) {
+                if (event.operation().equals("borrow") && event.result().equals(OK)) {
+                    borrows++;
+                }
+            }
+            report(name, LinearizabilityChecker.findViolation(events, COPY, borrowedAtStart::get));
+            checkInvariants(name, allIsbns, bookRepository, loanRepository, borrows);
+        }
+        printResult(name, operations, failures == failuresBefore);
+    }
+
+    private static String transactional(Runnable operation) {
+        try {
+            operation.run();
+            return OK;
+        } catch (TransactionConflictException e) {
+            return History.ABORTED;
+        }
+    }
+
+    /**
+     * Invariants au repos : un emprunt en cours au plus par livre, disponibilité
+     * cohérente avec les emprunts, aucun emprunt perdu ni en double
+     */
+    private void checkInvariants(String name, Set<String> isbns, BookRepository bookRepository,
+                                 LoanRepository loanRepository, int borrows) {
+        List<String> violations = new ArrayList<>();
+        Map<String, Integer> active = new HashMap<>();
+        Set<String> loanIds = new HashSet<>();
+        int loans = 0;
+        for (Loan loan : loanRepository.findAll()) {
+            if (!isbns.contains(loan.getIsbn())) {
+                continue;
+            }
+            loans++;
+            if (!loanIds.add(loan.getLoanId())) {
+                violations.add("identifiant d'emprunt en double : " + loan.getLoanId());
+            }
+            if (!loan.isReturned()) {
+                active.merge(loan.getIsbn(), 1, Integer::sum);
+            }
+        }
+        for (String isbn : isbns) {
+            int count = active.getOrDefault(isbn, 0);
+            if (count > 1) {
+                violations.add(isbn + " : " + count + " emprunts en cours");
+            }
+            boolean available = bookRepository.findByIsbn(isbn).map(Book::isAvailable).orElse(false);
+            if (available == (count > 0)) {
+                violations.add(isbn + " : disponible=" + available + " avec " + count + " emprunt(s) en cours");
+            }
+        }
+        if (loans != borrows) {
+            violations.add(loans + " emprunts enregistrés pour " + borrows + " emprunts réussis");
+        }
+        if (!violations.isEmpty()) {
+            failures++;
+            System.out.println("❌ " + name + " : invariants violés");
+            violations.forEach(violation -> System.out.println("   " + violation));
+        }
+    }
+
+    // ==================== OUTILS ====================
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+
+    /**
+     * Lance body sur tous les threads en même temps et attend leur fin
+     */
+    private void runConcurrently(ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(threads);
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                start.countDown();
+                start.await(); // Départ groupé : les opérations se chevauchent vraiment
+                body.run(thread);
+                return null;
+            });
+        }
+        for (Future<Void> result : executor.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Opération en échec inattendu", e.getCause());
+            }
+        }
+    }
+
+    private static void printResult(String name, int operations, boolean passed) {
+        System.out.printf("%-34s %7d opérations  %s%n", name, operations, passed ? "✅" : "❌");
+    }
+
+    private void report(String name, List<History.Event> violation) {
+        if (violation != null) {
+            failures++;
+            System.out.println("❌ " + name + " : historique non linéarisable pour " + violation.get(0).key());
+            violation.forEach(event -> System.out.println("   " + event));
+        }
+    }
+
+    public boolean run() throws InterruptedException {
+        ShardedDataStore sharded = new ShardedDataStore(4);
+        checkRepository("BookRepositoryImpl", books(new BookRepositoryImpl()));
+        checkRepository("ShardedBookRepository", books(new ShardedBookRepository(sharded)));
+        checkRepository("ObservableBookRepository", books(new ObservableBookRepository(new BookRepositoryImpl())));
+        checkRepository("UserRepositoryImpl", users(new UserRepositoryImpl()));
+        checkRepository("ShardedUserRepository", users(new ShardedUserRepository(sharded)));
+        checkRepository("LoanRepositoryImpl", loans(new LoanRepositoryImpl()));
+        checkRepository("ShardedLoanRepository", loans(new ShardedLoanRepository(sharded)));
+        // Décorateurs de réplication : journal sans réplica, l'état initial n'est jamais lu
+        MutationLog mutations = new MutationLog(List::of);
+        checkRepository("ReplicatingBookRepository",
+                books(new ReplicatingBookRepository(new BookRepositoryImpl(), mutations)));
+        checkRepository("ReplicatingUserRepository",
+                users(new ReplicatingUserRepository(new UserRepositoryImpl(), mutations)));
+        checkRepository("ReplicatingLoanRepository",
+                loans(new ReplicatingLoanRepository(new LoanRepositoryImpl(), mutations)));
+
+        ShardedDataStore servicesStore = new ShardedDataStore(4);
+        checkServices("Services (DataStore)", new BookRepositoryImpl(), new UserRepositoryImpl(),
+                new LoanRepositoryImpl());
+        checkServices("Services (partitionné)", new ShardedBookRepository(servicesStore),
+                new ShardedUserRepository(servicesStore), new ShardedLoanRepository(servicesStore));
+        checkServices("Services (répliqué)", new ReplicatingBookRepository(new BookRepositoryImpl(), mutations),
+                new ReplicatingUserRepository(new UserRepositoryImpl(), mutations),
+                new ReplicatingLoanRepository(new LoanRepositoryImpl(), mutations));
+        executor.shutdown();
+        return failures == 0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        System.out.printf("Concurrence : %d tours, %d threads, %d opérations par thread et par tour%n",
+                rounds, threads, OPERATIONS_PER_THREAD);
+        boolean passed = new ConcurrencyStress(rounds, threads).run();
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,73 @@
+package stress;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Historique concurrent : chaque opération avec son appel et son retour sur une
+ * horloge logique commune
+ *
+ * Pourquoi : La linéarisabilité se juge sur l'ordre réel des appels et des
+ * retours. Chaque thread écrit dans sa propre liste (pas de contention qui
+ * sérialiserait les opérations testées) ; les listes sont fusionnées une fois
+ * les threads arrêtés.
+ */
+public final class History {
+
+    /** Résultat d'une opération refusée par une IllegalArgumentException (règle métier) */
+    public static final String REFUSED = "refus";
+    /** Résultat d'une transaction abandonnée après ses tentatives (sans effet) */
+    public static final String ABORTED = "abandon";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<List<Event>> perThread = new ArrayList<>();
+
+    public History(int threads) {
+        for (int i = 0; i < threads; i++) {
+            perThread.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Exécute body en notant son appel, son retour et son résultat
+     * (REFUSED si elle lève une IllegalArgumentException)
+     */
+    public void call(int thread, String key, String operation, String argument, Supplier<String> body) {
+        long invoked = clock.incrementAndGet();
+        String result;
+        try {
+            result = body.get();
+        } catch (IllegalArgumentException e) {
+            result = REFUSED;
+        } catch (RuntimeException e) {
+            result = "exception " + e; // Jamais admis par un modèle : signalé avec l'historique
+        }
+        long returned = clock.incrementAndGet();
+        perThread.get(thread).add(new Event(thread, key, operation, argument, result, invoked, returned));
+    }
+
+    /**
+     * Toutes les opérations, par ordre d'appel (à lire une fois les threads arrêtés)
+     */
+    public List<Event> events() {
+        List<Event> events = new ArrayList<>();
+        perThread.forEach(events::addAll);
+        events.sort(Comparator.comparingLong(Event::invoked));
+        return events;
+    }
+
+    /**
+     * Une opération observée
+     */
+    public record Event(int thread, String key, String operation, String argument, String result,
+                        long invoked, long returned) {
+        @Override
+        public String toString() {
+            return String.format("[%d–%d] t%d %s(%s%s) → %s", invoked, returned, thread, operation, key,
+                    argument == null ? "" : ", " + argument, result);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package stress;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Vérifie qu'un historique concurrent est linéarisable : il existe un ordre
+ * séquentiel des opérations, compatible avec leurs appels et retours réels,
+ * dans lequel chaque résultat est celui du modèle séquentiel
+ *
+ * Pourquoi : Un test "le résultat final est correct" ne voit pas un livre
+ * enregistré deux fois, un find qui voit un état intermédiaire ou une mise à
+ * jour refusée à tort. La linéarisabilité étant locale, l'historique est
+ * découpé par clé et chaque clé vérifiée séparément (recherche en profondeur
+ * de Wing & Gong, avec mémorisation des états déjà explorés, comme Lincheck).
+ * Lien : https://cs.brown.edu/~mph/HerlihyW90/p463-herlihy.pdf
+ */
+public final class LinearizabilityChecker {
+
+    /** Limite par clé : les opérations déjà linéarisées sont un masque de 64 bits */
+    public static final int MAX_EVENTS_PER_KEY = 63;
+
+    private LinearizabilityChecker() {
+    }
+
+    /**
+     * Modèle séquentiel d'une clé (états comparables par equals)
+     */
+    public interface Model<S> {
+        /**
+         * État après l'opération, ou null si son résultat est impossible dans state
+         */
+        S step(S state, History.Event event);
+    }
+
+    /**
+     * Historique d'une clé non linéarisable (null si tout l'historique l'est)
+     */
+    public static <S> List<History.Event> findViolation(List<History.Event> events, Model<S> model,
+                                                        Function<String, S> initialState) {
+        Map<String, List<History.Event>> byKey = new LinkedHashMap<>();
+        for (History.Event event : events) {
+            byKey.computeIfAbsent(event.key(), key -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<String, List<History.Event>> entry : byKey.entrySet()) {
+            if (!isLinearizable(entry.getValue(), model, initialState.apply(entry.getKey()))) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Historique d'une seule clé, trié par appel
+     */
+    public static <S> boolean isLinearizable(List<History.Event> events, Model<S> model, S initial) {
+        if (events.size() > MAX_EVENTS_PER_KEY) {
+            throw new IllegalArgumentException("Historique trop long pour une clé : " + events.size()
+                    + " opérations (maximum " + MAX_EVENTS_PER_KEY + ")");
+        }
+        return search(events, model, 0L, initial, new HashSet<>());
+    }
+
+    private static <S> boolean search(List<History.Event> events, Model<S> model, long done, S state,
+                                      Set<Explored<S>> explored) {
+        int count = events.size();
+        if (done == (1L << count) - 1) {
+            return true;
+        }
+        if (!explored.add(new Explored<>(done, state))) {
+            return false; // Même ensemble d'opérations, même état : déjà sans issue
+        }
+        // Peut passer en premier toute opération appelée avant le premier retour en attente
+        long firstReturn = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if ((done & (1L << i)) == 0) {
+                firstReturn = Math.min(firstReturn, events.get(i).returned());
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            History.Event event = events.get(i);
+            if ((done & (1L << i)) != 0 || event.invoked() > firstReturn) {
+                continue;
+            }
+            S next = model.step(state, event);
+            if (next != null && search(events, model, done | (1L << i), next, explored)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Explored<S>(long done, S state) {
+    }
+}
@@ -0,0 +1,36 @@
+package transaction;
+
+import model.LoanEvent;
+import replication.Mutation;
+
+import java.util.List;
+
+/**
+ * Enregistrement d'une transaction validée, prêt pour un journal (WAL)
+ *
+ * Autonome et immuable : numéro d'ordre de commit + écritures dans l'ordre
+ * d'application, avec une copie des entités. Rejouer les enregistrements
+ * dans l'ordre des numéros reconstruit l'état du store. Les événements de la
+ * transaction y figurent avec le numéro d'ordre attribué au commit.
+ */
+public final class CommitRecord {
+
+    private final long sequence;
+    private final List<Mutation> writes;
+    private final List<LoanEvent> events;
+
+    CommitRecord(long sequence, List<Mutation> writes, List<LoanEvent> events) {
+        this.sequence = sequence;
+        this.writes = List.copyOf(writes);
+        this.events = List.copyOf(events);
+    }
+
+    public long getSequence() { return sequence; }
+    public List<Mutation> getWrites() { return writes; }
+    public List<LoanEvent> getEvents() { return events; }
+
+    @Override
+    public String toString() {
+        return "Commit #" + sequence + " " + writes;
+    }
+}
@@ -0,0 +1,26 @@
+package transaction;
+
+import model.LoanEvent;
+
+import java.util.List;
+
+/**
+ * Boîte d'envoi transactionnelle (transactional outbox)
+ *
+ * Pourquoi : Les événements à livrer hors du processus (notifications) sont
+ * enregistrés durablement sous le même verrou de commit que les écritures qui les
+ * produisent, juste après leur application : aucun événement n'est enregistré pour
+ * des écritures qui n'ont pas eu lieu, ni dans le désordre. La livraison se fait
+ * ensuite, à part, sans bloquer ni faire échouer la transaction.
+ * Lien : https://microservices.io/patterns/data/transactional-outbox.html
+ */
+public interface Outbox {
+
+    /**
+     * Enregistre durablement les événements d'une transaction. Appelé sous le verrou
+     * de commit, une fois les écritures appliquées : un événement n'est jamais
+     * enregistré pour une transaction dont l'application a échoué. Une exception
+     * remonte à l'appelant du commit (écritures faites, événement non enregistré).
+     */
+    void append(List<LoanEvent> events);
+}
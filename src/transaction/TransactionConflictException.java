@@ -0,0 +1,14 @@
+package transaction;
+
+/**
+ * Levée au commit quand une entité lue par la transaction a été modifiée
+ * entre-temps par une autre : la transaction peut simplement être rejouée.
+ */
+public class TransactionConflictException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransactionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,138 @@
+package transaction;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import model.LoanEvent;
+import repository.BookRepository;
+import repository.LoanRepository;
+import repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Point d'entrée des transactions sur les trois repositories
+ *
+ * Pourquoi : Une opération comme un emprunt écrit un emprunt ET un livre. Faite
+ * en deux appels séparés, une erreur entre les deux laisse un état incohérent,
+ * et la protéger contre la concurrence demanderait plusieurs verrous. Ici les
+ * lectures se font sans verrou, les écritures sont préparées dans un UnitOfWork,
+ * puis validées et appliquées sous un unique verrou de commit.
+ *
+ * Les événements publiés par la transaction sont numérotés sous ce même verrou,
+ * dans l'ordre des commits. Si une Outbox est branchée, ils y sont enregistrés
+ * une fois les écritures appliquées.
+ */
+public class TransactionManager {
+
+    private static final Counter COMMITS = MetricsRegistry.getInstance().counter("transaction.commits");
+    private static final Counter CONFLICTS = MetricsRegistry.getInstance().counter("transaction.conflicts");
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+
+    // L'unique point de synchronisation des écritures transactionnelles
+    private final Object commitLock = new Object();
+    // Identité de l'état coordonné : les numéros d'événements ne sont uniques que dans une époque
+    private final String storeEpoch = UUID.randomUUID().toString();
+    private long commitSequence;
+    private long eventSequence;  // Numéro d'ordre des événements (gardé par commitLock)
+    private final List<Consumer<CommitRecord>> commitListeners = new CopyOnWriteArrayList<>();
+    private volatile Outbox outbox;
+
+    public TransactionManager(BookRepository bookRepository, UserRepository userRepository,
+                              LoanRepository loanRepository) {
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+    }
+
+    public UnitOfWork begin() {
+        return new UnitOfWork(this);
+    }
+
+    /**
+     * Abonne un journal (WAL, réplication...) ou la distribution des événements aux
+     * transactions validées, dans l'ordre de commit. Appelé sous le verrou de commit :
+     * l'abonné doit être rapide et ne jamais attendre un autre commit.
+     */
+    public void addCommitListener(Consumer<CommitRecord> listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Branche la boîte d'envoi où sont enregistrés les événements des transactions
+     */
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * Époque du store : un redémarrage repart d'un autre état en mémoire (données
+     * de test ou instantané), donc d'une autre époque et d'une autre numérotation
+     */
+    public String getStoreEpoch() { return storeEpoch; }
+
+    public BookRepository getBookRepository() { return bookRepository; }
+    public UserRepository getUserRepository() { return userRepository; }
+    public LoanRepository getLoanRepository() { return loanRepository; }
+
+    /**
+     * Lecture sous le verrou de commit : aucune transaction n'y est à moitié appliquée
+     *
+     * Les lectures ordinaires ne prennent pas de verrou et peuvent voir un emprunt
+     * déjà clôturé dont le livre n'est pas encore redevenu disponible. À réserver
+     * aux chemins rares : confirmation d'un refus, amorçage d'une vue qui s'abonne
+     * ensuite aux écritures.
+     */
+    public <T> T readCommitted(Supplier<T> read) {
+        synchronized (commitLock) {
+            return read.get();
+        }
+    }
+
+    /**
+     * Numérote un événement publié hors transaction (retard constaté) à la suite de
+     * ceux des commits, et le remet à publisher sous le verrou de commit : il est
+     * distribué à sa place dans l'ordre des numéros
+     */
+    public void publishNumbered(LoanEvent event, Consumer<LoanEvent> publisher) {
+        synchronized (commitLock) {
+            publisher.accept(event.withSequence(++eventSequence));
+        }
+    }
+
+    /**
+     * Validation optimiste puis application, sous le verrou de commit
+     */
+    CommitRecord commit(UnitOfWork unitOfWork) {
+        synchronized (commitLock) {
+            try {
+                unitOfWork.validate();
+            } catch (TransactionConflictException e) {
+                CONFLICTS.increment();
+                throw e;
+            }
+            unitOfWork.apply();
+            List<LoanEvent> events = new ArrayList<>(unitOfWork.getEvents().size());
+            for (LoanEvent event : unitOfWork.getEvents()) {
+                events.add(event.withSequence(++eventSequence));
+            }
+            Outbox target = outbox;
+            if (target != null && !events.isEmpty()) {
+                target.append(events);
+            }
+            CommitRecord record = new CommitRecord(++commitSequence, unitOfWork.getWrites(), events);
+            for (Consumer<CommitRecord> listener : commitListeners) {
+                listener.accept(record);
+            }
+            COMMITS.increment();
+            return record;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package transaction;
+
+import model.Book;
+import model.Loan;
+import model.LoanEvent;
+import model.User;
+import replication.Mutation;
+import repository.EntityHandle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pattern : Unit of Work
+ * Pourquoi : Regroupe les lectures et écritures d'une opération métier
+ * (livres, utilisateurs, emprunts) pour les valider et les appliquer d'un bloc.
+ * Lien : https://martinfowler.com/eaaCatalog/unitOfWork.html
+ *
+ * Les lectures passent par l'UnitOfWork, qui retient l'instance vue (les entités
+ * sont remplacées, jamais modifiées en place : l'identité sert de version).
+ * Les écritures restent en attente jusqu'à commit(), qui vérifie sous le verrou
+ * de commit que rien de ce qui a été lu n'a changé, puis applique tout.
+ *
+ * Chaque entité n'est cherchée qu'une fois dans son repository : la lecture
+ * produit un EntityHandle, réutilisé par les lectures suivantes, par la
+ * validation et par l'application des écritures (voir resolveBook & co).
+ * Une transaction sert une seule fois et n'est pas partagée entre threads.
+ *
+ * Les événements publiés via publish() sont numérotés au commit et partent
+ * dans l'Outbox une fois les écritures appliquées.
+ */
+public class UnitOfWork {
+
+    private enum Kind { BOOK, USER, LOAN }
+
+    private record EntityKey(Kind kind, String id) {
+        @Override
+        public String toString() {
+            return kind + " " + id;
+        }
+    }
+
+    private final TransactionManager manager;
+
+    // Ce qui a été lu (handle absent = entité inexistante au moment de la lecture), par entité
+    private final Map<EntityKey, EntityHandle<?>> readSet = new HashMap<>();
+    // Dernière valeur écrite par entité (lecture de ses propres écritures)
+    private final Map<EntityKey, Object> pending = new HashMap<>();
+    private final List<Mutation> writes = new ArrayList<>();
+    private final List<LoanEvent> events = new ArrayList<>();
+    private boolean committed;
+
+    UnitOfWork(TransactionManager manager) {
+        this.manager = manager;
+    }
+
+    // ==================== LECTURES ====================
+
+    public Optional<Book> findBook(String isbn) {
+        return Optional.ofNullable((Book) read(Kind.BOOK, isbn));
+    }
+
+    public Optional<User> findUser(String userId) {
+        return Optional.ofNullable((User) read(Kind.USER, userId));
+    }
+
+    public Optional<Loan> findLoan(String loanId) {
+        return Optional.ofNullable((Loan) read(Kind.LOAN, loanId));
+    }
+
+    /**
+     * Handle du livre tel qu'il est dans le repository (résolu au premier appel) ;
+     * à passer aux écritures de la même transaction
+     */
+    public EntityHandle<Book> resolveBook(String isbn) {
+        return handle(Kind.BOOK, isbn);
+    }
+
+    public EntityHandle<User> resolveUser(String userId) {
+        return handle(Kind.USER, userId);
+    }
+
+    public EntityHandle<Loan> resolveLoan(String loanId) {
+        return handle(Kind.LOAN, loanId);
+    }
+
+    // ==================== ÉCRITURES (en attente) ====================
+
+    public void saveBook(Book book) {
+        requireAbsent(Kind.BOOK, book.getIsbn());
+        stage(Kind.BOOK, book.getIsbn(), book, Mutation.putBook(book));
+    }
+
+    public void updateBook(Book book) {
+        requirePresent(Kind.BOOK, book.getIsbn());
+        stage(Kind.BOOK, book.getIsbn(), book, Mutation.putBook(book));
+    }
+
+    /**
+     * Remplace le livre résolu par resolveBook, sans le rechercher à nouveau
+     */
+    public void updateBook(EntityHandle<Book> handle, Book book) {
+        requireResolved(Kind.BOOK, handle, book.getIsbn());
+        stage(Kind.BOOK, book.getIsbn(), book, Mutation.putBook(book));
+    }
+
+    public void saveUser(User user) {
+        requireAbsent(Kind.USER, user.getUserId());
+        stage(Kind.USER, user.getUserId(), user, Mutation.putUser(user));
+    }
+
+    public void saveLoan(Loan loan) {
+        requireAbsent(Kind.LOAN, loan.getLoanId());
+        stage(Kind.LOAN, loan.getLoanId(), loan, Mutation.putLoan(loan));
+    }
+
+    /**
+     * Nouvel emprunt dont l'identifiant vient d'être généré (unique par construction) :
+     * contrairement à saveLoan, aucune recherche ne vérifie qu'il est libre
+     */
+    public void insertLoan(Loan loan) {
+        stage(Kind.LOAN, loan.getLoanId(), loan, Mutation.putLoan(loan));
+    }
+
+    public void updateLoan(Loan loan) {
+        requirePresent(Kind.LOAN, loan.getLoanId());
+        stage(Kind.LOAN, loan.getLoanId(), loan, Mutation.putLoan(loan));
+    }
+
+    /**
+     * Remplace l'emprunt résolu par resolveLoan, sans le rechercher à nouveau
+     */
+    public void updateLoan(EntityHandle<Loan> handle, Loan loan) {
+        requireResolved(Kind.LOAN, handle, loan.getLoanId());
+        stage(Kind.LOAN, loan.getLoanId(), loan, Mutation.putLoan(loan));
+    }
+
+    /**
+     * Ajoute un événement à enregistrer dans l'Outbox avec les écritures
+     */
+    public void publish(LoanEvent event) {
+        if (committed) {
+            throw new IllegalStateException("Transaction déjà validée");
+        }
+        events.add(event);
+    }
+
+    /**
+     * Valide et applique toutes les écritures ; TransactionConflictException si une
+     * entité lue a changé entre-temps (rien n'est alors appliqué)
+     */
+    public CommitRecord commit() {
+        if (committed) {
+            throw new IllegalStateException("Transaction déjà validée");
+        }
+        committed = true;
+        return manager.commit(this);
+    }
+
+    // ==================== COMMIT (appelé sous le verrou) ====================
+
+    /**
+     * Chaque handle est revérifié par son repository (à sa position, sans nouvelle recherche)
+     */
+    @SuppressWarnings("unchecked")
+    void validate() {
+        for (Map.Entry<EntityKey, EntityHandle<?>> entry : readSet.entrySet()) {
+            EntityHandle<?> handle = entry.getValue();
+            boolean current = switch (entry.getKey().kind()) {
+                case BOOK -> manager.getBookRepository().isCurrent((EntityHandle<Book>) handle);
+                case USER -> manager.getUserRepository().isCurrent((EntityHandle<User>) handle);
+                case LOAN -> manager.getLoanRepository().isCurrent((EntityHandle<Loan>) handle);
+            };
+            if (!current) {
+                throw new TransactionConflictException("Conflit : " + entry.getKey()
+                        + " a été modifié par une autre opération");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void apply() {
+        for (Mutation write : writes) {
+            EntityKey key = new EntityKey(kindOf(write), write.getKey());
+            EntityHandle<?> handle = readSet.get(key);
+            boolean existed = handle != null && handle.isPresent();
+            Object value = pending.get(key);
+            switch (key.kind()) {
+                case BOOK -> {
+                    if (existed) {
+                        manager.getBookRepository().update((EntityHandle<Book>) handle, (Book) value);
+                    } else {
+                        manager.getBookRepository().save((Book) value);
+                    }
+                }
+                case USER -> manager.getUserRepository().save((User) value);
+                case LOAN -> {
+                    if (existed) {
+                        manager.getLoanRepository().update((EntityHandle<Loan>) handle, (Loan) value);
+                    } else {
+                        // Absence validée sous le verrou de commit, ou identifiant généré :
+                        // les emprunts ne sont écrits que par des transactions
+                        manager.getLoanRepository().insert((Loan) value);
+                    }
+                }
+            }
+        }
+    }
+
+    List<Mutation> getWrites() {
+        return writes;
+    }
+
+    List<LoanEvent> getEvents() {
+        return events;
+    }
+
+    // ==================== INTERNE ====================
+
+    private Object read(Kind kind, String id) {
+        EntityKey key = new EntityKey(kind, id);
+        if (pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        return handle(kind, id).get();
+    }
+
+    /**
+     * Handle de l'entité : cherché dans le repository une seule fois par transaction
+     */
+    @SuppressWarnings("unchecked")
+    private <T> EntityHandle<T> handle(Kind kind, String id) {
+        EntityKey key = new EntityKey(kind, id);
+        EntityHandle<?> handle = readSet.get(key);
+        if (handle == null) {
+            handle = switch (kind) {
+                case BOOK -> manager.getBookRepository().resolve(id);
+                case USER -> manager.getUserRepository().resolve(id);
+                case LOAN -> manager.getLoanRepository().resolve(id);
+            };
+            readSet.put(key, handle);
+        }
+        return (EntityHandle<T>) handle;
+    }
+
+    /**
+     * Le handle doit venir de cette transaction, désigner l'entité écrite et exister
+     */
+    private void requireResolved(Kind kind, EntityHandle<?> handle, String id) {
+        EntityKey key = new EntityKey(kind, id);
+        if (!handle.getId().equals(id) || readSet.get(key) != handle) {
+            throw new IllegalArgumentException("Handle étranger à cette transaction : " + key);
+        }
+        if (!handle.isPresent()) {
+            throw new IllegalArgumentException("Introuvable : " + key);
+        }
+    }
+
+    private void requireAbsent(Kind kind, String id) {
+        if (read(kind, id) != null) {
+            throw new IllegalArgumentException("Existe déjà : " + new EntityKey(kind, id));
+        }
+    }
+
+    private void requirePresent(Kind kind, String id) {
+        if (read(kind, id) == null) {
+            throw new IllegalArgumentException("Introuvable : " + new EntityKey(kind, id));
+        }
+    }
+
+    /**
+     * Une seule écriture par entité : la dernière remplace les précédentes
+     */
+    private void stage(Kind kind, String id, Object value, Mutation mutation) {
+        if (committed) {
+            throw new IllegalStateException("Transaction déjà validée");
+        }
+        if (pending.put(new EntityKey(kind, id), value) != null) {
+            writes.removeIf(write -> write.getKey().equals(id) && kindOf(write) == kind);
+        }
+        writes.add(mutation);
+    }
+
+    private static Kind kindOf(Mutation mutation) {
+        return switch (mutation.getKind()) {
+            case PUT_BOOK, DELETE_BOOK -> Kind.BOOK;
+            case PUT_USER, DELETE_USER -> Kind.USER;
+            case PUT_LOAN -> Kind.LOAN;
+        };
+    }
+}
@@ -0,0 +1,337 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index d'autocomplétion pondéré (trie compressé / radix tree)
+ *
+ * Pourquoi : Proposer des suggestions à chaque frappe impose une réponse en quelques
+ * microsecondes, impossible avec un parcours de tous les titres.
+ *
+ * Fonctionnement :
+ *   - chaque entrée (un titre, un auteur) est indexée sous son texte normalisé et
+ *     sous chacun de ses suffixes commençant à un mot ("petit prince" pour
+ *     "Le Petit Prince"), afin que la saisie d'un mot du milieu la retrouve ;
+ *   - les arêtes portent des chaînes (chaînes sans embranchement fusionnées) ;
+ *   - chaque nœud retient le plus grand poids de son sous-arbre : la recherche
+ *     descend jusqu'au préfixe puis explore au mieux d'abord (tas ordonné par ce
+ *     poids maximal) et s'arrête dès que les K meilleures entrées sont sorties.
+ * Le coût dépend de la longueur du préfixe et de K, pas du nombre d'entrées.
+ */
+public class CompletionTrie {
+
+    private static final int MAX_WORD_STARTS = 8; // Suffixes indexés par entrée
+
+    private final Node root = new Node("");
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ajoute delta au poids d'une entrée (créée si besoin, retirée si son poids tombe à 0)
+     */
+    public void adjust(String text, int delta) {
+        if (text == null || text.isBlank() || delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(text);
+            if (entry == null) {
+                if (delta < 0) {
+                    return;
+                }
+                entry = new Entry(text, keys(text));
+                entries.put(text, entry);
+                entry.weight = delta;
+                for (String key : entry.keys) {
+                    insert(key, entry);
+                }
+                return;
+            }
+            entry.weight += delta;
+            boolean removed = entry.weight <= 0;
+            if (removed) {
+                entries.remove(text);
+            }
+            for (String key : entry.keys) {
+                refresh(key, removed ? entry : null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Les limit entrées les plus lourdes dont un mot commence par le préfixe saisi
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = prefix == null ? "" : FuzzyTitleIndex.normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node start = find(key);
+            if (start == null || start.maxWeight <= 0) {
+                return List.of();
+            }
+            // Tas max mêlant nœuds (poids maximal du sous-arbre) et entrées (poids exact)
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            queue.add(new Candidate(start.maxWeight, 0, start, null));
+            List<String> result = new ArrayList<>(Math.min(limit, 16));  // limit vient de la requête
+            Set<Entry> seen = new HashSet<>();
+            long order = 0;
+            while (!queue.isEmpty() && result.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.entry != null) {
+                    if (seen.add(candidate.entry)) {
+                        result.add(candidate.entry.text);
+                    }
+                    continue;
+                }
+                for (Entry entry : candidate.node.entries) {
+                    queue.add(new Candidate(entry.weight, ++order, null, entry));
+                }
+                for (Node child : candidate.node.children) {
+                    if (child.maxWeight > 0) {
+                        queue.add(new Candidate(child.maxWeight, ++order, child, null));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== PARCOURS ====================
+
+    /**
+     * Nœud sous lequel se trouvent toutes les clés commençant par key (null si aucune)
+     */
+    private Node find(String key) {
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            Node child = node.child(key.charAt(depth));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, key, depth);
+            if (depth + common == key.length()) {
+                return child; // Le préfixe se termine dans (ou au bout de) cette arête
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            depth += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        List<Node> path = new ArrayList<>();
+        path.add(node);
+        int depth = 0;
+        while (depth < key.length()) {
+            Node child = node.child(key.charAt(depth));
+            if (child == null) {
+                child = new Node(key.substring(depth));
+                node.addChild(child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, key, depth);
+            if (common < child.label.length()) {
+                child = node.split(child, common);
+            }
+            depth += common;
+            node = child;
+            path.add(node);
+        }
+        node.entries = append(node.entries, entry);
+        // Un ajout ne peut qu'augmenter les maximums : pas besoin de rescanner les enfants
+        for (Node visited : path) {
+            visited.maxWeight = Math.max(visited.maxWeight, entry.weight);
+        }
+    }
+
+    /**
+     * Recalcule les poids maximaux le long d'une clé (après retrait éventuel de l'entrée)
+     */
+    private void refresh(String key, Entry removed) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int depth = 0;
+        while (depth < key.length()) {
+            node = node.child(key.charAt(depth));
+            if (node == null) {
+                return;
+            }
+            depth += node.label.length();
+            path.add(node);
+        }
+        if (removed != null) {
+            node.entries = without(node.entries, removed);
+        }
+        recompute(path);
+    }
+
+    private static void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            int max = 0;
+            for (Entry entry : node.entries) {
+                max = Math.max(max, entry.weight);
+            }
+            for (Node child : node.children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            node.maxWeight = max;
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Clés d'une entrée : son texte normalisé à partir de chacun de ses premiers mots
+     */
+    private static String[] keys(String text) {
+        String normalized = FuzzyTitleIndex.normalize(text);
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (start >= 0 && keys.size() < MAX_WORD_STARTS && start < normalized.length()) {
+            keys.add(normalized.substring(start));
+            int space = normalized.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys.stream().distinct().toArray(String[]::new);
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+        copy[entries.length] = entry;
+        return copy;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        return Arrays.stream(entries).filter(e -> e != entry).toArray(Entry[]::new);
+    }
+
+    /**
+     * Élément du tas : à poids égal, les entrées passent avant les nœuds, puis le
+     * plus récent d'abord (exploration en profondeur au lieu de tous les ex æquo)
+     */
+    private record Candidate(int weight, long order, Node node, Entry entry) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate other) {
+            if (weight != other.weight) {
+                return Integer.compare(other.weight, weight);
+            }
+            if ((entry == null) != (other.entry == null)) {
+                return entry != null ? -1 : 1;
+            }
+            return Long.compare(other.order, order);
+        }
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final String[] keys;
+        private int weight;
+
+        Entry(String text, String[] keys) {
+            this.text = text;
+            this.keys = keys;
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN; // Triés par premier caractère
+        private Entry[] entries = NO_ENTRIES;
+        private int maxWeight;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int position = 0;
+            while (position < children.length && children[position].label.charAt(0) < first) {
+                position++;
+            }
+            Node[] copy = new Node[children.length + 1];
+            System.arraycopy(children, 0, copy, 0, position);
+            copy[position] = child;
+            System.arraycopy(children, position, copy, position + 1, children.length - position);
+            children = copy;
+        }
+
+        /**
+         * Coupe l'arête vers child après length caractères ; renvoie le nœud intermédiaire
+         */
+        Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.children = new Node[] {child};
+            middle.maxWeight = child.maxWeight;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    children[i] = middle;
+                }
+            }
+            return middle;
+        }
+    }
+}
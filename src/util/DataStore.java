@@ -3,7 +3,12 @@ package util;
 import model.Book;
 import model.Loan;
 import model.User;
+import query.BookFields;
+import query.IndexedTable;
+import query.LoanFields;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,22 +20,50 @@ import java.util.List;
  */
 public class DataStore {
 
-    // L'unique instance (volatile pour thread-safety si besoin)
-    private static DataStore instance;
+    // L'unique instance : créée par la classe interne Holder au premier appel
+    // (le chargement de classe de la JVM garantit la thread-safety, sans verrou)
+    private static class Holder {
+        private static final DataStore INSTANCE = new DataStore();
+    }
+
+    // Les données de l'application (listes multi-versions : lectures sans verrou, voir VersionedList)
+    private final VersionedList<Book> books;
+    private final VersionedList<User> users;
+    private final VersionedList<Loan> loans;
 
-    // Les données de l'application
-    private List<Book> books;
-    private List<User> users;
-    private List<Loan> loans;
+    // Index secondaires pour les requêtes par critères, construits au premier usage
+    private IndexedTable<Book> bookTable;
+    private IndexedTable<Loan> loanTable;
 
     // Constructeur privé : empêche la création d'instances depuis l'extérieur
     private DataStore() {
-        this.books = new ArrayList<>();
-        this.users = new ArrayList<>();
-        this.loans = new ArrayList<>();
-
-        // Initialisation avec quelques données de test
-        initializeTestData();
+        // Chargement d'un instantané précalculé s'il est fourni (-Dbiblio.snapshot=fichier),
+        // sinon initialisation avec quelques données de test
+        String snapshot = System.getProperty("biblio.snapshot");
+        List<Book> loadedBooks = new ArrayList<>();
+        List<User> loadedUsers = new ArrayList<>();
+        List<Loan> loadedLoans = new ArrayList<>();
+        boolean loaded = false;
+        if (snapshot != null) {
+            // Une exception ici ferait échouer l'initialisation de Holder (ExceptionInInitializerError,
+            // puis NoClassDefFoundError à chaque appel) : on repart des données de test
+            try {
+                SnapshotFile.read(Path.of(snapshot), loadedBooks, loadedUsers, loadedLoans);
+                loaded = true;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️ Instantané illisible (" + snapshot + ") : " + e.getMessage()
+                        + " ; chargement des données de test");
+                loadedBooks.clear();
+                loadedUsers.clear();
+                loadedLoans.clear();
+            }
+        }
+        this.books = new VersionedList<>(loadedBooks);
+        this.users = new VersionedList<>(loadedUsers);
+        this.loans = new VersionedList<>(loadedLoans);
+        if (!loaded) {
+            initializeTestData();
+        }
     }
 
     /**
@@ -38,25 +71,44 @@ public class DataStore {
      * Pattern : Lazy Initialization (l'instance est créée au premier appel)
      */
     public static DataStore getInstance() {
-        if (instance == null) {
-            instance = new DataStore();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
     // Getters pour accéder aux listes
-    public List<Book> getBooks() {
+    public VersionedList<Book> getBooks() {
         return books;
     }
 
-    public List<User> getUsers() {
+    public VersionedList<User> getUsers() {
         return users;
     }
 
-    public List<Loan> getLoans() {
+    public VersionedList<Loan> getLoans() {
         return loans;
     }
 
+    /**
+     * Livres indexés par ISBN, auteur, éditeur, année et disponibilité
+     */
+    public synchronized IndexedTable<Book> getBookTable() {
+        if (bookTable == null) {
+            bookTable = new IndexedTable<>("livres", books,
+                    BookFields.ISBN, BookFields.AUTHOR, BookFields.PUBLISHER, BookFields.YEAR, BookFields.AVAILABLE);
+        }
+        return bookTable;
+    }
+
+    /**
+     * Emprunts indexés par lecteur, livre, échéance et état (rendu ou non)
+     */
+    public synchronized IndexedTable<Loan> getLoanTable() {
+        if (loanTable == null) {
+            loanTable = new IndexedTable<>("emprunts", loans,
+                    LoanFields.USER_ID, LoanFields.ISBN, LoanFields.DUE_DATE, LoanFields.RETURNED);
+        }
+        return loanTable;
+    }
+
     /**
      * Initialise quelques données de test pour faciliter les tests
      */
@@ -0,0 +1,275 @@
+package util;
+
+import metrics.QueryProfiler;
+import metrics.QueryStats;
+import model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index de facettes du catalogue (année, éditeur, disponibilité)
+ *
+ * Pourquoi : "Les livres de 1940 à 1960 chez Gallimard" imposait un findAll puis un
+ * filtre chez l'appelant. Ici chaque livre a un numéro interne, et chaque facette
+ * est un ensemble de numéros (BitSet) :
+ *   - année : TreeMap année → livres, une plage d'années est un subMap ;
+ *   - éditeur : éditeur (normalisé) → livres ;
+ *   - disponibilité : un BitSet des livres disponibles.
+ * Une requête combine ces ensembles par ET/OU binaires ; les critères texte (titre,
+ * auteur) ne sont vérifiés que sur les livres déjà retenus. Les compteurs par année
+ * et par éditeur du catalogue entier sont tenus à jour à chaque écriture : la vue
+ * non filtrée ne parcourt rien ; une vue filtrée ne parcourt que ses résultats.
+ */
+public class FacetIndex {
+
+    private static final QueryStats QUERY_STATS = QueryProfiler.getInstance().stats("FacetIndex.query");
+
+    // Livres : numéro interne → dernière version connue
+    private final Map<String, Integer> documentByIsbn = new HashMap<>();
+    private Book[] books = new Book[1024];
+    private int[] publisherOf = new int[1024];
+    private int documentCount;
+    private final BitSet live = new BitSet();
+    private final BitSet available = new BitSet();
+
+    // Facettes
+    private final TreeMap<Integer, BitSet> byYear = new TreeMap<>();
+    private final Map<String, Integer> publisherIds = new HashMap<>(); // Nom normalisé → numéro
+    private final List<String> publisherNames = new ArrayList<>();     // Numéro → nom affiché
+    private final List<BitSet> byPublisher = new ArrayList<>();
+
+    // Compteurs précalculés du catalogue entier
+    private final TreeMap<Integer, Integer> yearCounts = new TreeMap<>();
+    private int[] publisherCounts = new int[16];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ajoute un livre ou remplace sa version précédente
+     */
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = documentByIsbn.get(book.getIsbn());
+            int document;
+            if (existing != null) {
+                document = existing;
+                Book previous = books[document];
+                if (previous.getYear() != book.getYear() || publisherOf[document] != publisherId(book.getPublisher())) {
+                    unindex(document);
+                    index(document, book);
+                }
+            } else {
+                document = documentCount++;
+                ensureCapacity(documentCount);
+                documentByIsbn.put(book.getIsbn(), document);
+                index(document, book);
+            }
+            books[document] = book;
+            available.set(document, book.isAvailable());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documentByIsbn.remove(isbn);
+            if (document != null) {
+                unindex(document);
+                books[document] = null;
+                available.clear(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Livres correspondant aux critères, avec leur nombre total et les compteurs par facette
+     */
+    public Result query(FacetQuery query) {
+        long start = QUERY_STATS.start();
+        lock.readLock().lock();
+        try {
+            if (query.isUnfiltered()) {
+                List<Book> page = collect(live, query.getLimit());
+                Map<String, Integer> publishers = new LinkedHashMap<>();
+                for (int i = 0; i < publisherNames.size(); i++) {
+                    if (publisherCounts[i] > 0) {
+                        publishers.put(publisherNames.get(i), publisherCounts[i]);
+                    }
+                }
+                QUERY_STATS.record(start, page.size(), page.size());
+                return new Result(page, documentByIsbn.size(), new TreeMap<>(yearCounts), publishers);
+            }
+
+            BitSet matches = (BitSet) live.clone();
+            if (query.getYearFrom() != null || query.getYearTo() != null) {
+                int from = query.getYearFrom() != null ? query.getYearFrom() : Integer.MIN_VALUE;
+                int to = query.getYearTo() != null ? query.getYearTo() : Integer.MAX_VALUE;
+                BitSet years = new BitSet();
+                for (BitSet year : byYear.subMap(from, true, to, true).values()) {
+                    years.or(year);
+                }
+                matches.and(years);
+            }
+            if (!query.getPublishers().isEmpty()) {
+                BitSet publishers = new BitSet();
+                for (String publisher : query.getPublishers()) {
+                    Integer id = publisherIds.get(FuzzyTitleIndex.normalize(publisher));
+                    if (id != null) {
+                        publishers.or(byPublisher.get(id));
+                    }
+                }
+                matches.and(publishers);
+            }
+            if (query.isAvailableOnly()) {
+                matches.and(available);
+            }
+
+            // Critères texte et compteurs : seulement sur les livres retenus
+            String title = lower(query.getTitleKeyword());
+            String author = lower(query.getAuthorKeyword());
+            int examined = 0;
+            int total = 0;
+            List<Book> page = new ArrayList<>(Math.min(query.getLimit(), 256));
+            TreeMap<Integer, Integer> years = new TreeMap<>();
+            int[] publishers = new int[publisherNames.size()];
+            for (int document = matches.nextSetBit(0); document >= 0; document = matches.nextSetBit(document + 1)) {
+                examined++;
+                Book book = books[document];
+                if ((title != null && !book.getTitle().toLowerCase().contains(title))
+                        || (author != null && (book.getAuthor() == null
+                                || !book.getAuthor().toLowerCase().contains(author)))) {
+                    continue;
+                }
+                total++;
+                if (page.size() < query.getLimit()) {
+                    page.add(book);
+                }
+                years.merge(book.getYear(), 1, Integer::sum);
+                if (publisherOf[document] >= 0) {
+                    publishers[publisherOf[document]]++;
+                }
+            }
+            Map<String, Integer> publisherFacet = new LinkedHashMap<>();
+            for (int i = 0; i < publishers.length; i++) {
+                if (publishers[i] > 0) {
+                    publisherFacet.put(publisherNames.get(i), publishers[i]);
+                }
+            }
+            QUERY_STATS.record(start, examined, total);
+            return new Result(page, total, years, publisherFacet);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== INDEXATION ====================
+
+    private void index(int document, Book book) {
+        live.set(document);
+        byYear.computeIfAbsent(book.getYear(), y -> new BitSet()).set(document);
+        yearCounts.merge(book.getYear(), 1, Integer::sum);
+        int publisher = publisherIdOrCreate(book.getPublisher());
+        publisherOf[document] = publisher;
+        if (publisher >= 0) {
+            byPublisher.get(publisher).set(document);
+            publisherCounts[publisher]++;
+        }
+    }
+
+    private void unindex(int document) {
+        Book book = books[document];
+        live.clear(document);
+        BitSet year = byYear.get(book.getYear());
+        year.clear(document);
+        if (year.isEmpty()) {
+            byYear.remove(book.getYear());
+        }
+        yearCounts.merge(book.getYear(), -1, (count, delta) -> count + delta == 0 ? null : count + delta);
+        int publisher = publisherOf[document];
+        if (publisher >= 0) {
+            byPublisher.get(publisher).clear(document);
+            publisherCounts[publisher]--;
+        }
+    }
+
+    private int publisherId(String publisher) {
+        if (publisher == null || publisher.isBlank()) {
+            return -1;
+        }
+        return publisherIds.getOrDefault(FuzzyTitleIndex.normalize(publisher), -2);
+    }
+
+    private int publisherIdOrCreate(String publisher) {
+        if (publisher == null || publisher.isBlank()) {
+            return -1; // Pas d'éditeur : hors facette
+        }
+        return publisherIds.computeIfAbsent(FuzzyTitleIndex.normalize(publisher), key -> {
+            publisherNames.add(publisher);
+            byPublisher.add(new BitSet());
+            if (publisherCounts.length < publisherNames.size()) {
+                publisherCounts = Arrays.copyOf(publisherCounts, publisherCounts.length * 2);
+            }
+            return publisherNames.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > books.length) {
+            int capacity = Math.max(size, books.length * 2);
+            books = Arrays.copyOf(books, capacity);
+            publisherOf = Arrays.copyOf(publisherOf, capacity);
+        }
+    }
+
+    private List<Book> collect(BitSet documents, int limit) {
+        List<Book> page = new ArrayList<>(Math.min(limit, 256));
+        for (int document = documents.nextSetBit(0); document >= 0 && page.size() < limit;
+             document = documents.nextSetBit(document + 1)) {
+            page.add(books[document]);
+        }
+        return page;
+    }
+
+    private static String lower(String keyword) {
+        return keyword == null ? null : keyword.toLowerCase();
+    }
+
+    /**
+     * Résultat d'une requête : une page de livres, leur nombre total et les facettes
+     */
+    public static final class Result {
+        private final List<Book> books;
+        private final int total;
+        private final SortedMap<Integer, Integer> yearCounts;
+        private final Map<String, Integer> publisherCounts;
+
+        Result(List<Book> books, int total, SortedMap<Integer, Integer> yearCounts,
+               Map<String, Integer> publisherCounts) {
+            this.books = Collections.unmodifiableList(books);
+            this.total = total;
+            this.yearCounts = Collections.unmodifiableSortedMap(yearCounts);
+            this.publisherCounts = Collections.unmodifiableMap(publisherCounts);
+        }
+
+        public List<Book> getBooks() { return books; }
+        public int getTotal() { return total; }
+        public SortedMap<Integer, Integer> getYearCounts() { return yearCounts; }
+        public Map<String, Integer> getPublisherCounts() { return publisherCounts; }
+    }
+}
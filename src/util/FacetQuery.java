@@ -0,0 +1,113 @@
+package util;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Critères d'une navigation filtrée dans le catalogue (facettes + texte)
+ *
+ * Pattern : Builder
+ * Pourquoi : Tous les critères sont facultatifs et combinables ("1940–1960, chez
+ * Gallimard, disponibles, titre contenant 'nuit'") : un constructeur à huit
+ * paramètres presque tous null serait illisible.
+ * Lien : https://refactoring.guru/fr/design-patterns/builder
+ */
+public final class FacetQuery {
+
+    private final Integer yearFrom;
+    private final Integer yearTo;
+    private final Set<String> publishers;
+    private final boolean availableOnly;
+    private final String titleKeyword;
+    private final String authorKeyword;
+    private final int limit;
+
+    private FacetQuery(Builder builder) {
+        this.yearFrom = builder.yearFrom;
+        this.yearTo = builder.yearTo;
+        this.publishers = Collections.unmodifiableSet(new LinkedHashSet<>(builder.publishers));
+        this.availableOnly = builder.availableOnly;
+        this.titleKeyword = builder.titleKeyword;
+        this.authorKeyword = builder.authorKeyword;
+        this.limit = builder.limit;
+    }
+
+    public Integer getYearFrom() { return yearFrom; }
+    public Integer getYearTo() { return yearTo; }
+    public Set<String> getPublishers() { return publishers; }
+    public boolean isAvailableOnly() { return availableOnly; }
+    public String getTitleKeyword() { return titleKeyword; }
+    public String getAuthorKeyword() { return authorKeyword; }
+    public int getLimit() { return limit; }
+
+    /**
+     * Vrai si aucun critère ne restreint le catalogue
+     */
+    public boolean isUnfiltered() {
+        return yearFrom == null && yearTo == null && publishers.isEmpty() && !availableOnly
+                && titleKeyword == null && authorKeyword == null;
+    }
+
+    public static class Builder {
+        private Integer yearFrom;
+        private Integer yearTo;
+        private final Set<String> publishers = new LinkedHashSet<>();
+        private boolean availableOnly;
+        private String titleKeyword;
+        private String authorKeyword;
+        private int limit = 50;
+
+        /**
+         * Années de publication entre from et to (bornes incluses, null = ouverte)
+         */
+        public Builder years(Integer from, Integer to) {
+            if (from != null && to != null && from > to) {
+                throw new IllegalArgumentException("Intervalle d'années invalide : " + from + "–" + to);
+            }
+            this.yearFrom = from;
+            this.yearTo = to;
+            return this;
+        }
+
+        /**
+         * Ajoute un éditeur accepté (plusieurs éditeurs = l'un ou l'autre)
+         */
+        public Builder publisher(String publisher) {
+            if (publisher != null && !publisher.isBlank()) {
+                this.publishers.add(publisher);
+            }
+            return this;
+        }
+
+        public Builder availableOnly(boolean availableOnly) {
+            this.availableOnly = availableOnly;
+            return this;
+        }
+
+        public Builder titleContains(String keyword) {
+            this.titleKeyword = keyword == null || keyword.isBlank() ? null : keyword;
+            return this;
+        }
+
+        public Builder authorContains(String keyword) {
+            this.authorKeyword = keyword == null || keyword.isBlank() ? null : keyword;
+            return this;
+        }
+
+        /**
+         * Nombre maximal de livres renvoyés (les compteurs portent sur tous les résultats)
+         */
+        public Builder limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("La limite ne peut pas être négative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public FacetQuery build() {
+            return new FacetQuery(this);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche tolérante aux fautes (titres et auteurs)
+ *
+ * Pourquoi : Une recherche par sous-chaîne ne trouve rien pour "Orwel" ou
+ * "Petit Prinse", et chaque nouvel essai du lecteur relance un parcours complet.
+ *
+ * Fonctionnement :
+ *   - titres et auteurs sont normalisés (minuscules, sans accents) et découpés en mots ;
+ *   - chaque mot distinct du vocabulaire a sa liste de livres, et chaque trigramme
+ *     sa liste de mots ("$or", "orw", ..., "ll$") ;
+ *   - pour un mot de la requête, les trigrammes donnent les mots candidats ; seuls ceux
+ *     qui partagent assez de trigrammes (une édition en détruit au plus 3) sont
+ *     vérifiés par une distance d'édition bornée (0 à 2 selon la longueur du mot) ;
+ *   - chaque livre cumule, par mot de la requête, le score de son meilleur mot
+ *     proche (1 pour un mot exact, moins pour un mot à 1 ou 2 éditions), et les
+ *     K meilleurs sont gardés dans un tas.
+ * Le coût dépend de la taille du vocabulaire touché, pas du nombre de livres.
+ * Un livre dont le titre et l'auteur n'ont pas changé n'est pas réindexé (simple
+ * changement de disponibilité). Un livre retiré ou réindexé n'est que marqué ; quand les documents marqués
+ * dépassent la moitié de l'index, les listes sont recompactées (voir compact).
+ */
+public class FuzzyTitleIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int SCORE_SCALE = 1000;
+    private static final int MIN_REMOVED_TO_COMPACT = 1024;
+
+    // Documents (livres) : id interne → ISBN, et texte indexé
+    private final List<String> isbns = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final Map<String, Integer> documentByIsbn = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    // Vocabulaire : mot → id, id → mot, id → livres qui le contiennent
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<IntList> tokenPostings = new ArrayList<>();
+
+    // Trigramme → mots du vocabulaire qui le contiennent
+    private final Map<String, IntList> trigramPostings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexe (ou réindexe) un livre
+     */
+    public void add(String isbn, String title, String author) {
+        String text = title + " " + (author == null ? "" : author);
+        lock.writeLock().lock();
+        try {
+            Integer previous = documentByIsbn.get(isbn);
+            if (previous != null) {
+                if (texts.get(previous).equals(text)) {
+                    return;
+                }
+                markRemoved(previous);
+            }
+            int document = isbns.size();
+            isbns.add(isbn);
+            texts.add(text);
+            documentByIsbn.put(isbn, document);
+            for (String token : distinctTokens(text)) {
+                tokenPostings.get(tokenId(token)).add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documentByIsbn.remove(isbn);
+            if (document != null) {
+                markRemoved(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Les ISBN des limit livres les plus proches de la requête, du meilleur au moins bon
+     */
+    public List<String> search(String query, int limit) {
+        String[] queryTokens = distinctTokens(query);
+        if (queryTokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            IntIntHashMap scores = new IntIntHashMap(64);
+            for (String queryToken : queryTokens) {
+                IntIntHashMap matches = similarTokens(queryToken);
+                if (matches.size() == 1) {
+                    // Cas courant (mot exact ou une seule variante) : pas de maximum à calculer
+                    matches.forEach((token, score) -> {
+                        IntList postings = tokenPostings.get(token);
+                        for (int i = 0; i < postings.size; i++) {
+                            scores.addTo(postings.values[i], score);
+                        }
+                    });
+                    continue;
+                }
+                // Meilleur score de ce mot de la requête pour chaque livre
+                IntIntHashMap best = new IntIntHashMap(64);
+                matches.forEach((token, score) -> {
+                    IntList postings = tokenPostings.get(token);
+                    for (int i = 0; i < postings.size; i++) {
+                        int document = postings.values[i];
+                        if (best.get(document, 0) < score) {
+                            best.put(document, score);
+                        }
+                    }
+                });
+                best.forEach(scores::addTo);
+            }
+            return topDocuments(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== RECHERCHE ====================
+
+    /**
+     * Mots du vocabulaire à distance d'édition bornée du mot de la requête → score
+     */
+    private IntIntHashMap similarTokens(String queryToken) {
+        IntIntHashMap matches = new IntIntHashMap(16);
+        int maxDistance = maxDistance(queryToken.length());
+        Integer exact = tokenIds.get(queryToken);
+        if (exact != null) {
+            matches.put(exact, SCORE_SCALE);
+        }
+        if (maxDistance == 0) {
+            return matches;
+        }
+
+        String[] trigrams = trigrams(queryToken);
+        IntIntHashMap shared = new IntIntHashMap(64);
+        for (String trigram : trigrams) {
+            IntList candidates = trigramPostings.get(trigram);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    shared.addTo(candidates.values[i], 1);
+                }
+            }
+        }
+        int minShared = Math.max(1, trigrams.length - 3 * maxDistance);
+        shared.forEach((token, count) -> {
+            if (count < minShared || matches.containsKey(token)) {
+                return;
+            }
+            String candidate = tokens.get(token);
+            if (Math.abs(candidate.length() - queryToken.length()) > maxDistance) {
+                return;
+            }
+            int distance = boundedDistance(queryToken, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                matches.put(token, SCORE_SCALE * (queryToken.length() + 1 - distance) / (queryToken.length() + 1));
+            }
+        });
+        return matches;
+    }
+
+    private List<String> topDocuments(IntIntHashMap scores, int limit) {
+        // Tas min des K meilleurs (score, puis id le plus ancien)
+        PriorityQueue<long[]> heap = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+        scores.forEach((document, score) -> {
+            if (removed.get(document)) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(new long[] {score, document});
+            } else if (score > heap.peek()[0] || (score == heap.peek()[0] && document < heap.peek()[1])) {
+                heap.poll();
+                heap.add(new long[] {score, document});
+            }
+        });
+        String[] result = new String[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = isbns.get((int) heap.poll()[1]);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Distance d'édition (Levenshtein) ; renvoie max + 1 dès qu'elle dépasse max
+     */
+    static int boundedDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Fautes tolérées selon la longueur du mot
+     */
+    private static int maxDistance(int length) {
+        return length <= 3 ? 0 : length <= 6 ? 1 : 2;
+    }
+
+    // ==================== INDEXATION ====================
+
+    private void markRemoved(int document) {
+        removed.set(document);
+        removedCount++;
+        if (removedCount >= MIN_REMOVED_TO_COMPACT && removedCount * 2 > isbns.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumérote les documents restants et reconstruit vocabulaire et listes sans
+     * les documents marqués (appelé sous le verrou d'écriture)
+     */
+    private void compact() {
+        int[] renumbered = new int[isbns.size()];
+        List<String> liveIsbns = new ArrayList<>(isbns.size() - removedCount);
+        List<String> liveTexts = new ArrayList<>(isbns.size() - removedCount);
+        for (int document = 0; document < isbns.size(); document++) {
+            if (removed.get(document)) {
+                renumbered[document] = -1;
+            } else {
+                renumbered[document] = liveIsbns.size();
+                liveIsbns.add(isbns.get(document));
+                liveTexts.add(texts.get(document));
+            }
+        }
+        List<String> previousTokens = new ArrayList<>(tokens);
+        List<IntList> previousPostings = new ArrayList<>(tokenPostings);
+        tokenIds.clear();
+        tokens.clear();
+        tokenPostings.clear();
+        trigramPostings.clear();
+        for (int token = 0; token < previousTokens.size(); token++) {
+            IntList postings = previousPostings.get(token);
+            IntList live = new IntList();
+            for (int i = 0; i < postings.size; i++) {
+                int document = renumbered[postings.values[i]];
+                if (document >= 0) {
+                    live.add(document);
+                }
+            }
+            if (live.size > 0) {
+                // Les mots qui n'apparaissent plus que dans des documents retirés disparaissent
+                tokenId(previousTokens.get(token));
+                tokenPostings.set(tokenPostings.size() - 1, live);
+            }
+        }
+        isbns.clear();
+        isbns.addAll(liveIsbns);
+        texts.clear();
+        texts.addAll(liveTexts);
+        documentByIsbn.replaceAll((isbn, document) -> renumbered[document]);
+        removed.clear();
+        removedCount = 0;
+    }
+
+    private int tokenId(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        int newId = tokens.size();
+        tokenIds.put(token, newId);
+        tokens.add(token);
+        tokenPostings.add(new IntList());
+        for (String trigram : trigrams(token)) {
+            trigramPostings.computeIfAbsent(trigram, k -> new IntList()).add(newId);
+        }
+        return newId;
+    }
+
+    private static String[] trigrams(String token) {
+        String padded = "$" + token + "$";
+        String[] trigrams = new String[Math.max(1, padded.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = padded.substring(i, Math.min(i + 3, padded.length()));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Mots normalisés distincts (au moins 2 caractères)
+     */
+    static String[] distinctTokens(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return SEPARATORS.splitAsStream(normalize(text))
+                .filter(token -> token.length() >= 2)
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Texte sans accents, en minuscules, mots séparés par une seule espace
+     *
+     * Un texte déjà décomposé (NFD, "E" + accent combinant) garde ses accents sous
+     * forme de marques : elles sont retirées dans tous les cas, seul un texte
+     * entièrement ASCII (sans accent possible) évite la normalisation.
+     */
+    static String normalize(String text) {
+        String stripped = isAscii(text)
+                ? text
+                : MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        boolean separator = false;
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = Character.toLowerCase(stripped.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (separator && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                separator = false;
+                normalized.append(c);
+            } else {
+                separator = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liste d'entiers extensible (pas d'Integer par élément)
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
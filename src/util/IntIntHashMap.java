@@ -0,0 +1,138 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage int → int à adressage ouvert (sondage linéaire)
+ *
+ * Pourquoi : Une HashMap<Integer, Integer> coûte deux objets par entrée.
+ * Ici, clés et valeurs sont rangées dans deux tableaux de primitifs,
+ * sans aucune allocation par opération.
+ * Les clés doivent être positives ou nulles (-1 marque une case libre).
+ */
+public class IntIntHashMap {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Valeur associée à la clé, ou defaultValue si absente
+     */
+    public int get(int key, int defaultValue) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[find(key)] == key;
+    }
+
+    public void put(int key, int value) {
+        int slot = find(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        growIfNeeded();
+    }
+
+    /**
+     * Ajoute delta à la valeur de la clé (0 si absente) et renvoie la nouvelle valeur
+     */
+    public int addTo(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            values[slot] = delta;
+            size++;
+            growIfNeeded();
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    public void remove(int key) {
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return;
+        }
+        keys[slot] = FREE;
+        size--;
+        // Réinsère la suite du groupe pour ne pas casser le sondage linéaire
+        int mask = keys.length - 1;
+        for (int i = (slot + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            int k = keys[i];
+            int v = values[i];
+            keys[i] = FREE;
+            int target = find(k);
+            keys[target] = k;
+            values[target] = v;
+        }
+    }
+
+    /**
+     * Parcourt toutes les entrées sans allocation
+     */
+    public void forEach(IntIntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growIfNeeded() {
+        if (size * 2 <= keys.length) {
+            return;
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Consommateur de paires (clé, valeur) primitives
+     */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,71 @@
+package util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Pattern : Singleton
+ * Horloge de l'application : toute lecture de "maintenant" (date d'emprunt,
+ * échéance dépassée, rappels) passe par elle
+ *
+ * Pourquoi : Avec LocalDate.now() en dur, un retard ne se produit qu'en
+ * attendant vraiment quinze jours. L'horloge installée est interchangeable :
+ * l'horloge système par défaut, une SimulatedClock pour rejouer une charge
+ * enregistrée ou simuler une année de circulation en quelques secondes.
+ * Lien : https://refactoring.guru/fr/design-patterns/singleton/java/example
+ */
+public final class LibraryClock extends Clock {
+
+    private static class Holder {
+        private static final LibraryClock INSTANCE = new LibraryClock();
+    }
+
+    private volatile Clock installed = Clock.systemDefaultZone();
+
+    private LibraryClock() {
+    }
+
+    public static LibraryClock getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Remplace l'horloge de toute l'application (simulation, rejeu)
+     */
+    public void install(Clock clock) {
+        this.installed = clock;
+    }
+
+    /**
+     * Revient à l'horloge système
+     */
+    public void reset() {
+        this.installed = Clock.systemDefaultZone();
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(installed);
+    }
+
+    @Override
+    public long millis() {
+        return installed.millis();
+    }
+
+    @Override
+    public Instant instant() {
+        return installed.instant();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return installed.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return installed.withZone(zone);
+    }
+}
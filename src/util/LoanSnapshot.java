@@ -0,0 +1,155 @@
+package util;
+
+import model.Book;
+import model.Loan;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Photographie en colonnes de l'historique des emprunts (pour l'analytique)
+ *
+ * Pourquoi : Les agrégations parcourent des millions d'emprunts. Stocker chaque
+ * attribut dans un tableau de primitifs (dates en jours epoch, livres et
+ * utilisateurs en indices) évite les objets et le boxing, et le tri par date
+ * d'emprunt permet d'ignorer tout ce qui sort de la période demandée.
+ */
+public final class LoanSnapshot {
+
+    public static final int NOT_RETURNED = Integer.MIN_VALUE;
+
+    // Dictionnaires : indice → valeur
+    private final String[] isbns;
+    private final String[] userIds;
+    private final String[] authors;
+    private final int[] authorOfBook;     // indice livre → indice auteur
+    private final int[] firstLoanMonth;   // indice utilisateur → mois epoch du premier emprunt
+
+    // Colonnes, triées par date d'emprunt
+    private final int[] book;
+    private final int[] user;
+    private final int[] loanDay;
+    private final int[] loanMonth;
+    private final int[] dueDay;
+    private final int[] returnDay;
+
+    private LoanSnapshot(String[] isbns, String[] userIds, String[] authors, int[] authorOfBook,
+                         int[] firstLoanMonth, int[] book, int[] user,
+                         int[] loanDay, int[] loanMonth, int[] dueDay, int[] returnDay) {
+        this.isbns = isbns;
+        this.userIds = userIds;
+        this.authors = authors;
+        this.authorOfBook = authorOfBook;
+        this.firstLoanMonth = firstLoanMonth;
+        this.book = book;
+        this.user = user;
+        this.loanDay = loanDay;
+        this.loanMonth = loanMonth;
+        this.dueDay = dueDay;
+        this.returnDay = returnDay;
+    }
+
+    /**
+     * Construit la photographie à partir des emprunts et du catalogue
+     */
+    public static LoanSnapshot of(Collection<Loan> loans, Collection<Book> books) {
+        Map<String, Integer> bookIndex = new HashMap<>();
+        Map<String, Integer> authorIndex = new HashMap<>();
+        Map<String, Integer> userIndex = new HashMap<>();
+        Map<String, String> authorByIsbn = new HashMap<>();
+        for (Book b : books) {
+            authorByIsbn.put(b.getIsbn(), b.getAuthor());
+        }
+
+        Loan[] sorted = loans.toArray(new Loan[0]);
+        Arrays.sort(sorted, (a, b) -> a.getLoanDate().compareTo(b.getLoanDate()));
+
+        int n = sorted.length;
+        int[] book = new int[n];
+        int[] user = new int[n];
+        int[] loanDay = new int[n];
+        int[] loanMonth = new int[n];
+        int[] dueDay = new int[n];
+        int[] returnDay = new int[n];
+        for (int i = 0; i < n; i++) {
+            Loan loan = sorted[i];
+            book[i] = bookIndex.computeIfAbsent(loan.getIsbn(), k -> bookIndex.size());
+            user[i] = userIndex.computeIfAbsent(loan.getUserId(), k -> userIndex.size());
+            loanDay[i] = (int) loan.getLoanDate().toEpochDay();
+            loanMonth[i] = epochMonth(loanDay[i]);
+            dueDay[i] = (int) loan.getDueDate().toEpochDay();
+            returnDay[i] = loan.isReturned() ? (int) loan.getReturnDate().toEpochDay() : NOT_RETURNED;
+        }
+
+        String[] isbns = new String[bookIndex.size()];
+        bookIndex.forEach((isbn, idx) -> isbns[idx] = isbn);
+        String[] userIds = new String[userIndex.size()];
+        userIndex.forEach((id, idx) -> userIds[idx] = id);
+
+        int[] authorOfBook = new int[isbns.length];
+        for (int b = 0; b < isbns.length; b++) {
+            String author = authorByIsbn.getOrDefault(isbns[b], "Inconnu");
+            authorOfBook[b] = authorIndex.computeIfAbsent(author, k -> authorIndex.size());
+        }
+        String[] authors = new String[authorIndex.size()];
+        authorIndex.forEach((name, idx) -> authors[idx] = name);
+
+        // Les emprunts étant triés, la première occurrence d'un utilisateur est son premier emprunt
+        int[] firstLoanMonth = new int[userIds.length];
+        Arrays.fill(firstLoanMonth, Integer.MIN_VALUE);
+        for (int i = 0; i < n; i++) {
+            if (firstLoanMonth[user[i]] == Integer.MIN_VALUE) {
+                firstLoanMonth[user[i]] = loanMonth[i];
+            }
+        }
+
+        return new LoanSnapshot(isbns, userIds, authors, authorOfBook, firstLoanMonth,
+                book, user, loanDay, loanMonth, dueDay, returnDay);
+    }
+
+    /**
+     * Mois epoch (nombre de mois depuis janvier 1970) d'un jour epoch
+     */
+    public static int epochMonth(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Premier indice dont la date d'emprunt est >= day (recherche dichotomique)
+     */
+    public int lowerBound(int day) {
+        int lo = 0;
+        int hi = loanDay.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (loanDay[mid] < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public int size() { return loanDay.length; }
+    public int bookCount() { return isbns.length; }
+    public int userCount() { return userIds.length; }
+    public int authorCount() { return authors.length; }
+
+    public String isbn(int bookIdx) { return isbns[bookIdx]; }
+    public String userId(int userIdx) { return userIds[userIdx]; }
+    public String author(int authorIdx) { return authors[authorIdx]; }
+    public int authorOfBook(int bookIdx) { return authorOfBook[bookIdx]; }
+    public int firstLoanMonth(int userIdx) { return firstLoanMonth[userIdx]; }
+
+    public int book(int i) { return book[i]; }
+    public int user(int i) { return user[i]; }
+    public int loanDay(int i) { return loanDay[i]; }
+    public int loanMonth(int i) { return loanMonth[i]; }
+    public int dueDay(int i) { return dueDay[i]; }
+    public int returnDay(int i) { return returnDay[i]; }
+}
@@ -0,0 +1,223 @@
+package util;
+
+import model.Book;
+import model.Loan;
+import model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Stockage partitionné (shards) des livres, utilisateurs et emprunts
+ *
+ * Pourquoi : Avec un seul DataStore, toutes les requêtes de toutes les agences
+ * parcourent les trois mêmes listes. Ici chaque shard a ses propres index et son
+ * propre verrou : une opération sur une clé ne touche qu'un shard, et les requêtes
+ * transverses (recherche dans tout le catalogue) interrogent les shards en parallèle
+ * puis fusionnent les résultats (scatter-gather).
+ *
+ * Routage :
+ *   - livres par hachage de l'ISBN
+ *   - utilisateurs et leurs emprunts par hachage de l'ID utilisateur
+ *     (les emprunts d'un lecteur sont dans le même shard que lui)
+ *   - un répertoire global loanId → shard permet de retrouver un emprunt par son ID
+ */
+public class ShardedDataStore {
+
+    private final Shard[] shards;
+    private final Map<String, Shard> loanDirectory = new ConcurrentHashMap<>();
+
+    public ShardedDataStore(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Le nombre de shards doit être positif : " + shardCount);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Répartit le contenu du DataStore (données de test ou instantané) dans les shards
+     */
+    public static ShardedDataStore of(DataStore store, int shardCount) {
+        ShardedDataStore sharded = new ShardedDataStore(shardCount);
+        for (Book book : store.getBooks()) {
+            sharded.bookShard(book.getIsbn()).books.put(book.getIsbn(), book);
+        }
+        for (User user : store.getUsers()) {
+            sharded.userShard(user.getUserId()).users.put(user.getUserId(), user);
+        }
+        for (Loan loan : store.getLoans()) {
+            sharded.userShard(loan.getUserId()).indexLoan(loan);
+            sharded.loanDirectory.put(loan.getLoanId(), sharded.userShard(loan.getUserId()));
+        }
+        return sharded;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Shard bookShard(String isbn) {
+        return shards[route(isbn)];
+    }
+
+    public Shard userShard(String userId) {
+        return shards[route(userId)];
+    }
+
+    /**
+     * Shard contenant l'emprunt, ou null s'il est inconnu
+     */
+    public Shard loanShard(String loanId) {
+        return loanDirectory.get(loanId);
+    }
+
+    /**
+     * Enregistre un nouvel emprunt dans le répertoire global ; faux si l'ID est déjà pris
+     */
+    public boolean registerLoan(Loan loan) {
+        return loanDirectory.putIfAbsent(loan.getLoanId(), userShard(loan.getUserId())) == null;
+    }
+
+    /**
+     * Vide tous les shards (réplica resynchronisé à partir d'un instantané du leader)
+     */
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.write(() -> {
+                shard.clear();
+                return null;
+            });
+        }
+        loanDirectory.clear();
+    }
+
+    /**
+     * Scatter-gather : exécute la requête sur chaque shard (en parallèle, sous son
+     * verrou de lecture) et concatène les résultats dans l'ordre des shards
+     */
+    public <R> List<R> gather(Function<Shard, List<R>> query) {
+        if (shards.length == 1) {
+            return shards[0].read(() -> query.apply(shards[0]));
+        }
+        List<List<R>> parts = Arrays.stream(shards)
+                .parallel()
+                .map(shard -> shard.read(() -> query.apply(shard)))
+                .toList();
+        List<R> result = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        for (List<R> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    private int route(String key) {
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    /**
+     * Une partition : index par clé + index secondaires des emprunts, protégés par un verrou
+     */
+    public static class Shard {
+        private final int index;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // Index primaires (LinkedHashMap : l'ordre d'insertion reste celui des listes d'origine)
+        private final Map<String, Book> books = new LinkedHashMap<>();
+        private final Map<String, User> users = new LinkedHashMap<>();
+        private final Map<String, Loan> loans = new LinkedHashMap<>();
+
+        // Index secondaires des emprunts
+        private final Map<String, List<Loan>> loansByUser = new LinkedHashMap<>();
+        private final Map<String, List<Loan>> loansByIsbn = new LinkedHashMap<>();
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Map<String, Book> books() { return books; }
+        public Map<String, User> users() { return users; }
+        public Map<String, Loan> loans() { return loans; }
+
+        public List<Loan> loansOfUser(String userId) {
+            return loansByUser.getOrDefault(userId, List.of());
+        }
+
+        public List<Loan> loansOfBook(String isbn) {
+            return loansByIsbn.getOrDefault(isbn, List.of());
+        }
+
+        /**
+         * Ajoute ou remplace un emprunt dans les index du shard
+         */
+        public void indexLoan(Loan loan) {
+            Loan previous = loans.put(loan.getLoanId(), loan);
+            if (previous == null) {
+                loansByUser.computeIfAbsent(loan.getUserId(), k -> new ArrayList<>()).add(loan);
+                loansByIsbn.computeIfAbsent(loan.getIsbn(), k -> new ArrayList<>()).add(loan);
+                return;
+            }
+            reindex(loansByUser, previous.getUserId(), loan.getUserId(), previous, loan);
+            reindex(loansByIsbn, previous.getIsbn(), loan.getIsbn(), previous, loan);
+        }
+
+        /**
+         * Remplace previous par loan dans l'index, en le déplaçant si sa clé a changé
+         */
+        private static void reindex(Map<String, List<Loan>> index, String previousKey, String key,
+                                    Loan previous, Loan loan) {
+            List<Loan> list = index.get(previousKey);
+            int position = list.indexOf(previous);
+            if (previousKey.equals(key)) {
+                list.set(position, loan);
+                return;
+            }
+            list.remove(position);
+            if (list.isEmpty()) {
+                index.remove(previousKey);
+            }
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(loan);
+        }
+
+        private void clear() {
+            books.clear();
+            users.clear();
+            loans.clear();
+            loansByUser.clear();
+            loansByIsbn.clear();
+        }
+
+        public <T> T read(Supplier<T> action) {
+            lock.readLock().lock();
+            try {
+                return action.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        public <T> T write(Supplier<T> action) {
+            lock.writeLock().lock();
+            try {
+                return action.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
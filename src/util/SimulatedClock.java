@@ -0,0 +1,54 @@
+package util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Horloge pilotée à la main : le temps n'avance que lorsqu'on le demande
+ * (rejeu de charge, simulation). Ne recule jamais.
+ */
+public final class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    public SimulatedClock(Instant start, ZoneId zone) {
+        this.millis = start.toEpochMilli();
+        this.zone = zone;
+    }
+
+    /**
+     * Avance jusqu'à l'instant donné (sans effet s'il est déjà passé)
+     */
+    public synchronized void advanceTo(long epochMillis) {
+        if (epochMillis > millis) {
+            millis = epochMillis;
+        }
+    }
+
+    public synchronized void advance(Duration duration) {
+        advanceTo(millis + duration.toMillis());
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return Clock.fixed(instant(), zone);
+    }
+}
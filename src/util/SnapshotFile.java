@@ -0,0 +1,260 @@
+package util;
+
+import model.Book;
+import model.Loan;
+import model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instantané binaire du DataStore (livres, utilisateurs, emprunts)
+ *
+ * Pourquoi : Rejouer les Builders de données de test (ou relire un gros jeu de
+ * données) à chaque lancement ralentit le démarrage. L'instantané est écrit une
+ * fois, puis projeté en mémoire (mmap) et décodé séquentiellement au démarrage.
+ * Un mapping est limité à 2 Go : le fichier est projeté par fenêtres de 256 Mo,
+ * la suivante étant ouverte là où le décodage s'est arrêté.
+ *
+ * Format : en-tête "BIBS" + version, puis trois sections (livres, utilisateurs,
+ * emprunts) préfixées par leur nombre d'éléments. Chaînes = longueur UTF-8 + octets
+ * (-1 pour null), dates = jour epoch.
+ *
+ * Générer un gros jeu de données de test :
+ *   java -cp out util.SnapshotFile generate seed.bin 1000000 200000
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x42494253; // "BIBS"
+    private static final int VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Écrit le contenu du DataStore dans un fichier
+     */
+    public static void write(DataStore store, Path path) throws IOException {
+        write(store.getBooks(), store.getUsers(), store.getLoans(), path);
+    }
+
+    public static void write(List<Book> books, List<User> users, List<Loan> loans, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 18))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(books.size());
+            for (Book book : books) {
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                writeString(out, book.getAuthor());
+                writeString(out, book.getPublisher());
+                out.writeInt(book.getYear());
+                out.writeBoolean(book.isAvailable());
+            }
+
+            out.writeInt(users.size());
+            for (User user : users) {
+                writeString(out, user.getUserId());
+                writeString(out, user.getFirstName());
+                writeString(out, user.getLastName());
+                writeString(out, user.getEmail());
+                writeString(out, user.getPassword());
+                out.writeBoolean(user.isAdmin());
+            }
+
+            out.writeInt(loans.size());
+            for (Loan loan : loans) {
+                writeString(out, loan.getLoanId());
+                writeString(out, loan.getUserId());
+                writeString(out, loan.getIsbn());
+                out.writeLong(loan.getLoanDate().toEpochDay());
+                out.writeLong(loan.getDueDate().toEpochDay());
+                out.writeLong(loan.isReturned() ? loan.getReturnDate().toEpochDay() : NO_DATE);
+            }
+        }
+    }
+
+    /**
+     * Lit un instantané et ajoute son contenu aux listes fournies
+     */
+    public static void read(Path path, List<Book> books, List<User> users, List<Loan> loans) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput in = new MappedInput(channel, path);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Format d'instantané inconnu : " + path);
+            }
+            byte[] scratch = new byte[256];
+
+            int bookCount = in.getInt();
+            ensureCapacity(books, bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                books.add(new Book.Builder()
+                        .isbn(readString(in, scratch))
+                        .title(readString(in, scratch))
+                        .author(readString(in, scratch))
+                        .publisher(readString(in, scratch))
+                        .year(in.getInt())
+                        .available(in.get() != 0)
+                        .build());
+            }
+
+            int userCount = in.getInt();
+            ensureCapacity(users, userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(new User(readString(in, scratch), readString(in, scratch), readString(in, scratch),
+                        readString(in, scratch), readString(in, scratch), in.get() != 0));
+            }
+
+            int loanCount = in.getInt();
+            ensureCapacity(loans, loanCount);
+            for (int i = 0; i < loanCount; i++) {
+                Loan loan = new Loan(readString(in, scratch), readString(in, scratch), readString(in, scratch),
+                        LocalDate.ofEpochDay(in.getLong()), LocalDate.ofEpochDay(in.getLong()));
+                long returned = in.getLong();
+                if (returned != NO_DATE) {
+                    loan.setReturnDate(LocalDate.ofEpochDay(returned));
+                }
+                loans.add(loan);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedInput in, byte[] scratch) throws IOException {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] buffer = length <= scratch.length ? scratch : new byte[length];
+        in.get(buffer, 0, length);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lecture séquentielle d'un fichier projeté par fenêtres successives
+     */
+    private static final class MappedInput {
+
+        private static final long REGION = 1L << 28; // 256 Mo
+
+        private final FileChannel channel;
+        private final Path path;
+        private final long size;
+        private long base;               // Position de la fenêtre courante dans le fichier
+        private MappedByteBuffer buffer;
+
+        MappedInput(FileChannel channel, Path path) throws IOException {
+            this.channel = channel;
+            this.path = path;
+            this.size = channel.size();
+            map(0);
+        }
+
+        int getInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            require(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        byte get() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        void get(byte[] target, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    require(1);
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.get(target, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /**
+         * Ouvre la fenêtre suivante si la courante n'a plus bytes octets
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            long position = base + buffer.position();
+            if (size - position < bytes) {
+                throw new EOFException("Instantané tronqué : " + path);
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            base = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION, size - position));
+        }
+    }
+
+    private static <T> void ensureCapacity(List<T> list, int additional) {
+        if (list instanceof ArrayList) {
+            ((ArrayList<T>) list).ensureCapacity(list.size() + additional);
+        }
+    }
+
+    /**
+     * Génère un instantané synthétique pour mesurer le démarrage sur un gros jeu de données
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4 || !args[0].equals("generate")) {
+            System.err.println("Usage : java util.SnapshotFile generate <fichier> <livres> <utilisateurs>");
+            return;
+        }
+        int bookCount = Integer.parseInt(args[2]);
+        int userCount = Integer.parseInt(args[3]);
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(new Book.Builder()
+                    .isbn(String.format("978-%09d", i))
+                    .title("Titre " + i)
+                    .author("Auteur " + (i % 5000))
+                    .publisher("Éditeur " + (i % 200))
+                    .year(1900 + i % 125)
+                    .build());
+        }
+        List<User> users = new ArrayList<>(userCount);
+        users.add(new User("admin", "Admin", "Bibliothèque", "admin@biblio.com", "admin123", true));
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User("U" + i, "Prénom" + i, "Nom" + i, "u" + i + "@email.com", "password", false));
+        }
+
+        long start = System.nanoTime();
+        write(books, users, new ArrayList<>(), Path.of(args[1]));
+        System.out.printf("Instantané %s écrit en %.1f ms%n", args[1], (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,92 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mesure du démarrage de App : délai avant la première commande acceptée
+ *
+ * Pourquoi : L'objectif de démarrage porte sur le temps avant de pouvoir exécuter
+ * une commande, données chargées, pas sur l'affichage du menu. Chaque essai lance
+ * une JVM neuve avec -Dbiblio.startupTiming=true, envoie "9" (Quitter) sur son
+ * entrée standard et relève les deux mesures affichées par App (menu, première
+ * commande) ainsi que la durée totale du processus vue de l'extérieur.
+ *
+ * Usage : java -cp out util.StartupBenchmark [essais] [options JVM de App...]
+ *   ex. java -cp out util.StartupBenchmark 10 -Dbiblio.snapshot=seed.bin -XX:SharedArchiveFile=app.jsa
+ */
+public final class StartupBenchmark {
+
+    // Sans les accents : l'encodage de la sortie d'erreur dépend de la locale du processus lancé
+    private static final Pattern TIMING = Pattern.compile("Menu affich.+ en (\\d+) ms, premi.+ en (\\d+) ms");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        List<String> jvmOptions = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of();
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        List<Long> menu = new ArrayList<>();
+        List<Long> firstCommand = new ArrayList<>();
+        List<Long> process = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-Dbiblio.startupTiming=true");
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("App");
+
+            long start = System.nanoTime();
+            Process app = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try (OutputStream in = app.getOutputStream()) {
+                in.write("9\n".getBytes(StandardCharsets.UTF_8));
+            }
+            Matcher timing = null;
+            try (BufferedReader err = new BufferedReader(
+                    new InputStreamReader(app.getErrorStream(), StandardCharsets.UTF_8))) {
+                for (String line = err.readLine(); line != null; line = err.readLine()) {
+                    Matcher matcher = TIMING.matcher(line);
+                    if (matcher.find()) {
+                        timing = matcher;
+                    }
+                }
+            }
+            int exit = app.waitFor();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            if (exit != 0 || timing == null) {
+                throw new IllegalStateException("Essai " + (run + 1) + " : App a échoué (code " + exit + ")");
+            }
+            menu.add(Long.parseLong(timing.group(1)));
+            firstCommand.add(Long.parseLong(timing.group(2)));
+            process.add(elapsed);
+        }
+
+        System.out.printf("Démarrage de App sur %d essais %s%n", runs, jvmOptions);
+        print("menu affiché", menu);
+        print("première commande acceptée", firstCommand);
+        print("processus complet (lancement → sortie)", process);
+    }
+
+    private static void print(String label, List<Long> millis) {
+        List<Long> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        System.out.printf("  %-40s min %5d ms   médiane %5d ms   max %5d ms%n", label,
+                sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+    }
+}
@@ -0,0 +1,147 @@
+package util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pattern : Singleton
+ * Pourquoi : Dictionnaire de chaînes canoniques partagé par tout le model.
+ * Sur un gros catalogue, auteurs et éditeurs se répètent énormément, et chaque
+ * emprunt recopie l'ID de son lecteur et l'ISBN de son livre. Chaque valeur
+ * distincte n'est gardée qu'une fois : les entités pointent toutes vers la même
+ * instance, les doublons lus depuis un fichier ou le réseau sont libérés.
+ * Lien : https://refactoring.guru/fr/design-patterns/singleton/java/example
+ *
+ * Les entrées sont faibles : une chaîne qu'aucune entité ne référence plus (livre
+ * ou lecteur supprimé, valeur lue puis abandonnée) est récupérée par le GC, puis
+ * son entrée est retirée au prochain appel. Le dictionnaire suit donc les données
+ * vivantes au lieu de grossir sans fin. -Dbiblio.intern=false désactive le
+ * dictionnaire, pour comparer l'empreinte mémoire (voir StringFootprintBenchmark).
+ */
+public final class StringDictionary {
+
+    private static final boolean ENABLED = !"false".equals(System.getProperty("biblio.intern"));
+
+    private static class Holder {
+        private static final StringDictionary INSTANCE = new StringDictionary();
+    }
+
+    // Clés : Entry (enregistrée) ou Lookup (recherche, sans référence faible à allouer)
+    private final ConcurrentHashMap<Object, Entry> canonical = new ConcurrentHashMap<>(1 << 12);
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+
+    private StringDictionary() {
+    }
+
+    public static StringDictionary getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Raccourci pour StringDictionary.getInstance().canonical(value)
+     */
+    public static String intern(String value) {
+        return ENABLED ? getInstance().canonical(value) : value;
+    }
+
+    /**
+     * Instance canonique égale à value (value elle-même si elle est nouvelle ; null reste null)
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        expungeCollected();
+        Entry existing = canonical.get(new Lookup(value)); // Cas courant : lecture sans verrou
+        String found = existing == null ? null : existing.get();
+        if (found != null) {
+            return found;
+        }
+        Entry created = new Entry(value, collected);
+        while (true) {
+            existing = canonical.putIfAbsent(created, created);
+            if (existing == null) {
+                return value;
+            }
+            found = existing.get();
+            if (found != null) {
+                return found;
+            }
+            // Entrée récupérée par le GC mais pas encore retirée : on la remplace
+            canonical.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Nombre de valeurs distinctes encore référencées
+     */
+    public int size() {
+        expungeCollected();
+        return canonical.size();
+    }
+
+    private void expungeCollected() {
+        Reference<? extends String> reference;
+        while ((reference = collected.poll()) != null) {
+            canonical.remove(reference, reference);
+        }
+    }
+
+    /**
+     * Entrée du dictionnaire : référence faible vers la chaîne canonique, dont le
+     * hash est gardé pour pouvoir la retirer une fois la chaîne récupérée
+     */
+    private static final class Entry extends WeakReference<String> {
+
+        private final int hash;
+
+        Entry(String value, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            String value = get();
+            if (value == null) {
+                return false;
+            }
+            if (other instanceof Entry entry) {
+                return value.equals(entry.get());
+            }
+            return other instanceof Lookup lookup && value.equals(lookup.value);
+        }
+    }
+
+    /**
+     * Clé de recherche (chaîne forte)
+     */
+    private static final class Lookup {
+
+        private final String value;
+
+        Lookup(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && value.equals(entry.get());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package util;
+
+import model.Book;
+import model.Loan;
+import model.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Empreinte mémoire d'un catalogue avec et sans StringDictionary
+ *
+ * Construit livres, lecteurs et emprunts à partir de chaînes fraîchement
+ * allouées (comme une lecture de fichier ou de requête), puis mesure le tas
+ * occupé après GC. Chaque mesure tourne dans sa propre JVM
+ * (-Dbiblio.intern=false puis true) pour ne pas se polluer.
+ *
+ * Usage : java -Xmx4g -cp out util.StringFootprintBenchmark [livres] [lecteurs] [emprunts]
+ */
+public class StringFootprintBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int loans = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        if (args.length > 3 && args[3].equals("measure")) {
+            System.out.println(measure(books, users, loans));
+            return;
+        }
+
+        System.out.printf("Catalogue : %,d livres, %,d lecteurs, %,d emprunts%n", books, users, loans);
+        long without = runChild(false, books, users, loans);
+        long with = runChild(true, books, users, loans);
+        System.out.printf("Sans dictionnaire : %,d Mo%n", without >> 20);
+        System.out.printf("Avec dictionnaire : %,d Mo%n", with >> 20);
+        System.out.printf("Économie          : %,d Mo (%.0f %%)%n", (without - with) >> 20,
+                100.0 * (without - with) / without);
+    }
+
+    /**
+     * Relance cette classe dans une JVM séparée et renvoie le tas mesuré (octets)
+     */
+    private static long runChild(boolean intern, int books, int users, int loans)
+            throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java, "-Dbiblio.intern=" + intern));
+        command.addAll(ProcessHandle.current().info().arguments().map(arguments -> {
+            List<String> options = new ArrayList<>();
+            for (String argument : arguments) {
+                if (argument.startsWith("-X")) {
+                    options.add(argument); // Reprend -Xmx & co
+                }
+            }
+            return options;
+        }).orElse(List.of()));
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), StringFootprintBenchmark.class.getName(),
+                Integer.toString(books), Integer.toString(users), Integer.toString(loans), "measure"));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String last = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                last = line;
+            }
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException("La mesure a échoué : " + last);
+        }
+        return Long.parseLong(last.trim());
+    }
+
+    private static long measure(int bookCount, int userCount, int loanCount) {
+        long baseline = usedHeap();
+        LocalDate today = LocalDate.now();
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(new Book.Builder()
+                    .isbn(fresh("978-" + i))
+                    .title("Titre " + i)
+                    .author(fresh("Auteur " + (i % 5000)))
+                    .publisher(fresh("Éditeur " + (i % 200)))
+                    .year(1900 + i % 125)
+                    .build());
+        }
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User(fresh("U" + i), "Prénom" + i, "Nom" + i, "u" + i + "@email.com", "password", false));
+        }
+        List<Loan> loans = new ArrayList<>(loanCount);
+        for (int i = 0; i < loanCount; i++) {
+            // Les clés étrangères arrivent comme de nouvelles chaînes (fichier, requête HTTP...)
+            loans.add(new Loan("L" + i, fresh("U" + (i % userCount)), fresh("978-" + (i % bookCount)),
+                    today, today.plusDays(14)));
+        }
+
+        long used = usedHeap() - baseline;
+        // Garde les listes vivantes jusqu'à la mesure
+        Reference.reachabilityFence(books);
+        Reference.reachabilityFence(users);
+        Reference.reachabilityFence(loans);
+        return used;
+    }
+
+    private static String fresh(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,200 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roue temporelle hiérarchique (hierarchical timing wheel)
+ *
+ * Pourquoi : Des dizaines de millions d'échéances en attente (rappels de retour)
+ * ne tiennent pas dans un tas : chaque ajout/annulation y coûte O(log n) et
+ * l'annulation d'un élément quelconque O(n). Ici, programmer et annuler coûtent O(1).
+ *
+ * Fonctionnement :
+ *   - le temps est découpé en ticks ; chaque niveau est une roue de 64 cases,
+ *     une case du niveau L couvrant 64^L ticks ;
+ *   - une échéance est rangée au niveau du chiffre (en base 64) le plus élevé où
+ *     son tick diffère du tick courant, dans la case de ce chiffre ;
+ *   - quand le tick courant entre dans une case d'un niveau supérieur, les
+ *     échéances de cette case redescendent d'un cran (cascade) ; au niveau 0,
+ *     la case du tick courant contient exactement les échéances arrivées à terme ;
+ *   - chaque case est une liste doublement chaînée : annuler revient à décrocher
+ *     le maillon.
+ * Non thread-safe seul : les méthodes sont synchronisées sur la roue.
+ */
+public class TimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    private final long tickMillis;
+    private final Timer<T>[][] wheels;   // [niveau][case] → sentinelle de liste circulaire
+    private final Timer<T> expired = new Timer<>(this, 0, null); // Échéances déjà passées à l'ajout
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis résolution de la roue (précision des échéances)
+     * @param startMillis instant de départ (les échéances antérieures expirent au prochain advance)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("La durée d'un tick doit être positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new Timer[LEVELS][];
+        expired.prev = expired;
+        expired.next = expired;
+    }
+
+    /**
+     * Programme une échéance ; le Timer renvoyé permet de l'annuler en O(1)
+     */
+    public synchronized Timer<T> schedule(long deadlineMillis, T payload) {
+        Timer<T> timer = new Timer<>(this, deadlineMillis / tickMillis, payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à nowMillis et renvoie les échéances arrivées à terme,
+     * dans l'ordre chronologique (à la précision d'un tick)
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        drain(expired, due);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target; // Rien en attente : inutile de parcourir les ticks
+                break;
+            }
+            currentTick++;
+            // Cascade : du plus haut niveau dont une case commence à ce tick, vers le bas
+            int level = 0;
+            while (level + 1 < LEVELS && (currentTick & ((1L << (WHEEL_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            for (; level > 0; level--) {
+                Timer<T> bucket = bucket(level, slot(currentTick, level));
+                Timer<T> timer = bucket.next;
+                bucket.next = bucket;
+                bucket.prev = bucket;
+                while (timer != bucket) {
+                    Timer<T> next = timer.next;
+                    place(timer);
+                    timer = next;
+                }
+            }
+            drain(expired, due); // Échéances du tick courant redescendues par la cascade
+            drain(bucket(0, slot(currentTick, 0)), due);
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized boolean cancel(Timer<T> timer) {
+        if (timer.next == null) {
+            return false; // Déjà expirée ou annulée
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // ==================== CASES ====================
+
+    private void place(Timer<T> timer) {
+        Timer<T> bucket;
+        if (timer.tick <= currentTick) {
+            bucket = expired;
+        } else {
+            int level = (63 - Long.numberOfLeadingZeros(timer.tick ^ currentTick)) / WHEEL_BITS;
+            bucket = bucket(level, slot(timer.tick, level));
+        }
+        timer.prev = bucket.prev;
+        timer.next = bucket;
+        bucket.prev.next = timer;
+        bucket.prev = timer;
+    }
+
+    private void drain(Timer<T> bucket, List<T> due) {
+        Timer<T> timer = bucket.next;
+        while (timer != bucket) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            due.add(timer.payload);
+            size--;
+            timer = next;
+        }
+        bucket.next = bucket;
+        bucket.prev = bucket;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+    }
+
+    /**
+     * Sentinelle de la case (les niveaux sont alloués au premier usage)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Timer<T> bucket(int level, int slot) {
+        Timer<T>[] wheel = wheels[level];
+        if (wheel == null) {
+            wheel = new Timer[WHEEL_SIZE];
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                Timer<T> sentinel = new Timer<>(this, 0, null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[i] = sentinel;
+            }
+            wheels[level] = wheel;
+        }
+        return wheel[slot];
+    }
+
+    /**
+     * Échéance programmée (maillon de la liste de sa case)
+     */
+    public static final class Timer<T> {
+        private final TimingWheel<T> wheel;
+        private final long tick;
+        private final T payload;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(TimingWheel<T> wheel, long tick, T payload) {
+            this.wheel = wheel;
+            this.tick = tick;
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Annule l'échéance ; faux si elle a déjà expiré ou été annulée
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+}
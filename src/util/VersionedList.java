@@ -0,0 +1,345 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Liste multi-versions (MVCC) : les écrivains publient une nouvelle version
+ * immuable, les lecteurs travaillent sur une photographie sans verrou
+ *
+ * Pourquoi : Avec une ArrayList partagée, un rapport qui parcourt les emprunts
+ * pendant que les guichets enregistrent des prêts lève une
+ * ConcurrentModificationException, ou voit une mise à jour à moitié appliquée
+ * (supprimée mais pas encore réinsérée). Ici snapshot() renvoie une version
+ * figée en O(1) ; elle reste valide et cohérente aussi longtemps qu'on la garde.
+ *
+ * Les éléments sont rangés par blocs de CHUNK_SIZE. Une écriture recopie
+ * seulement le bloc modifié et la table des blocs ; un ajout en fin de liste
+ * écrit dans une case que les versions précédentes ne voient pas (au-delà de
+ * leur taille), donc sans copie la plupart du temps. Les écritures sont
+ * sérialisées entre elles (synchronized), les lectures ne prennent aucun verrou.
+ *
+ * Les méthodes de lecture de la liste elle-même (get, size, iterator, stream...)
+ * lisent la version courante ; pour plusieurs lectures cohérentes entre elles,
+ * prendre une photographie avec snapshot().
+ *
+ * Des index secondaires (query.IndexedTable) peuvent suivre les écritures via
+ * addListener : ils sont prévenus dans l'ordre des écritures, sous leur verrou.
+ */
+public class VersionedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Snapshot<T> current = new Snapshot<>(new Object[0][], 0, 0);
+    private final List<ChangeListener<T>> listeners = new ArrayList<>(); // Modifiée sous le verrou d'écriture
+
+    public VersionedList() {
+    }
+
+    public VersionedList(Collection<? extends T> initial) {
+        publish(new ArrayList<>(initial), 0);
+    }
+
+    /**
+     * Version courante, figée : ni verrou ni copie
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    /**
+     * Abonne un index aux écritures ; il reçoit d'abord les éléments déjà présents
+     */
+    public synchronized void addListener(ChangeListener<T> listener) {
+        for (T element : current) {
+            listener.onChange(null, element);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Numéro de la version courante (incrémenté à chaque écriture)
+     */
+    public long getVersion() {
+        return current.version;
+    }
+
+    // ==================== LECTURES (version courante) ====================
+
+    @Override
+    public T get(int index) {
+        return current.get(index);
+    }
+
+    @Override
+    public int size() {
+        return current.size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return current.iterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return current.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        current.forEach(action);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return current.toArray();
+    }
+
+    // ==================== ÉCRITURES (nouvelle version) ====================
+
+    @Override
+    public synchronized boolean add(T element) {
+        Snapshot<T> base = current;
+        Object[][] chunks = base.chunks;
+        int size = base.size;
+        int chunk = size >>> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            // Table des blocs pleine : on l'agrandit (les anciens blocs sont partagés)
+            Object[][] grown = new Object[Math.max(4, chunks.length * 2)][];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            chunks = grown;
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Object[CHUNK_SIZE];
+        }
+        // Case au-delà de la taille des versions précédentes : invisible pour elles
+        chunks[chunk][size & CHUNK_MASK] = element;
+        current = new Snapshot<>(chunks, size + 1, base.version + 1);
+        fireChange(null, element);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends T> elements) {
+        for (T element : elements) {
+            add(element);
+        }
+        return !elements.isEmpty();
+    }
+
+    /**
+     * Remplace un élément en une seule version : aucun lecteur ne peut voir
+     * l'ancien retiré sans le nouveau
+     */
+    @Override
+    public synchronized T set(int index, T element) {
+        Snapshot<T> base = current;
+        T previous = base.get(index);
+        Object[][] chunks = base.chunks.clone();
+        int chunk = index >>> CHUNK_SHIFT;
+        chunks[chunk] = chunks[chunk].clone();
+        chunks[chunk][index & CHUNK_MASK] = element;
+        current = new Snapshot<>(chunks, base.size, base.version + 1);
+        fireChange(previous, element);
+        return previous;
+    }
+
+    /**
+     * Remplace l'élément previous (comparé par identité) par element ; faux s'il a disparu
+     */
+    public synchronized boolean replace(T previous, T element) {
+        Snapshot<T> base = current;
+        for (int i = 0; i < base.size; i++) {
+            if (base.get(i) == previous) {
+                set(i, element);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comme replace, en regardant d'abord à la position connue de previous (O(1)) ;
+     * si un retrait l'a décalé, retombe sur la recherche par identité
+     */
+    public synchronized boolean replaceAt(int index, T previous, T element) {
+        Snapshot<T> base = current;
+        if (index >= 0 && index < base.size && base.get(index) == previous) {
+            set(index, element);
+            return true;
+        }
+        return replace(previous, element);
+    }
+
+    @Override
+    public synchronized T remove(int index) {
+        Snapshot<T> base = current;
+        T previous = base.get(index);
+        removeIf(new Predicate<>() {
+            private int position;
+
+            @Override
+            public boolean test(T element) {
+                return position++ == index;
+            }
+        });
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean remove(Object element) {
+        int index = current.indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Reconstruit une version sans les éléments retirés (O(n), opération rare)
+     */
+    @Override
+    public synchronized boolean removeIf(Predicate<? super T> filter) {
+        Snapshot<T> base = current;
+        List<T> kept = new ArrayList<>(base.size);
+        List<T> removed = new ArrayList<>();
+        for (int i = 0; i < base.size; i++) {
+            T element = base.get(i);
+            if (!filter.test(element)) {
+                kept.add(element);
+            } else {
+                removed.add(element);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        publish(kept, base.version + 1);
+        for (T element : removed) {
+            fireChange(element, null);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void add(int index, T element) {
+        if (index == current.size) {
+            add(element);
+            return;
+        }
+        List<T> copy = new ArrayList<>(current);
+        copy.add(index, element);
+        publish(copy, current.version + 1);
+        fireChange(null, element);
+    }
+
+    @Override
+    public synchronized void clear() {
+        Snapshot<T> base = current;
+        current = new Snapshot<>(new Object[0][], 0, base.version + 1);
+        for (T element : base) {
+            fireChange(element, null);
+        }
+    }
+
+    private void fireChange(T removed, T added) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onChange(removed, added);
+        }
+    }
+
+    private void publish(List<T> elements, long version) {
+        int chunkCount = (elements.size() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        Object[][] chunks = new Object[Math.max(4, chunkCount)][];
+        for (int i = 0; i < elements.size(); i++) {
+            int chunk = i >>> CHUNK_SHIFT;
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new Object[CHUNK_SIZE];
+            }
+            chunks[chunk][i & CHUNK_MASK] = elements.get(i);
+        }
+        current = new Snapshot<>(chunks, elements.size(), version);
+    }
+
+    /**
+     * Suivi des écritures : (null, ajouté), (remplacé, nouveau) ou (retiré, null)
+     */
+    @FunctionalInterface
+    public interface ChangeListener<T> {
+        void onChange(T removed, T added);
+    }
+
+    /**
+     * Une version figée de la liste (lecture seule, itération sans verrou)
+     */
+    public static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+        private final long version;
+
+        private Snapshot(Object[][] chunks, int size, long version) {
+            this.chunks = chunks;
+            this.size = size;
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " hors limites (taille " + size + ")");
+            }
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < size;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (position >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    T element = (T) chunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK];
+                    position++;
+                    return element;
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED);
+        }
+    }
+}
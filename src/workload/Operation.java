@@ -0,0 +1,47 @@
+package workload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Une opération de service enregistrée : instant (horloge de l'application),
+ * type et arguments
+ */
+public record Operation(long timestamp, Type type, List<String> arguments) {
+
+    public Operation {
+        if (arguments.size() != type.arity) {
+            throw new IllegalArgumentException(type + " attend " + type.arity + " argument(s), reçu "
+                    + arguments.size());
+        }
+        arguments = Collections.unmodifiableList(new ArrayList<>(arguments)); // null permis (éditeur absent)
+    }
+
+    public String argument(int index) {
+        return arguments.get(index);
+    }
+
+    /**
+     * Opérations enregistrées (les mots de passe ne le sont jamais)
+     */
+    public enum Type {
+        REGISTER(4),        // userId, prénom, nom, email
+        LOGIN(1),           // userId
+        ADD_BOOK(5),        // isbn, titre, auteur, éditeur, année
+        BORROW(2),          // userId, isbn
+        RETURN(1),          // loanId
+        RETURN_BY_ISBN(1),  // isbn
+        RENEW(1),           // loanId
+        SEARCH_TITLE(1),    // mot-clé
+        SEARCH_AUTHOR(1),   // auteur
+        AVAILABLE_BOOKS(0),
+        MY_LOANS(1);        // userId
+
+        private final int arity;
+
+        Type(int arity) {
+            this.arity = arity;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package workload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format texte d'une charge enregistrée : une opération par ligne,
+ * "instant TAB TYPE TAB argument...", tabulations, retours à la ligne et
+ * antislash échappés. Les lignes commençant par # sont des commentaires.
+ */
+public final class WorkloadFile {
+
+    static final String HEADER = "# biblio-workload v1";
+
+    private WorkloadFile() {
+    }
+
+    public static List<Operation> read(Path path) throws IOException {
+        List<Operation> operations = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    operations.add(parse(line));
+                } catch (RuntimeException e) {
+                    throw new IOException(path + ":" + number + " : ligne invalide (" + e.getMessage() + ")", e);
+                }
+            }
+        }
+        return operations;
+    }
+
+    public static void write(Path path, List<Operation> operations) throws IOException {
+        List<String> lines = new ArrayList<>(operations.size() + 1);
+        lines.add(HEADER);
+        for (Operation operation : operations) {
+            lines.add(format(operation));
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    static String format(Operation operation) {
+        StringBuilder line = new StringBuilder(64);
+        line.append(operation.timestamp()).append('\t').append(operation.type().name());
+        for (String argument : operation.arguments()) {
+            line.append('\t');
+            escape(argument, line);
+        }
+        return line.toString();
+    }
+
+    static Operation parse(String line) {
+        String[] fields = line.split("\t", -1);
+        List<String> arguments = new ArrayList<>(fields.length - 2);
+        for (int i = 2; i < fields.length; i++) {
+            arguments.add(unescape(fields[i]));
+        }
+        return new Operation(Long.parseLong(fields[0]), Operation.Type.valueOf(fields[1]), arguments);
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("\\0");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\\' -> out.append("\\\\");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\0")) {
+            return null;
+        }
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
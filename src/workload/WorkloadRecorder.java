@@ -0,0 +1,105 @@
+package workload;
+
+import util.LibraryClock;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Pattern : Singleton
+ * Enregistreur des opérations de service (inscriptions, emprunts, retours,
+ * recherches...) avec leur instant, pour les rejouer ensuite (WorkloadReplayer)
+ *
+ * Pourquoi : Les services ne sont pilotés qu'à la main depuis le menu ; un
+ * ralentissement vu en production ne se reproduisait pas. Lancé avec
+ * -Dbiblio.record=fichier, chaque appel de service est ajouté au fichier.
+ * Inactif (cas normal), record() se résume à la lecture d'un champ volatile.
+ * Les mots de passe ne sont jamais écrits.
+ * Lien : https://refactoring.guru/fr/design-patterns/singleton/java/example
+ */
+public final class WorkloadRecorder {
+
+    private static class Holder {
+        private static final WorkloadRecorder INSTANCE = new WorkloadRecorder();
+    }
+
+    private volatile BufferedWriter writer;   // null : enregistrement inactif
+    private Path path;
+    private long recorded;
+
+    private WorkloadRecorder() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "workload-recorder-stop"));
+    }
+
+    public static WorkloadRecorder getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Commence l'enregistrement dans path (écrase un fichier existant)
+     */
+    public synchronized void start(Path path) {
+        if (writer != null) {
+            throw new IllegalStateException("Enregistrement déjà en cours dans " + this.path);
+        }
+        try {
+            BufferedWriter opened = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            opened.write(WorkloadFile.HEADER);
+            opened.newLine();
+            this.path = path;
+            this.recorded = 0;
+            this.writer = opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir " + path, e);
+        }
+    }
+
+    /**
+     * Arrête l'enregistrement et ferme le fichier ; renvoie le nombre d'opérations écrites
+     */
+    public synchronized long stop() {
+        BufferedWriter current = writer;
+        if (current == null) {
+            return 0;
+        }
+        writer = null;
+        try {
+            current.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Fermeture de l'enregistrement " + path + " : " + e.getMessage());
+        }
+        return recorded;
+    }
+
+    public boolean isRecording() {
+        return writer != null;
+    }
+
+    public void record(Operation.Type type, String... arguments) {
+        if (writer == null) {
+            return;
+        }
+        append(new Operation(LibraryClock.getInstance().millis(), type, Arrays.asList(arguments)));
+    }
+
+    private synchronized void append(Operation operation) {
+        BufferedWriter current = writer;
+        if (current == null) {
+            return; // Arrêté entre-temps
+        }
+        try {
+            current.write(WorkloadFile.format(operation));
+            current.newLine();
+            recorded++;
+        } catch (IOException e) {
+            // L'enregistrement ne doit jamais faire échouer l'opération enregistrée
+            System.err.println("⚠️ Enregistrement interrompu (" + path + ") : " + e.getMessage());
+            stop();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package workload;
+
+import metrics.LatencyTimer;
+import metrics.MetricsRegistry;
+import service.BookService;
+import service.LoanService;
+import service.ReminderService;
+import service.ServiceContext;
+import service.UserService;
+import util.LibraryClock;
+import util.SimulatedClock;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejoue une charge enregistrée (WorkloadRecorder) contre les services
+ *
+ * Pourquoi : Reproduire hors production un ralentissement observé, et comparer
+ * deux versions de l'application sur la même charge. Le temps de l'application
+ * est une SimulatedClock installée dans LibraryClock : elle avance à l'instant
+ * enregistré de chaque opération, et les rappels arrivés à terme sont envoyés à
+ * ce moment-là. Entre deux opérations, le rejeu attend l'écart réel divisé par
+ * la vitesse (1x, Nx) ou n'attend pas du tout (max) : une année de circulation
+ * se rejoue alors en quelques secondes, avec les mêmes échéances et les mêmes
+ * retards qu'en temps réel.
+ *
+ * Le stockage est celui de ServiceContext : DataStore, -Dbiblio.shards=N ou
+ * -Dbiblio.snapshot=fichier. Les identifiants d'emprunt enregistrés ne se
+ * retrouvent que si l'état de départ est le même qu'à l'enregistrement.
+ *
+ * Usage : java -cp out workload.WorkloadReplayer <fichier> [1|N|max]
+ *         [--report rapport] [--compare rapport-précédent]
+ */
+public class WorkloadReplayer {
+
+    // Les mots de passe ne sont pas enregistrés : comptes rejoués avec un mot de passe fictif
+    private static final String REPLAY_PASSWORD = "replay";
+
+    private final ServiceContext services;
+    private final SimulatedClock clock;
+
+    public WorkloadReplayer(ServiceContext services, SimulatedClock clock) {
+        this.services = services;
+        this.clock = clock;
+    }
+
+    /**
+     * Rejoue les opérations dans l'ordre ; speed <= 0 : sans attente
+     */
+    public Report replay(List<Operation> operations, double speed) throws InterruptedException {
+        BookService books = services.getBookService();
+        UserService users = services.getUserService();
+        LoanService loans = services.getLoanService();
+        ReminderService reminders = services.getReminderService();
+        reminders.stop(); // Rappels envoyés par le rejeu, au rythme de l'horloge simulée
+
+        Map<Operation.Type, LatencyTimer> timers = new EnumMap<>(Operation.Type.class);
+        for (Operation.Type type : Operation.Type.values()) {
+            timers.put(type, MetricsRegistry.getInstance().timer("replay." + type.name().toLowerCase(Locale.ROOT)));
+        }
+        Report report = new Report(timers);
+        if (operations.isEmpty()) {
+            return report;
+        }
+
+        long wallStart = System.nanoTime();
+        long firstTimestamp = operations.get(0).timestamp();
+        for (Operation operation : operations) {
+            if (speed > 0) {
+                // Attente jusqu'à l'instant réel correspondant à l'opération
+                long due = wallStart + (long) ((operation.timestamp() - firstTimestamp) * 1_000_000 / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            clock.advanceTo(operation.timestamp());
+            report.reminders += reminders.fireDueReminders();
+
+            long start = System.nanoTime();
+            try {
+                execute(operation, books, users, loans);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Refus métier (livre indisponible, emprunt introuvable...) : rejoué tel quel
+                report.rejected.merge(operation.type(), 1L, Long::sum);
+            } finally {
+                timers.get(operation.type()).recordSince(start);
+            }
+            report.executed.merge(operation.type(), 1L, Long::sum);
+        }
+        report.wallNanos = System.nanoTime() - wallStart;
+        report.simulatedMillis = operations.get(operations.size() - 1).timestamp() - firstTimestamp;
+        return report;
+    }
+
+    private static void execute(Operation operation, BookService books, UserService users, LoanService loans) {
+        switch (operation.type()) {
+            case REGISTER -> users.register(operation.argument(0), operation.argument(1), operation.argument(2),
+                    operation.argument(3), REPLAY_PASSWORD);
+            case LOGIN -> users.login(operation.argument(0), REPLAY_PASSWORD);
+            case ADD_BOOK -> books.addBook(operation.argument(0), operation.argument(1), operation.argument(2),
+                    operation.argument(3), Integer.parseInt(operation.argument(4)));
+            case BORROW -> loans.createLoan(operation.argument(0), operation.argument(1));
+            case RETURN -> loans.returnBook(operation.argument(0));
+            case RETURN_BY_ISBN -> loans.returnBookByIsbn(operation.argument(0));
+            case RENEW -> loans.renewLoan(operation.argument(0));
+            case SEARCH_TITLE -> books.searchBooksByTitle(operation.argument(0));
+            case SEARCH_AUTHOR -> books.searchBooksByAuthor(operation.argument(0));
+            case AVAILABLE_BOOKS -> books.getAvailableBooks();
+            case MY_LOANS -> loans.getActiveLoansByUserId(operation.argument(0));
+        }
+    }
+
+    /**
+     * Résultat d'un rejeu : opérations, refus, latences par type, durées
+     */
+    public static final class Report {
+        private final Map<Operation.Type, LatencyTimer> timers;
+        private final Map<Operation.Type, Long> executed = new EnumMap<>(Operation.Type.class);
+        private final Map<Operation.Type, Long> rejected = new EnumMap<>(Operation.Type.class);
+        private long reminders;
+        private long wallNanos;
+        private long simulatedMillis;
+
+        private Report(Map<Operation.Type, LatencyTimer> timers) {
+            this.timers = timers;
+        }
+
+        public long getOperationCount() {
+            return executed.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long getRejectedCount() {
+            return rejected.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Valeurs "clé=valeur" stables d'une version à l'autre (comparaison de rejeux)
+         */
+        public Map<String, String> toProperties() {
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("operations", String.valueOf(getOperationCount()));
+            properties.put("rejected", String.valueOf(getRejectedCount()));
+            properties.put("reminders", String.valueOf(reminders));
+            properties.put("simulated.days", String.format(Locale.ROOT, "%.1f", simulatedMillis / 86_400_000.0));
+            properties.put("wall.ms", String.format(Locale.ROOT, "%.1f", wallNanos / 1e6));
+            for (Map.Entry<Operation.Type, Long> entry : executed.entrySet()) {
+                LatencyTimer timer = timers.get(entry.getKey());
+                String key = entry.getKey().name().toLowerCase(Locale.ROOT);
+                properties.put(key + ".count", String.valueOf(entry.getValue()));
+                properties.put(key + ".rejected", String.valueOf(rejected.getOrDefault(entry.getKey(), 0L)));
+                properties.put(key + ".p50.us", String.format(Locale.ROOT, "%.1f",
+                        timer.getPercentile(50, TimeUnit.MICROSECONDS)));
+                properties.put(key + ".p99.us", String.format(Locale.ROOT, "%.1f",
+                        timer.getPercentile(99, TimeUnit.MICROSECONDS)));
+            }
+            return properties;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Rejeu : %,d opérations (%,d refusées), %,d rappels, %.1f jours simulés en %.1f ms%n",
+                    getOperationCount(), getRejectedCount(), reminders, simulatedMillis / 86_400_000.0,
+                    wallNanos / 1e6);
+            out.println("opération          nombre  refusées   p50 (µs)   p99 (µs)");
+            for (Map.Entry<Operation.Type, Long> entry : executed.entrySet()) {
+                LatencyTimer timer = timers.get(entry.getKey());
+                out.printf("%-16s %8d  %8d %10.1f %10.1f%n", entry.getKey(), entry.getValue(),
+                        rejected.getOrDefault(entry.getKey(), 0L),
+                        timer.getPercentile(50, TimeUnit.MICROSECONDS),
+                        timer.getPercentile(99, TimeUnit.MICROSECONDS));
+            }
+        }
+
+        public void write(Path path) throws IOException {
+            List<String> lines = new ArrayList<>();
+            toProperties().forEach((key, value) -> lines.add(key + "=" + value));
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Affiche l'écart avec un rapport précédent (valeurs numériques seulement)
+         */
+        public void compare(Path previousReport, PrintStream out) throws IOException {
+            Map<String, String> previous = new LinkedHashMap<>();
+            for (String line : Files.readAllLines(previousReport, StandardCharsets.UTF_8)) {
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    previous.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+            out.println("Comparaison avec " + previousReport + " :");
+            toProperties().forEach((key, value) -> {
+                String before = previous.get(key);
+                if (before == null) {
+                    out.printf("  %-24s %12s   (nouveau)%n", key, value);
+                    return;
+                }
+                double was = Double.parseDouble(before);
+                double now = Double.parseDouble(value);
+                String change = was == 0 ? "" : String.format(Locale.ROOT, "%+.1f %%", (now - was) * 100 / was);
+                out.printf("  %-24s %12s → %-12s %s%n", key, before, value, change);
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage : java workload.WorkloadReplayer <fichier> [1|N|max]"
+                    + " [--report rapport] [--compare rapport-précédent]");
+            return;
+        }
+        double speed = 0;
+        Path reportPath = null;
+        Path comparePath = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--report" -> reportPath = Path.of(args[++i]);
+                case "--compare" -> comparePath = Path.of(args[++i]);
+                case "max" -> speed = 0;
+                default -> {
+                    speed = Double.parseDouble(args[i].endsWith("x") ? args[i].substring(0, args[i].length() - 1) : args[i]);
+                    if (speed <= 0) {
+                        throw new IllegalArgumentException("Vitesse invalide : " + args[i]);
+                    }
+                }
+            }
+        }
+
+        List<Operation> operations = WorkloadFile.read(Path.of(args[0]));
+        Report report = run(operations, speed);
+        report.print(System.out);
+        if (comparePath != null) {
+            report.compare(comparePath, System.out);
+        }
+        if (reportPath != null) {
+            report.write(reportPath);
+        }
+    }
+
+    /**
+     * Rejoue sur des services neufs, l'horloge de l'application partant de la première opération
+     */
+    static Report run(List<Operation> operations, double speed) throws InterruptedException {
+        Instant start = operations.isEmpty() ? Instant.now() : Instant.ofEpochMilli(operations.get(0).timestamp());
+        SimulatedClock clock = new SimulatedClock(start, ZoneId.systemDefault());
+        LibraryClock.getInstance().install(clock);
+        try {
+            return new WorkloadReplayer(new ServiceContext(false), clock).replay(operations, speed);
+        } finally {
+            LibraryClock.getInstance().reset();
+        }
+    }
+}
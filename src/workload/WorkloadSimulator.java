@@ -0,0 +1,169 @@
+package workload;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Génère une charge synthétique (une année de circulation par défaut) au format
+ * de WorkloadRecorder, pour la rejouer avec WorkloadReplayer
+ *
+ * Pourquoi : Sans enregistrement de production, il faut quand même une charge
+ * réaliste et reproductible pour comparer deux versions : catalogue et lecteurs
+ * créés au début, puis chaque jour d'ouverture des visites (emprunts, recherches,
+ * consultation de ses emprunts) et les retours des livres empruntés, dont une
+ * partie en retard. Même graine, même fichier : la charge ne dépend ni de
+ * l'horloge ni des données déjà présentes (livres et lecteurs ont leurs propres
+ * identifiants, les retours se font par ISBN).
+ *
+ * Usage : java -cp out workload.WorkloadSimulator <fichier> [jours] [graine] [--replay]
+ */
+public class WorkloadSimulator {
+
+    private static final Instant START = Instant.parse("2025-01-06T08:00:00Z");
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long OPENING = Duration.ofHours(1).toMillis();  // Ouverture à 9 h (UTC)
+    private static final long OPEN_HOURS = Duration.ofHours(10).toMillis();
+
+    private static final String[] WORDS = {
+            "nuit", "mer", "jardin", "guerre", "paix", "voyage", "ombre", "lumière", "ville", "silence",
+            "mémoire", "hiver", "été", "rivière", "montagne", "secret", "empire", "étoile", "vent", "forêt"
+    };
+    private static final String[] PUBLISHERS = {"Gallimard", "Flammarion", "Seuil", "Actes Sud", "Grasset", "Minuit"};
+
+    private final Random random;
+    private final int bookCount;
+    private final int readerCount;
+    private final int visitsPerDay;
+
+    public WorkloadSimulator(long seed, int bookCount, int readerCount, int visitsPerDay) {
+        if (bookCount <= 0 || readerCount <= 0 || visitsPerDay <= 0) {
+            throw new IllegalArgumentException("Livres, lecteurs et visites doivent être positifs");
+        }
+        this.random = new Random(seed);
+        this.bookCount = bookCount;
+        this.readerCount = readerCount;
+        this.visitsPerDay = visitsPerDay;
+    }
+
+    /**
+     * Opérations de days jours de circulation, triées par instant
+     */
+    public List<Operation> generate(int days) {
+        List<Operation> operations = new ArrayList<>();
+        long time = START.toEpochMilli();
+
+        // Mise en place : catalogue puis lecteurs, une opération par milliseconde
+        List<String> available = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            String isbn = String.format("SIM-%06d", i);
+            operations.add(operation(time++, Operation.Type.ADD_BOOK, isbn, title(),
+                    "Auteur " + random.nextInt(bookCount / 4 + 1), PUBLISHERS[random.nextInt(PUBLISHERS.length)],
+                    String.valueOf(1900 + random.nextInt(125))));
+            available.add(isbn);
+        }
+        for (int i = 0; i < readerCount; i++) {
+            String userId = reader(i);
+            operations.add(operation(time++, Operation.Type.REGISTER, userId, "Lecteur", String.valueOf(i),
+                    userId.toLowerCase() + "@biblio.com"));
+        }
+
+        // Retours à venir, par instant
+        PriorityQueue<PendingReturn> returns = new PriorityQueue<>();
+        for (int day = 0; day < days; day++) {
+            long opening = START.toEpochMilli() + day * DAY + OPENING;
+            int visits = visitsPerDay / 2 + random.nextInt(visitsPerDay + 1);
+            long[] instants = new long[visits];
+            for (int i = 0; i < visits; i++) {
+                instants[i] = opening + (long) (random.nextDouble() * OPEN_HOURS);
+            }
+            Arrays.sort(instants);
+
+            for (long instant : instants) {
+                while (!returns.isEmpty() && returns.peek().time <= instant) {
+                    PendingReturn pending = returns.poll();
+                    operations.add(operation(pending.time, Operation.Type.RETURN_BY_ISBN, pending.isbn));
+                    available.add(pending.isbn);
+                }
+                visit(instant, available, returns, operations);
+            }
+        }
+        return operations;
+    }
+
+    private void visit(long instant, List<String> available, PriorityQueue<PendingReturn> returns,
+                       List<Operation> operations) {
+        String userId = reader(random.nextInt(readerCount));
+        int action = random.nextInt(100);
+        if (action < 35 && !available.isEmpty()) {
+            // Emprunt d'un livre disponible, rendu dans 1 à 21 jours (en retard au-delà de 14)
+            int index = random.nextInt(available.size());
+            String isbn = available.get(index);
+            available.set(index, available.get(available.size() - 1));
+            available.remove(available.size() - 1);
+            operations.add(operation(instant, Operation.Type.BORROW, userId, isbn));
+            long returnDay = (instant / DAY + 1 + random.nextInt(21)) * DAY;
+            returns.add(new PendingReturn(returnDay + OPENING + (long) (random.nextDouble() * OPEN_HOURS), isbn));
+        } else if (action < 65) {
+            operations.add(operation(instant, Operation.Type.SEARCH_TITLE, WORDS[random.nextInt(WORDS.length)]));
+        } else if (action < 75) {
+            operations.add(operation(instant, Operation.Type.SEARCH_AUTHOR,
+                    "Auteur " + random.nextInt(bookCount / 4 + 1)));
+        } else if (action < 80) {
+            operations.add(operation(instant, Operation.Type.AVAILABLE_BOOKS));
+        } else if (action < 92) {
+            operations.add(operation(instant, Operation.Type.MY_LOANS, userId));
+        } else {
+            operations.add(operation(instant, Operation.Type.LOGIN, userId));
+        }
+    }
+
+    private String title() {
+        return capitalize(WORDS[random.nextInt(WORDS.length)]) + " et " + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String reader(int index) {
+        return String.format("SIM-U%05d", index);
+    }
+
+    private static Operation operation(long time, Operation.Type type, String... arguments) {
+        return new Operation(time, type, Arrays.asList(arguments));
+    }
+
+    private record PendingReturn(long time, String isbn) implements Comparable<PendingReturn> {
+        @Override
+        public int compareTo(PendingReturn other) {
+            return Long.compare(time, other.time);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage : java workload.WorkloadSimulator <fichier> [jours] [graine] [--replay]");
+            return;
+        }
+        List<String> positional = new ArrayList<>(Arrays.asList(args));
+        boolean replay = positional.remove("--replay");
+        Path path = Path.of(positional.get(0));
+        int days = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 365;
+        long seed = positional.size() > 2 ? Long.parseLong(positional.get(2)) : 42L;
+
+        List<Operation> operations = new WorkloadSimulator(seed, 2_000, 500, 200).generate(days);
+        WorkloadFile.write(path, operations);
+        System.out.printf("Charge simulée : %,d opérations sur %d jours → %s%n", operations.size(), days, path);
+
+        if (replay) {
+            WorkloadReplayer.run(operations, 0).print(System.out);
+        }
+    }
+}